@@ -39,11 +39,14 @@ CREATE TABLE `artist` (
   `avatar_url` VARCHAR(500) DEFAULT NULL COMMENT '头像URL',
   `description` TEXT COMMENT '简介',
   `country` VARCHAR(50) DEFAULT NULL COMMENT '国家/地区',
+  `music_count` INT NOT NULL DEFAULT 0 COMMENT '关联音乐数量（冗余计数）',
   `is_deleted` TINYINT NOT NULL DEFAULT 0 COMMENT '逻辑删除',
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
-  KEY `idx_name` (`name`)
+  KEY `idx_name` (`name`),
+  KEY `idx_create_time` (`create_time`),
+  KEY `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='歌手表';
 
 -- 3. 专辑表
@@ -54,11 +57,14 @@ CREATE TABLE `album` (
   `cover_url` VARCHAR(500) DEFAULT NULL COMMENT '封面URL',
   `description` TEXT COMMENT '专辑简介',
   `release_date` DATE DEFAULT NULL COMMENT '发行日期',
+  `song_count` INT NOT NULL DEFAULT 0 COMMENT '歌曲数量（冗余计数）',
   `is_deleted` TINYINT NOT NULL DEFAULT 0 COMMENT '逻辑删除',
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
-  KEY `idx_name` (`name`)
+  KEY `idx_name` (`name`),
+  KEY `idx_release_date` (`release_date`),
+  KEY `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='专辑表';
 
 -- 4. 分类表
@@ -79,6 +85,7 @@ DROP TABLE IF EXISTS `tag`;
 CREATE TABLE `tag` (
   `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
   `name` VARCHAR(50) NOT NULL COMMENT '标签名称',
+  `music_count` INT NOT NULL DEFAULT 0 COMMENT '关联音乐数量（冗余计数）',
   `is_deleted` TINYINT NOT NULL DEFAULT 0 COMMENT '逻辑删除',
   `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
@@ -0,0 +1,89 @@
+#!/bin/bash
+
+###############################################################################
+# 网易云音乐项目 - 音频流并发听众容量压测脚本
+# 说明：模拟 N 个以播放码率读取的听众（curl --limit-rate），在此负载下测量新请求的首字节时间（TTFB），
+#       对比阻塞写出与异步写出（audio.stream.async.enabled）下单节点可承载的并发听众数
+# 作者：naruto
+# 创建时间：2026-02-09
+#
+# 使用方法：
+#   1. 以较小的 Tomcat 线程池启动服务，关闭限流与 sendfile（sendfile 本身不占用工作线程，会掩盖差异）：
+#        AUDIO_STREAM_ASYNC_ENABLED=false java -jar wangyiyun-music.jar \
+#            --server.tomcat.threads.max=50 \
+#            --audio.security.rate-limit.enabled=false \
+#            --audio.stream.sendfile-enabled=false
+#   2. 执行压测：./scripts/bench-audio-concurrency.sh <musicId> [并发级别...]
+#   3. 以 AUDIO_STREAM_ASYNC_ENABLED=true 重启服务，再次执行压测，对比两次输出
+#
+# 环境变量：
+#   BASE_URL       服务地址（默认 http://localhost:8910）
+#   LISTENER_RATE  单个听众读取速率（默认 40k，约 320kbps）
+#   HOLD_SECONDS   每个并发级别的保持时长（默认 20 秒）
+#   TTFB_LIMIT     判定为可用的 TTFB 上限（秒，默认 1）
+#   USER_AGENT     请求使用的 User-Agent（默认浏览器UA；curl 默认UA会命中防盗链黑名单 .*curl.* 被拒绝）
+#   REFERER        请求使用的 Referer（默认 BASE_URL，需在防盗链白名单内）
+#   AUDIO_URL      直接指定音频地址（跳过获取音频地址接口，此时 musicId 仅用于显示）
+###############################################################################
+
+set -e
+
+BASE_URL="${BASE_URL:-http://localhost:8910}"
+LISTENER_RATE="${LISTENER_RATE:-40k}"
+HOLD_SECONDS="${HOLD_SECONDS:-20}"
+TTFB_LIMIT="${TTFB_LIMIT:-1}"
+USER_AGENT="${USER_AGENT:-Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0 Safari/537.36}"
+REFERER="${REFERER:-${BASE_URL}/}"
+
+MUSIC_ID="$1"
+if [ -z "$MUSIC_ID" ]; then
+    echo "用法: $0 <musicId> [并发级别...]"
+    exit 1
+fi
+shift
+LEVELS="${*:-50 100 200 400 800}"
+
+# ==================== 获取签名音频地址 ====================
+
+if [ -z "$AUDIO_URL" ]; then
+    AUDIO_URL=$(curl -s -A "$USER_AGENT" -e "$REFERER" "${BASE_URL}/api/audio/${MUSIC_ID}" \
+        | grep -o '"audioUrl":"[^"]*"' | head -1 | cut -d'"' -f4)
+fi
+if [ -z "$AUDIO_URL" ]; then
+    echo "❌ 获取音频地址失败，请确认服务已启动且 musicId=${MUSIC_ID} 存在"
+    exit 1
+fi
+echo "音频地址: ${AUDIO_URL}"
+echo "听众速率: ${LISTENER_RATE}/s, 保持时长: ${HOLD_SECONDS}s, TTFB 上限: ${TTFB_LIMIT}s"
+echo ""
+printf "%-10s %-12s %-12s %-10s\n" "并发听众" "探测TTFB(s)" "失败听众数" "结果"
+
+# ==================== 逐级压测 ====================
+
+WORK_DIR=$(mktemp -d)
+trap 'kill $(jobs -p) 2>/dev/null; rm -rf "$WORK_DIR"' EXIT
+
+for LEVEL in $LEVELS; do
+    rm -f "$WORK_DIR"/listener-*
+
+    # 1. 启动 LEVEL 个慢速听众
+    for i in $(seq 1 "$LEVEL"); do
+        curl -s -o /dev/null -A "$USER_AGENT" -e "$REFERER" --limit-rate "$LISTENER_RATE" --max-time "$HOLD_SECONDS" \
+            -w "%{http_code}\n" "$AUDIO_URL" > "$WORK_DIR/listener-$i" 2>/dev/null &
+    done
+
+    # 2. 等待听众建立连接后，探测新请求的首字节时间
+    sleep 3
+    TTFB=$(curl -s -o /dev/null -A "$USER_AGENT" -e "$REFERER" -H "Range: bytes=0-65535" --max-time 30 \
+        -w "%{time_starttransfer}" "$AUDIO_URL") || TTFB="30"
+
+    # 3. 等待本级别结束（听众在 HOLD_SECONDS 后超时退出，已收到响应的状态码为200），统计失败的听众
+    wait 2>/dev/null || true
+    FAILED=$(cat "$WORK_DIR"/listener-* 2>/dev/null | grep -cv "^200$" || true)
+
+    RESULT="✅ 可用"
+    if awk "BEGIN { exit !($TTFB > $TTFB_LIMIT) }"; then
+        RESULT="❌ 饱和"
+    fi
+    printf "%-10s %-12s %-12s %-10s\n" "$LEVEL" "$TTFB" "$FAILED" "$RESULT"
+done
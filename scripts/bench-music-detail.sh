@@ -0,0 +1,73 @@
+#!/bin/bash
+
+###############################################################################
+# 网易云音乐项目 - 音乐详情接口延迟压测脚本
+# 说明：顺序请求 /api/music/{id}，统计平均、P50、P95、P99 延迟，
+#       对比逐表查询（最多7条SQL）与单条关联查询（music.detail.joined-query）的详情组装耗时
+# 作者：naruto
+# 创建时间：2026-02-09
+#
+# 使用方法：
+#   1. 关闭详情缓存，以逐表查询模式启动服务：
+#        MUSIC_DETAIL_JOINED_QUERY=false java -jar wangyiyun-music.jar --music.cache.detail.enabled=false
+#   2. 执行压测：./scripts/bench-music-detail.sh <musicId> [musicId...]
+#   3. 以 MUSIC_DETAIL_JOINED_QUERY=true 重启服务，再次执行压测，对比两次输出
+#
+# 环境变量：
+#   BASE_URL   服务地址（默认 http://localhost:8910）
+#   REQUESTS   每个音乐ID的请求次数（默认 500）
+#   WARMUP     预热请求次数（默认 50，不计入统计）
+###############################################################################
+
+set -e
+
+BASE_URL="${BASE_URL:-http://localhost:8910}"
+REQUESTS="${REQUESTS:-500}"
+WARMUP="${WARMUP:-50}"
+
+if [ $# -eq 0 ]; then
+    echo "用法: $0 <musicId> [musicId...]"
+    exit 1
+fi
+
+# ==================== 检查接口可用 ====================
+
+STATUS=$(curl -s -o /dev/null -w "%{http_code}" "${BASE_URL}/api/music/$1")
+if [ "$STATUS" != "200" ]; then
+    echo "❌ 请求 ${BASE_URL}/api/music/$1 失败（HTTP ${STATUS}），请确认服务已启动"
+    exit 1
+fi
+
+WORK_DIR=$(mktemp -d)
+trap 'rm -rf "$WORK_DIR"' EXIT
+
+echo "服务地址: ${BASE_URL}, 每个ID请求次数: ${REQUESTS}, 预热次数: ${WARMUP}"
+echo ""
+printf "%-10s %-10s %-10s %-10s %-10s\n" "音乐ID" "平均(ms)" "P50(ms)" "P95(ms)" "P99(ms)"
+
+# ==================== 逐个ID压测 ====================
+
+for MUSIC_ID in "$@"; do
+    URL="${BASE_URL}/api/music/${MUSIC_ID}"
+
+    # 1. 预热（连接池、JIT）
+    for i in $(seq 1 "$WARMUP"); do
+        curl -s -o /dev/null "$URL"
+    done
+
+    # 2. 顺序请求，记录总耗时（秒）
+    : > "$WORK_DIR/latency"
+    for i in $(seq 1 "$REQUESTS"); do
+        curl -s -o /dev/null -w "%{time_total}\n" "$URL" >> "$WORK_DIR/latency"
+    done
+
+    # 3. 统计（转换为毫秒）
+    sort -n "$WORK_DIR/latency" | awk -v id="$MUSIC_ID" '
+        { v[NR] = $1 * 1000; sum += v[NR] }
+        END {
+            p50 = v[int(NR * 0.50) > 0 ? int(NR * 0.50) : 1]
+            p95 = v[int(NR * 0.95) > 0 ? int(NR * 0.95) : 1]
+            p99 = v[int(NR * 0.99) > 0 ? int(NR * 0.99) : 1]
+            printf "%-10s %-10.2f %-10.2f %-10.2f %-10.2f\n", id, sum / NR, p50, p95, p99
+        }'
+done
@@ -0,0 +1,53 @@
+-- ========================================
+-- 曲库冗余计数列迁移SQL
+-- 功能：为专辑、歌手、标签增加冗余计数列，列表页直接读取，不在查询时 COUNT(*) 聚合
+-- 作者：naruto
+-- 创建时间：2026-02-09
+-- ========================================
+
+ALTER TABLE `album`
+  ADD COLUMN `song_count` INT NOT NULL DEFAULT 0 COMMENT '歌曲数量（冗余计数）' AFTER `release_date`;
+
+ALTER TABLE `artist`
+  ADD COLUMN `music_count` INT NOT NULL DEFAULT 0 COMMENT '关联音乐数量（冗余计数）' AFTER `country`;
+
+ALTER TABLE `tag`
+  ADD COLUMN `music_count` INT NOT NULL DEFAULT 0 COMMENT '关联音乐数量（冗余计数）' AFTER `name`;
+
+-- ========================================
+-- 初始化计数（与应用定时对账使用相同的统计口径）
+-- ========================================
+
+UPDATE `album` a
+LEFT JOIN (
+  SELECT `album_id`, COUNT(*) AS cnt
+  FROM `music`
+  WHERE `is_deleted` = 0 AND `album_id` IS NOT NULL
+  GROUP BY `album_id`
+) c ON c.`album_id` = a.`id`
+SET a.`song_count` = IFNULL(c.cnt, 0);
+
+UPDATE `artist` x
+LEFT JOIN (
+  SELECT r.`artist_id`, COUNT(DISTINCT r.`music_id`) AS cnt
+  FROM `music_artist` r
+  INNER JOIN `music` m ON m.`id` = r.`music_id` AND m.`is_deleted` = 0
+  GROUP BY r.`artist_id`
+) c ON c.`artist_id` = x.`id`
+SET x.`music_count` = IFNULL(c.cnt, 0);
+
+UPDATE `tag` x
+LEFT JOIN (
+  SELECT r.`tag_id`, COUNT(DISTINCT r.`music_id`) AS cnt
+  FROM `music_tag` r
+  INNER JOIN `music` m ON m.`id` = r.`music_id` AND m.`is_deleted` = 0
+  GROUP BY r.`tag_id`
+) c ON c.`tag_id` = x.`id`
+SET x.`music_count` = IFNULL(c.cnt, 0);
+
+-- ========================================
+-- 使用说明
+-- ========================================
+-- 1. 先执行本脚本再部署新版本应用（实体已映射新列，缺列时查询会报错）
+-- 2. 曲库数据由导入脚本维护，导入后计数由定时对账（music.counter.reconcile-cron）自动修正；
+--    急需立即生效时可重新执行上面的初始化语句
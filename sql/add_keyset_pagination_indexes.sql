@@ -0,0 +1,22 @@
+-- ========================================
+-- 游标分页索引迁移SQL
+-- 功能：为专辑、歌手列表的游标分页（/list/cursor）提供 (排序字段, id) 索引
+-- 作者：naruto
+-- 创建时间：2026-02-09
+-- ========================================
+
+ALTER TABLE `album`
+  ADD KEY `idx_release_date` (`release_date`),
+  ADD KEY `idx_create_time` (`create_time`);
+
+ALTER TABLE `artist`
+  ADD KEY `idx_create_time` (`create_time`),
+  ADD KEY `idx_update_time` (`update_time`);
+
+-- ========================================
+-- 索引说明
+-- ========================================
+-- 1. InnoDB 二级索引叶子节点包含主键，(排序字段) 索引等价于 (排序字段, id)，
+--    "排序字段 < ? OR (排序字段 = ? AND id < ?)" 条件可直接在索引上定位，无需 OFFSET 扫描
+-- 2. music 表已有 idx_create_time、idx_play_count，无需新增
+-- 3. 带关键词（LIKE）或分类筛选时，MySQL 仍沿排序索引扫描并过滤，不再需要 COUNT(*) 与 OFFSET 跳过
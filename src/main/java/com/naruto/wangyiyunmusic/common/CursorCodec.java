@@ -0,0 +1,83 @@
+package com.naruto.wangyiyunmusic.common;
+
+import com.naruto.wangyiyunmusic.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 游标分页游标编解码
+ *
+ * <p>游标记录上一页最后一行的排序字段值与ID，对客户端不透明（Base64URL 编码）：</p>
+ * <pre>
+ *   {排序字段}|{排序方式}|{排序值}|{ID}    排序值为空表示 NULL
+ * </pre>
+ * <p>游标中包含排序条件，请求的排序条件与游标不一致时拒绝，避免跨排序方式翻页返回错乱的数据</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * 解码后的游标
+     *
+     * @param sortField 排序字段
+     * @param sortOrder 排序方式
+     * @param value     排序值（字符串形式，NULL 时为null）
+     * @param id        ID
+     */
+    public record Cursor(String sortField, String sortOrder, String value, Long id) {
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param sortField 排序字段
+     * @param sortOrder 排序方式
+     * @param value     排序值（可为null）
+     * @param id        ID
+     * @return 游标字符串
+     */
+    public static String encode(String sortField, String sortOrder, Object value, Long id) {
+        String raw = sortField + SEPARATOR + sortOrder + SEPARATOR
+                + (value == null ? "" : value.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor    游标字符串
+     * @param sortField 本次请求的排序字段
+     * @param sortOrder 本次请求的排序方式
+     * @return 游标
+     * @throws BusinessException 游标格式错误或与排序条件不一致
+     */
+    public static Cursor decode(String cursor, String sortField, String sortOrder) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\|", -1);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+        if (parts.length != 4) {
+            throw new BusinessException("无效的分页游标");
+        }
+        if (!parts[0].equals(sortField) || !parts[1].equals(sortOrder)) {
+            throw new BusinessException("分页游标与排序条件不一致，请从第一页重新查询");
+        }
+
+        try {
+            return new Cursor(parts[0], parts[1], parts[2].isEmpty() ? null : parts[2], Long.parseLong(parts[3]));
+        } catch (NumberFormatException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+}
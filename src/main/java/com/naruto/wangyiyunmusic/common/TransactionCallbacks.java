@@ -0,0 +1,37 @@
+package com.naruto.wangyiyunmusic.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务回调工具
+ *
+ * <p>缓存失效、索引更新、内存计数等副作用需在事务提交后执行，避免并发读取在提交前回填旧数据，
+ * 或事务回滚后留下不存在的变更</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * 事务提交后执行（无事务时立即执行，事务回滚时不执行）
+     *
+     * @param action 要执行的操作
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * 定时任务配置类
  *
  * <p>启用Spring定时任务支持，用于临时文件自动清理等功能</p>
+ * <p>定时任务线程池大小由 spring.task.scheduling.pool.size 配置（默认单线程，
+ * 全量扫描类任务会推迟其他任务，因此配置为多线程）</p>
  *
  * @Author: naruto
  * @CreateTime: 2026-01-31
@@ -15,7 +15,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * <ul>
  *   <li>配置静态资源处理</li>
  *   <li>启用 Swagger UI 静态资源访问</li>
- *   <li>配置音频文件静态资源映射</li>
+ *   <li>配置临时音频文件静态资源映射</li>
  * </ul>
  *
  * @Author: naruto
@@ -24,12 +24,6 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
-    /**
-     * 音频文件存储路径
-     */
-    @Value("${audio.storage-path}")
-    private String audioStoragePath;
-
     /**
      * 临时文件存储路径
      */
@@ -62,11 +56,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/webjars/**")
                 .addResourceLocations("classpath:/META-INF/resources/webjars/");
 
-        // 音频文件静态资源映射（支持HTTP Range请求，实现拖拽播放）
-        registry.addResourceHandler("/audio/**")
-                .addResourceLocations(audioStoragePath)
-                .setCachePeriod(3600)  // 浏览器缓存1小时，提升性能
-                .resourceChain(true);   // 启用资源链，支持Range请求
+        // 音频文件（/audio/**）由 AudioStreamController 处理，支持 sendfile 零拷贝传输
 
         // 临时音频文件静态资源映射（视频解析提取的临时文件）
         // 使用配置的URL前缀（末尾需要 /**）
@@ -110,6 +100,15 @@ public class WebMvcConfig implements WebMvcConfigurer {
                 .allowCredentials(true)
                 .maxAge(maxAge);
 
+        // HLS 分段 CORS 配置（长音频播放列表与分段）
+        registry.addMapping("/hls/**")
+                .allowedOrigins(allowedOrigins)
+                .allowedMethods("GET", "HEAD", "OPTIONS")
+                .allowedHeaders("Range", "Accept", "Content-Type")
+                .exposedHeaders("Content-Length", "Content-Range", "Accept-Ranges")
+                .allowCredentials(true)
+                .maxAge(maxAge);
+
         // 临时音频资源 CORS 配置（视频解析提取的临时文件）
         registry.addMapping("/temp-audio/**")
                 .allowedOrigins(allowedOrigins)
@@ -0,0 +1,138 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 音频媒体处理配置属性类
+ *
+ * <p>绑定 application.yaml 中 audio.media 下的配置</p>
+ * <p>控制 ffmpeg 转码阶梯（64/128/320kbps）的后台生成、音质选择策略与 HLS 分段</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "audio.media")
+public class AudioMediaProperties {
+
+    /**
+     * ffmpeg 可执行文件路径（默认从 PATH 查找）
+     */
+    private String ffmpegPath = "ffmpeg";
+
+    /**
+     * 转码配置
+     */
+    private TranscodeConfig transcode = new TranscodeConfig();
+
+    /**
+     * 音质选择配置
+     */
+    private QualityConfig quality = new QualityConfig();
+
+    /**
+     * HLS 分段配置
+     */
+    private HlsConfig hls = new HlsConfig();
+
+    /**
+     * 转码配置内部类
+     */
+    @Data
+    public static class TranscodeConfig {
+        /**
+         * 是否启用转码（ffmpeg 不可用时自动禁用，始终返回原始文件）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 转码文件目录（相对于音频存储目录），目录结构为 {renditionDir}/{码率}k/{原相对路径}.mp3
+         */
+        private String renditionDir = ".renditions";
+
+        /**
+         * 转码工作线程数
+         */
+        private Integer workerThreads = 1;
+
+        /**
+         * 转码任务队列容量（队列已满时丢弃，由下一次扫描补齐）
+         */
+        private Integer queueCapacity = 1000;
+
+        /**
+         * 单个文件转码超时时间（秒）
+         */
+        private Integer timeoutSeconds = 300;
+
+        /**
+         * 全量扫描间隔（分钟），为所有音乐补齐缺失的转码文件
+         */
+        private Integer scanIntervalMinutes = 360;
+
+        /**
+         * 全量扫描每批读取的音乐行数（按主键分页）
+         */
+        private Integer scanBatchSize = 500;
+    }
+
+    /**
+     * 音质选择配置内部类
+     */
+    @Data
+    public static class QualityConfig {
+        /**
+         * 移动端 User-Agent 匹配规则（正则表达式）
+         */
+        private String mobileUserAgentPattern = "(?i)Mobile|Android|iPhone|iPad|HarmonyOS";
+
+        /**
+         * 移动端未指定音质时的默认音质
+         */
+        private String mobileDefault = "standard";
+
+        /**
+         * 其他客户端未指定音质时的默认音质
+         */
+        private String desktopDefault = "original";
+    }
+
+    /**
+     * HLS 分段配置内部类
+     */
+    @Data
+    public static class HlsConfig {
+        /**
+         * 是否启用 HLS 分段（依赖 ffmpeg）
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 分段目录（相对于音频存储目录/临时目录），目录结构为 {outputDir}/{原相对路径去掉扩展名}/index.m3u8
+         */
+        private String outputDir = ".hls";
+
+        /**
+         * 分段时长（秒）
+         */
+        private Integer segmentSeconds = 10;
+
+        /**
+         * 时长达到该值（秒）的音乐生成分段
+         */
+        private Integer minDurationSeconds = 600;
+
+        /**
+         * 文件大小达到该值（字节）的音频生成分段（时长未知或视频解析的音频）
+         */
+        private Long minFileBytes = 20 * 1024 * 1024L;
+
+        /**
+         * 无法直接封装（非 MP3/AAC）时转为 AAC 的码率（kbps）
+         */
+        private Integer aacBitrate = 192;
+    }
+}
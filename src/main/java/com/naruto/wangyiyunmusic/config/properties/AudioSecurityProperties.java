@@ -11,7 +11,7 @@ import java.util.List;
  * 音频安全配置属性类
  *
  * <p>绑定 application.yaml 中的音频安全配置</p>
- * <p>包含限流配置、防盗链配置、黑名单配置</p>
+ * <p>包含限流配置、防盗链配置、签名URL配置、黑名单配置、可信反向代理</p>
  *
  * @Author: naruto
  * @CreateTime: 2026-01-31
@@ -31,11 +31,23 @@ public class AudioSecurityProperties {
      */
     private AntiLeechConfig antiLeech = new AntiLeechConfig();
 
+    /**
+     * 签名URL配置
+     */
+    private SignedUrlConfig signedUrl = new SignedUrlConfig();
+
     /**
      * 黑名单配置
      */
     private BlacklistConfig blacklist = new BlacklistConfig();
 
+    /**
+     * 可信反向代理（IP或CIDR），只有直连地址属于其中时才读取 X-Forwarded-For；为空时始终使用直连地址
+     * （默认为本机与内网地址，与 Tomcat RemoteIpValve 的默认内部代理一致）
+     */
+    private List<String> trustedProxies = new ArrayList<>(List.of(
+            "127.0.0.0/8", "::1", "10.0.0.0/8", "172.16.0.0/12", "192.168.0.0/16"));
+
     /**
      * 限流配置内部类
      */
@@ -75,6 +87,32 @@ public class AudioSecurityProperties {
          * 统计窗口时长（分钟）
          */
         private Integer windowMinutes = 5;
+
+        /**
+         * 限流状态存储：memory（单机内存）、redis（多实例共享）
+         */
+        private String store = "memory";
+
+        /**
+         * Redis 存储的键前缀
+         */
+        private String redisKeyPrefix = "audio:rl:";
+
+        /**
+         * Redis 不可用时的处理策略：open（放行请求，默认）、closed（拒绝请求）
+         */
+        private String redisFailurePolicy = "open";
+
+        /**
+         * sendfile 请求占用并发连接名额时按该速率（字节/秒）估算传输时长，名额保留到估算的传输结束时刻
+         * （sendfile 在 Servlet 返回后由容器发送，没有完成回调）
+         */
+        private Long sendfileLeaseBytesPerSecond = 1024 * 1024L;
+
+        /**
+         * sendfile 请求保留并发连接名额的最长时长（秒）
+         */
+        private Integer sendfileLeaseMaxSeconds = 120;
     }
 
     /**
@@ -103,6 +141,42 @@ public class AudioSecurityProperties {
         private List<String> blockedUserAgents = new ArrayList<>();
     }
 
+    /**
+     * 签名URL配置内部类
+     */
+    @Data
+    public static class SignedUrlConfig {
+        /**
+         * 是否启用签名URL（启用时必须配置 secret）
+         */
+        private Boolean enabled = false;
+
+        /**
+         * HMAC 签名密钥（启用签名URL时必填，未配置时启动失败）
+         */
+        private String secret = "";
+
+        /**
+         * 签名URL有效期（秒）
+         */
+        private Integer expireSeconds = 3600;
+
+        /**
+         * 过期时间对齐粒度（秒），同一时间窗口内签发的URL相同，便于浏览器缓存
+         */
+        private Integer alignSeconds = 300;
+
+        /**
+         * 是否绑定客户端IP
+         */
+        private Boolean bindIp = true;
+
+        /**
+         * 是否拒绝未签名的请求（false 时未签名请求回退到 Referer/User-Agent 检查）
+         */
+        private Boolean requireSignature = false;
+    }
+
     /**
      * 黑名单配置内部类
      */
@@ -119,8 +193,33 @@ public class AudioSecurityProperties {
         private Integer banDurationMinutes = 30;
 
         /**
-         * 清理过期数据的间隔（分钟）
+         * IP信誉表容量（条目数，堆外存储，每条目40字节）
+         */
+        private Integer reputationCapacity = 65536;
+
+        /**
+         * IPv4 网段聚合前缀长度（0表示不聚合）
+         */
+        private Integer ipv4PrefixLength = 24;
+
+        /**
+         * IPv6 网段聚合前缀长度（0表示不聚合）
+         */
+        private Integer ipv6PrefixLength = 64;
+
+        /**
+         * 触发整段封禁的网段违规次数阈值（0表示不启用网段封禁）
+         */
+        private Integer prefixBanThreshold = 100;
+
+        /**
+         * 增量清理过期数据的间隔（秒）
+         */
+        private Integer sweepIntervalSeconds = 5;
+
+        /**
+         * 每次增量清理检查的IP数
          */
-        private Integer cleanupIntervalMinutes = 10;
+        private Integer sweepBatchSize = 2000;
     }
 }
@@ -0,0 +1,194 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 音频流式传输配置属性类
+ *
+ * <p>绑定 application.yaml 中 audio.stream 下的配置</p>
+ * <p>控制 /audio/** 音频流的传输方式（sendfile 零拷贝 / FileChannel 分块写出）与缓存策略</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-08
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "audio.stream")
+public class AudioStreamProperties {
+
+    /**
+     * 是否启用 Tomcat sendfile（容器支持时，单区间请求由内核直接从文件拷贝到 Socket）
+     */
+    private Boolean sendfileEnabled = true;
+
+    /**
+     * 使用 sendfile 的最小传输字节数（过小的区间直接 transferTo 更划算）
+     */
+    private Long sendfileMinSize = 48 * 1024L;
+
+    /**
+     * 单次 FileChannel.transferTo 的最大字节数
+     */
+    private Integer transferChunkSize = 256 * 1024;
+
+    /**
+     * 单个 Range 请求允许的最大区间数（超出时返回 416）
+     */
+    private Integer maxRanges = 16;
+
+    /**
+     * 浏览器缓存时长（秒）
+     */
+    private Integer cacheSeconds = 3600;
+
+    /**
+     * 是否生成内容寻址URL（/audio/v/{内容版本}/{相对路径}）
+     */
+    private Boolean versionedUrlEnabled = true;
+
+    /**
+     * 内容寻址URL的浏览器/CDN 缓存时长（秒，默认1年，配合 immutable；启用签名URL时不加 immutable）
+     */
+    private Integer immutableCacheSeconds = 31536000;
+
+    /**
+     * 热门音频内存映射缓存配置
+     */
+    private HotCacheConfig hotCache = new HotCacheConfig();
+
+    /**
+     * 音频元数据索引配置
+     */
+    private MetadataIndexConfig metadataIndex = new MetadataIndexConfig();
+
+    /**
+     * 出口带宽调度配置
+     */
+    private BandwidthConfig bandwidth = new BandwidthConfig();
+
+    /**
+     * 异步非阻塞写出配置
+     */
+    private AsyncConfig async = new AsyncConfig();
+
+    /**
+     * 热门音频内存映射缓存配置内部类
+     */
+    @Data
+    public static class HotCacheConfig {
+        /**
+         * 是否启用热门音频内存映射缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 缓存总字节预算（所有映射区域之和）
+         */
+        private Long maxBytes = 512 * 1024 * 1024L;
+
+        /**
+         * 单文件最大字节数（超过则不缓存）
+         */
+        private Long maxFileBytes = 32 * 1024 * 1024L;
+
+        /**
+         * 准入阈值：统计窗口内播放次数达到该值才允许进入缓存
+         */
+        private Integer admissionThreshold = 3;
+
+        /**
+         * 播放频率衰减间隔（分钟），每次衰减计数减半
+         */
+        private Integer decayIntervalMinutes = 10;
+    }
+
+    /**
+     * 音频元数据索引配置内部类
+     */
+    @Data
+    public static class MetadataIndexConfig {
+        /**
+         * 是否启用音频元数据索引
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 是否监听存储目录变更（WatchService）并增量刷新索引
+         */
+        private Boolean watchEnabled = true;
+
+        /**
+         * 变更事件合并等待时长（毫秒），文件写入期间的多次事件只刷新一次
+         */
+        private Long watchDebounceMillis = 1000L;
+
+        /**
+         * 变更事件最长等待时长（毫秒），持续有事件时也会在该时长后刷新一次
+         */
+        private Long watchMaxDelayMillis = 10000L;
+
+        /**
+         * 内容摘要快照文件（按 相对路径+大小+修改时间 保存 ETag，重启后未变化的文件无需重新计算摘要），为空时不持久化
+         */
+        private String snapshotPath = "";
+    }
+
+    /**
+     * 出口带宽调度配置内部类
+     */
+    @Data
+    public static class BandwidthConfig {
+        /**
+         * 是否启用带宽调度（启用后不再使用 sendfile）
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 本节点音频出口总速率（字节/秒）
+         */
+        private Long globalBytesPerSecond = 100 * 1024 * 1024L;
+
+        /**
+         * 单连接速率上限（字节/秒），饱和时按公平份额进一步降低
+         */
+        private Long perConnectionBytesPerSecond = 1024 * 1024L;
+
+        /**
+         * 起播突发额度（字节），新连接的前 burst-bytes 字节不受单连接令牌限制
+         */
+        private Long burstBytes = 512 * 1024L;
+
+        /**
+         * 起播突发阶段的公平份额权重（普通阶段为1）
+         */
+        private Integer startupWeight = 4;
+
+        /**
+         * 调度分块大小（字节），每次申请令牌后写出的最大字节数
+         */
+        private Integer chunkSize = 64 * 1024;
+    }
+
+    /**
+     * 异步非阻塞写出配置内部类
+     */
+    @Data
+    public static class AsyncConfig {
+        /**
+         * 是否启用 Servlet 异步非阻塞写出（WriteListener），启用后写出期间不占用 Tomcat 工作线程
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 异步请求超时时间（毫秒），超时后关闭连接
+         */
+        private Long timeoutMillis = 10 * 60 * 1000L;
+
+        /**
+         * 单次写出的缓冲区大小（字节）
+         */
+        private Integer bufferSize = 64 * 1024;
+    }
+}
@@ -0,0 +1,60 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户事件异步管道配置属性类
+ *
+ * <p>绑定 application.yaml 中 music.event-pipeline 下的配置</p>
+ * <p>控制收藏事件环形缓冲区、批量消费，以及播放/收藏共用的背压策略与监控</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "music.event-pipeline")
+public class EventPipelineProperties {
+
+    /**
+     * 是否异步处理收藏事件（false 时收藏/取消收藏在请求线程中同步写入）
+     */
+    private Boolean favoriteAsyncEnabled = true;
+
+    /**
+     * 收藏事件环形缓冲区容量（向上取整为 2 的幂）
+     */
+    private Integer favoriteRingSize = 16384;
+
+    /**
+     * 消费者每批最多处理的事件数（即每条批量 SQL 的最大行数）
+     */
+    private Integer batchSize = 500;
+
+    /**
+     * 缓冲区为空时消费者的休眠时长（毫秒），也是低负载下事件落库的最大延迟
+     */
+    private Long idleWaitMillis = 10L;
+
+    /**
+     * 缓冲区已满时生产者最多等待的时长（毫秒），超时后降级为同步写入；0 表示不等待
+     */
+    private Long publishTimeoutMillis = 5L;
+
+    /**
+     * 批量写入失败时的最大重试次数（超过后丢弃该批并记录错误日志）
+     */
+    private Integer maxRetries = 3;
+
+    /**
+     * 音乐存在性缓存条数（播放、收藏时校验音乐ID，只缓存存在的ID）
+     */
+    private Long existenceCacheSize = 100000L;
+
+    /**
+     * 背压监控日志间隔（秒）
+     */
+    private Long metricsLogIntervalSeconds = 60L;
+}
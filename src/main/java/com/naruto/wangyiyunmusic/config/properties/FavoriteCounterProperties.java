@@ -0,0 +1,45 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 收藏次数计数配置属性类
+ *
+ * <p>绑定 application.yaml 中 music.favorite-counter 下的配置</p>
+ * <p>控制热门歌曲收藏次数的合并写入，以及 favorite_count 与收藏表的定时对账</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "music.favorite-counter")
+public class FavoriteCounterProperties {
+
+    /**
+     * 是否合并热门歌曲的收藏次数更新（同步收藏路径）
+     */
+    private Boolean coalesceEnabled = false;
+
+    /**
+     * 热门阈值：一个刷写周期内同一首歌曲的收藏/取消收藏次数超过该值后，后续增量先在内存合并
+     */
+    private Integer hotThreshold = 10;
+
+    /**
+     * 合并增量的刷写间隔（毫秒）
+     */
+    private Long flushIntervalMillis = 1000L;
+
+    /**
+     * 是否启用定时对账
+     */
+    private Boolean reconcileEnabled = true;
+
+    /**
+     * 对账时每个ID区间的大小（每个区间一条 UPDATE，避免长时间锁住整张音乐表）
+     */
+    private Integer reconcileBatchSize = 1000;
+}
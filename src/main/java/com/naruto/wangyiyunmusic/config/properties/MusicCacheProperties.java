@@ -0,0 +1,63 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 音乐数据缓存配置属性类
+ *
+ * <p>绑定 application.yaml 中 music.cache 下的配置</p>
+ * <p>控制音乐详情的多级缓存：进程内 L1（Guava Cache）与可选的共享 L2（Redis）</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "music.cache")
+public class MusicCacheProperties {
+
+    /**
+     * 音乐详情缓存配置
+     */
+    private DetailConfig detail = new DetailConfig();
+
+    /**
+     * 音乐详情缓存配置内部类
+     */
+    @Data
+    public static class DetailConfig {
+        /**
+         * 是否启用音乐详情缓存
+         */
+        private Boolean enabled = true;
+
+        /**
+         * L1 最大缓存条数
+         */
+        private Long localMaxSize = 10000L;
+
+        /**
+         * L1 写入后过期时间（秒）
+         *
+         * <p>播放次数等计数字段不触发失效：只启用 L1 时最多滞后该时长，启用 L2 时最多滞后 L2 + L1 过期时间</p>
+         */
+        private Integer localTtlSeconds = 60;
+
+        /**
+         * 是否启用 L2（Redis，多实例共享）
+         */
+        private Boolean redisEnabled = false;
+
+        /**
+         * L2 过期时间（秒），计入计数字段的最大滞后时间
+         */
+        private Integer redisTtlSeconds = 600;
+
+        /**
+         * L2 键前缀
+         */
+        private String redisKeyPrefix = "music:detail:";
+    }
+}
@@ -0,0 +1,191 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 曲库搜索配置属性类
+ *
+ * <p>绑定 application.yaml 中 music.search 下的配置</p>
+ * <p>控制进程内全文索引（音乐标题、歌手、专辑、歌词）的构建、字段权重与查询限制</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "music.search")
+public class MusicSearchProperties {
+
+    /**
+     * 是否启用全文索引（禁用或索引未构建完成时，搜索降级为数据库 LIKE 查询）
+     */
+    private Boolean enabled = true;
+
+    /**
+     * 全量重建时每批读取的行数
+     */
+    private Integer batchSize = 1000;
+
+    /**
+     * 增量更新任务队列容量（队列满时丢弃，由下一次全量重建修正）
+     */
+    private Integer queueCapacity = 10000;
+
+    /**
+     * 是否索引歌词
+     */
+    private Boolean indexLyrics = true;
+
+    /**
+     * 是否索引拼音（标题、歌手名称、专辑名称的全拼与首字母）
+     */
+    private Boolean indexPinyin = true;
+
+    /**
+     * 每种类型默认返回条数
+     */
+    private Integer defaultLimit = 10;
+
+    /**
+     * 每种类型最多返回条数
+     */
+    private Integer maxLimit = 50;
+
+    /**
+     * 字段权重配置
+     */
+    private WeightConfig weight = new WeightConfig();
+
+    /**
+     * 搜索框前缀补全配置
+     */
+    private SuggestConfig suggest = new SuggestConfig();
+
+    /**
+     * 搜索历史记录配置
+     */
+    private HistoryConfig history = new HistoryConfig();
+
+    /**
+     * 字段权重配置内部类
+     */
+    @Data
+    public static class WeightConfig {
+        /**
+         * 标题/名称权重
+         */
+        private Float title = 3.0f;
+
+        /**
+         * 歌手名称权重（音乐文档）
+         */
+        private Float artist = 2.0f;
+
+        /**
+         * 专辑名称权重（音乐文档）
+         */
+        private Float album = 1.0f;
+
+        /**
+         * 歌词权重
+         */
+        private Float lyrics = 0.3f;
+
+        /**
+         * 拼音权重（全拼、首字母）
+         */
+        private Float pinyin = 1.0f;
+
+        /**
+         * 热度权重：得分乘以 1 + popularity × log10(1 + 播放次数/歌曲数)
+         */
+        private Float popularity = 0.1f;
+    }
+
+    /**
+     * 搜索框前缀补全配置内部类
+     */
+    @Data
+    public static class SuggestConfig {
+        /**
+         * 是否启用前缀补全
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 重建间隔（分钟）
+         */
+        private Integer rebuildIntervalMinutes = 10;
+
+        /**
+         * 每个前缀保存的候选数（同时为单次返回条数上限）
+         */
+        private Integer topK = 10;
+
+        /**
+         * 默认返回条数
+         */
+        private Integer defaultLimit = 8;
+
+        /**
+         * 键最大长度（超出部分不建节点）
+         */
+        private Integer maxKeyLength = 32;
+
+        /**
+         * 热门搜索关键词最多加载条数
+         */
+        private Integer keywordLimit = 5000;
+
+        /**
+         * 热门搜索关键词统计天数
+         */
+        private Integer keywordDays = 30;
+
+        /**
+         * 搜索关键词权重乘数：关键词权重 = 汇总搜索次数 × 乘数（音乐、歌手、专辑权重为播放次数）
+         */
+        private Integer keywordWeight = 10;
+
+        /**
+         * 搜索关键词最少汇总搜索次数（低于该次数不进入补全候选）
+         */
+        private Integer keywordMinCount = 3;
+
+        /**
+         * 搜索关键词是否必须能在曲库中检索到结果（全文索引可用时检查）
+         */
+        private Boolean keywordRequireResult = true;
+
+        /**
+         * 屏蔽词（关键词包含任一屏蔽词时不进入补全候选，不区分大小写）
+         */
+        private List<String> blockedKeywords = new ArrayList<>();
+    }
+
+    /**
+     * 搜索历史记录配置内部类
+     */
+    @Data
+    public static class HistoryConfig {
+        /**
+         * 记录窗口（秒）：同一客户端的同一关键词在窗口内只记录一次
+         */
+        private Integer recordWindowSeconds = 600;
+
+        /**
+         * 每个客户端在一个记录窗口内最多记录的关键词数
+         */
+        private Integer maxRecordsPerClient = 20;
+
+        /**
+         * 去重缓存最大条目数
+         */
+        private Long clientCacheSize = 100000L;
+    }
+}
@@ -0,0 +1,66 @@
+package com.naruto.wangyiyunmusic.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 播放计数写后合并配置属性类
+ *
+ * <p>绑定 application.yaml 中 music.play-counter 下的配置</p>
+ * <p>控制播放次数的内存累加、批量刷写间隔，以及可选的本地预写日志（WAL）</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "music.play-counter")
+public class PlayCounterProperties {
+
+    /**
+     * 是否启用写后合并（false 时每次播放同步写入播放记录并原子累加播放次数）
+     */
+    private Boolean writeBehindEnabled = true;
+
+    /**
+     * 刷写间隔（毫秒）
+     */
+    private Long flushIntervalMillis = 1000L;
+
+    /**
+     * 每条批量 SQL 的最大行数
+     */
+    private Integer batchSize = 500;
+
+    /**
+     * 待写入播放记录环形缓冲区容量（向上取整为 2 的幂，已满时该次播放降级为同步写入）
+     */
+    private Integer queueCapacity = 100000;
+
+    /**
+     * 预写日志配置
+     */
+    private WalConfig wal = new WalConfig();
+
+    /**
+     * 预写日志配置内部类
+     */
+    @Data
+    public static class WalConfig {
+        /**
+         * 是否启用预写日志（进程崩溃后重启时重放未刷写的播放）
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 日志目录
+         */
+        private String path = "./music-data/wal/play-counter";
+
+        /**
+         * 是否每次写入后 fsync（false 时进程崩溃不丢数据，断电可能丢失操作系统尚未落盘的部分）
+         */
+        private Boolean syncEachWrite = false;
+    }
+}
@@ -6,6 +6,7 @@ import com.naruto.wangyiyunmusic.model.dto.AlbumQueryDTO;
 import com.naruto.wangyiyunmusic.model.dto.AlbumUpdateDTO;
 import com.naruto.wangyiyunmusic.model.vo.AlbumDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.AlbumListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.service.AlbumService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -44,6 +45,20 @@ public class AlbumController {
         return albumService.pageQuery(queryDTO);
     }
 
+    /**
+     * 游标分页查询专辑列表
+     *
+     * @param queryDTO 查询条件（cursor 为上一页返回的 nextCursor，首页不传）
+     * @return 游标分页结果（包含歌曲数量）
+     */
+    @Operation(summary = "游标分页查询专辑列表", description = "与分页查询条件相同，按 (排序字段, ID) 游标翻页，不返回总数，深度翻页性能稳定")
+    @GetMapping("/list/cursor")
+    public CursorPageVO<AlbumListVO> cursorList(
+            @Parameter(description = "查询条件，包含排序字段、游标、每页大小等")
+            AlbumQueryDTO queryDTO) {
+        return albumService.cursorQuery(queryDTO);
+    }
+
     /**
      * 获取专辑详情
      *
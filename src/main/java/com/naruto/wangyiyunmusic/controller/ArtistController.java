@@ -6,6 +6,7 @@ import com.naruto.wangyiyunmusic.model.dto.ArtistQueryDTO;
 import com.naruto.wangyiyunmusic.model.dto.ArtistUpdateDTO;
 import com.naruto.wangyiyunmusic.model.vo.ArtistDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.ArtistListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.service.ArtistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -44,6 +45,20 @@ public class ArtistController {
         return artistService.pageQuery(queryDTO);
     }
 
+    /**
+     * 游标分页查询歌手列表
+     *
+     * @param queryDTO 查询条件（cursor 为上一页返回的 nextCursor，首页不传）
+     * @return 游标分页结果
+     */
+    @Operation(summary = "游标分页查询歌手列表", description = "与分页查询条件相同，按 (排序字段, ID) 游标翻页，不返回总数，深度翻页性能稳定")
+    @GetMapping("/list/cursor")
+    public CursorPageVO<ArtistListVO> cursorList(
+            @Parameter(description = "查询条件，包含排序字段、游标、每页大小等")
+            ArtistQueryDTO queryDTO) {
+        return artistService.cursorQuery(queryDTO);
+    }
+
     /**
      * 获取歌手详情
      *
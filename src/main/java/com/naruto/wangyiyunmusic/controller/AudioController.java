@@ -1,13 +1,23 @@
 package com.naruto.wangyiyunmusic.controller;
 
+import com.naruto.wangyiyunmusic.model.dto.AudioUrlBatchDTO;
+import com.naruto.wangyiyunmusic.model.enums.AudioQuality;
 import com.naruto.wangyiyunmusic.model.vo.AudioUrlVO;
 import com.naruto.wangyiyunmusic.service.AudioService;
+import com.naruto.wangyiyunmusic.service.impl.AntiLeechService;
+import com.naruto.wangyiyunmusic.service.impl.AudioTranscodeService;
+import com.naruto.wangyiyunmusic.service.impl.ClientIpResolver;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * 音频管理控制器
  *
@@ -24,10 +34,23 @@ public class AudioController {
     @Autowired
     private AudioService audioService;
 
+    @Autowired
+    private AntiLeechService antiLeechService;
+
+    @Autowired
+    private AudioTranscodeService transcodeService;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
     /**
      * 获取音频访问URL
      *
+     * <p>防盗链检查在此处执行，通过后签发带过期时间的签名URL</p>
+     *
      * @param musicId 音乐ID
+     * @param quality 音质（为空时移动端自动降档）
+     * @param request HTTP请求
      * @return 音频URL信息
      */
     @Operation(
@@ -37,7 +60,34 @@ public class AudioController {
     @GetMapping("/{musicId}")
     public AudioUrlVO getAudioUrl(
             @Parameter(description = "音乐ID", example = "1", required = true)
-            @PathVariable Long musicId) {
-        return audioService.getAudioUrl(musicId);
+            @PathVariable Long musicId,
+            @Parameter(description = "音质：low、standard、high、original、auto（默认，移动端自动降档）", example = "auto")
+            @RequestParam(required = false) String quality,
+            HttpServletRequest request) {
+        String ip = clientIpResolver.resolve(request);
+        antiLeechService.checkIssuance(request, ip);
+        AudioQuality audioQuality = transcodeService.resolveQuality(quality, request.getHeader(HttpHeaders.USER_AGENT));
+        return audioService.getAudioUrl(musicId, ip, audioQuality);
+    }
+
+    /**
+     * 批量获取音频访问URL
+     *
+     * @param batchDTO 音乐ID列表
+     * @param request HTTP请求
+     * @return 音频URL信息列表（按请求顺序）
+     */
+    @Operation(
+            summary = "批量获取音频URL",
+            description = "一次性获取播放队列中所有音乐的音频访问URL，结果保持请求顺序，不存在或暂无音频文件的音乐将被跳过"
+    )
+    @PostMapping("/batch")
+    public List<AudioUrlVO> getAudioUrls(@Valid @RequestBody AudioUrlBatchDTO batchDTO,
+                                         HttpServletRequest request) {
+        String ip = clientIpResolver.resolve(request);
+        antiLeechService.checkIssuance(request, ip);
+        AudioQuality audioQuality = transcodeService.resolveQuality(batchDTO.getQuality(),
+                request.getHeader(HttpHeaders.USER_AGENT));
+        return audioService.getAudioUrls(batchDTO.getMusicIds(), ip, audioQuality);
     }
 }
@@ -0,0 +1,75 @@
+package com.naruto.wangyiyunmusic.controller;
+
+import com.naruto.wangyiyunmusic.annotation.IgnoreResponseWrap;
+import com.naruto.wangyiyunmusic.service.AudioStreamService;
+import com.naruto.wangyiyunmusic.service.impl.AudioMetadataIndexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * 音频流式传输控制器
+ *
+ * <p>替代 /audio/** 静态资源映射，支持 HTTP Range 请求（单区间/多区间）实现拖拽播放</p>
+ * <p>内容寻址URL（/audio/v/{内容版本}/{相对路径}）返回一年期 immutable 缓存头</p>
+ * <p>防盗链、限流由 {@link com.naruto.wangyiyunmusic.filter.AntiLeechFilter}、
+ * {@link com.naruto.wangyiyunmusic.filter.AudioRateLimitFilter} 在进入本控制器前完成</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-08
+ */
+@Slf4j
+@IgnoreResponseWrap
+@Tag(name = "音频管理", description = "提供音频文件访问接口")
+@RestController
+@RequestMapping("/audio")
+public class AudioStreamController {
+
+    @Autowired
+    private AudioStreamService audioStreamService;
+
+    /**
+     * 音频文件流式传输
+     *
+     * @param filePath 文件相对路径
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 写出失败
+     */
+    @Operation(summary = "音频文件流", description = "输出音频文件内容，支持 Range 请求（拖拽播放）与 HEAD 请求")
+    @GetMapping("/{*filePath}")
+    public void stream(
+            @Parameter(description = "文件相对路径（可带内容版本: v/{版本}/{相对路径}）", example = "jay/晴天.mp3", required = true)
+            @PathVariable String filePath,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        try {
+            String[] versioned = AudioMetadataIndexService.parseVersionedPath(filePath);
+            audioStreamService.streamAudio(versioned[1], versioned[0], request, response);
+        } catch (NoSuchFileException e) {
+            // 索引尚未感知的删除
+            log.debug("音频文件已删除: {}", filePath);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+        } catch (IOException e) {
+            // 响应已提交时通常是客户端中断（拖拽、切歌），无法再写入错误信息
+            if (response.isCommitted()) {
+                log.debug("音频传输中断: {}, 原因: {}", filePath, e.getMessage());
+                return;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.naruto.wangyiyunmusic.controller;
+
+import com.naruto.wangyiyunmusic.annotation.IgnoreResponseWrap;
+import com.naruto.wangyiyunmusic.config.properties.AudioMediaProperties;
+import com.naruto.wangyiyunmusic.service.AudioStreamService;
+import com.naruto.wangyiyunmusic.service.impl.AudioHlsService;
+import com.naruto.wangyiyunmusic.service.impl.AudioUrlSignService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HLS 分段访问控制器
+ *
+ * <p>输出 {@link com.naruto.wangyiyunmusic.service.impl.AudioHlsService} 生成的播放列表（.m3u8）与分段（.ts），
+ * 复用音频流式传输服务（元数据索引、ETag、sendfile）</p>
+ * <p>播放列表与分段请求都计入限流与并发连接数；启用签名URL时，携带签名的播放列表请求
+ * 会把签名参数附加到每个分段地址上后输出（不缓存到共享缓存，签名与客户端绑定）</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@IgnoreResponseWrap
+@Tag(name = "音频管理", description = "提供音频文件访问接口")
+@RestController
+@RequestMapping("/hls")
+public class HlsController {
+
+    @Autowired
+    private AudioStreamService audioStreamService;
+
+    @Autowired
+    private AudioMediaProperties mediaProperties;
+
+    @Autowired
+    private AudioHlsService hlsService;
+
+    /**
+     * HLS 播放列表与分段
+     *
+     * @param filePath 文件相对路径
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 写出失败
+     */
+    @Operation(summary = "HLS 分段", description = "输出长音频的 HLS 播放列表（index.m3u8）与 MPEG-TS 分段")
+    @GetMapping("/{*filePath}")
+    public void stream(
+            @Parameter(description = "文件相对路径", example = "mix/live-2025/index.m3u8", required = true)
+            @PathVariable String filePath,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        // 只允许访问分段目录中的播放列表与分段
+        if (filePath.contains("..") || !(filePath.endsWith(".m3u8") || filePath.endsWith(".ts"))) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 携带签名的播放列表：分段地址附加同一签名
+        String signature = request.getParameter(AudioUrlSignService.PARAM_SIGNATURE);
+        if (filePath.endsWith(".m3u8") && StringUtils.hasText(signature)) {
+            writeSignedPlaylist(filePath, request.getParameter(AudioUrlSignService.PARAM_EXPIRES), signature, response);
+            return;
+        }
+
+        try {
+            audioStreamService.streamAudio(mediaProperties.getHls().getOutputDir() + filePath, request, response);
+        } catch (IOException e) {
+            if (response.isCommitted()) {
+                log.debug("HLS 传输中断: {}, 原因: {}", filePath, e.getMessage());
+                return;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 输出附加了签名参数的播放列表
+     *
+     * @param filePath  播放列表路径
+     * @param expires   过期时间参数
+     * @param signature 签名参数
+     * @param response  HTTP响应
+     * @throws IOException 读取或写出失败
+     */
+    private void writeSignedPlaylist(String filePath, String expires, String signature,
+                                     HttpServletResponse response) throws IOException {
+        String query = AudioUrlSignService.PARAM_EXPIRES + "="
+                + UriUtils.encodeQueryParam(StringUtils.hasText(expires) ? expires : "", StandardCharsets.UTF_8)
+                + "&" + AudioUrlSignService.PARAM_SIGNATURE + "="
+                + UriUtils.encodeQueryParam(signature, StandardCharsets.UTF_8);
+        String playlist = hlsService.signedPlaylist(filePath, query);
+        if (playlist == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        byte[] body = playlist.getBytes(StandardCharsets.UTF_8);
+        response.setContentType("application/vnd.apple.mpegurl");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -6,6 +6,7 @@ import com.naruto.wangyiyunmusic.model.dto.MusicQueryDTO;
 import com.naruto.wangyiyunmusic.model.entity.Music;
 import com.naruto.wangyiyunmusic.model.vo.MusicDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.MusicListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.service.MusicService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -43,6 +44,20 @@ public class MusicController {
         return musicService.pageQuery(queryDTO);
     }
 
+    /**
+     * 游标分页查询音乐列表
+     *
+     * @param queryDTO 查询条件（cursor 为上一页返回的 nextCursor，首页不传）
+     * @return 游标分页结果（包含歌手名称）
+     */
+    @Operation(summary = "游标分页查询音乐列表", description = "与分页查询条件相同，按 (排序字段, ID) 游标翻页，不返回总数，深度翻页性能稳定")
+    @GetMapping("/list/cursor")
+    public CursorPageVO<MusicListVO> cursorList(
+            @Parameter(description = "查询条件，包含排序字段、游标、每页大小等")
+            MusicQueryDTO queryDTO) {
+        return musicService.cursorQuery(queryDTO);
+    }
+
     /**
      * 获取音乐详情
      *
@@ -0,0 +1,76 @@
+package com.naruto.wangyiyunmusic.controller;
+
+import com.naruto.wangyiyunmusic.model.vo.SearchResultVO;
+import com.naruto.wangyiyunmusic.model.vo.SuggestionVO;
+import com.naruto.wangyiyunmusic.service.SearchService;
+import com.naruto.wangyiyunmusic.service.impl.ClientIpResolver;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 曲库综合搜索控制器
+ *
+ * <p>提供音乐、歌手、专辑的统一搜索与搜索框前缀补全接口</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Tag(name = "曲库搜索", description = "提供音乐、歌手、专辑的综合搜索与前缀补全接口")
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    /**
+     * 综合搜索
+     *
+     * @param keyword 关键词
+     * @param type    搜索类型
+     * @param limit   每种类型最多返回条数
+     * @param request HTTP请求
+     * @return 按类型分组、按相关度排序的搜索结果
+     */
+    @Operation(summary = "综合搜索", description = "在音乐标题、歌手、专辑、歌词中检索，按相关度与热度排序，分组返回音乐、歌手、专辑")
+    @GetMapping
+    public SearchResultVO search(
+            @Parameter(description = "关键词", example = "周杰伦 晴天", required = true)
+            @RequestParam String keyword,
+            @Parameter(description = "搜索类型：all、music、artist、album", example = "all")
+            @RequestParam(required = false) String type,
+            @Parameter(description = "每种类型最多返回条数（默认10，最大50）", example = "10")
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
+        return searchService.search(keyword, type, limit, clientIpResolver.resolve(request));
+    }
+
+    /**
+     * 搜索框前缀补全
+     *
+     * @param prefix 输入前缀
+     * @param limit  最多返回条数
+     * @return 按热度排序的候选（音乐、歌手、专辑、热门搜索词）
+     */
+    @Operation(summary = "搜索框前缀补全", description = "根据已输入的前缀返回音乐、歌手、专辑、热门搜索词候选，按播放次数/搜索次数排序，只读内存")
+    @GetMapping("/suggest")
+    public List<SuggestionVO> suggest(
+            @Parameter(description = "输入前缀", example = "晴", required = true)
+            @RequestParam String prefix,
+            @Parameter(description = "最多返回条数（默认8，最大10）", example = "8")
+            @RequestParam(required = false) Integer limit) {
+        return searchService.suggest(prefix, limit);
+    }
+}
@@ -50,4 +50,21 @@ public class VideoParseController {
 
         return Result.success(result);
     }
+
+    /**
+     * 查询解析音频的 HLS 播放列表URL
+     *
+     * @param fileName 临时音频文件名
+     * @return 播放列表URL（尚未生成时为null）
+     */
+    @GetMapping("/hls")
+    @Operation(
+            summary = "查询解析音频的HLS播放列表",
+            description = "长音频解析后在后台生成HLS分段（解析结果 hlsPending=true），生成完成后返回播放列表URL，尚未生成时返回null"
+    )
+    public Result<String> getHlsUrl(
+            @Parameter(description = "临时音频文件名（解析结果 audioUrl 的最后一段）", example = "BV1Yv6EBkEJ3.mp3", required = true)
+            @RequestParam String fileName) {
+        return Result.success(videoParseService.getHlsUrl(fileName));
+    }
 }
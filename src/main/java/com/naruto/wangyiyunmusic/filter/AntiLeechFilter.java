@@ -1,11 +1,11 @@
 package com.naruto.wangyiyunmusic.filter;
 
-import cn.hutool.extra.servlet.JakartaServletUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.naruto.wangyiyunmusic.common.Result;
 import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
 import com.naruto.wangyiyunmusic.exception.AntiLeechException;
 import com.naruto.wangyiyunmusic.service.impl.AntiLeechService;
+import com.naruto.wangyiyunmusic.service.impl.ClientIpResolver;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -27,6 +27,7 @@ import java.io.IOException;
  *   <li>User-Agent 黑名单检查（拦截爬虫）</li>
  *   <li>IP 黑名单检查</li>
  * </ul>
+ * <p>启用签名URL时只校验签名（上述检查已在签发URL时完成）</p>
  *
  * @Author: naruto
  * @CreateTime: 2026-01-31
@@ -42,6 +43,9 @@ public class AntiLeechFilter implements Filter {
     @Autowired
     private AudioSecurityProperties securityProperties;
 
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -53,8 +57,9 @@ public class AntiLeechFilter implements Filter {
 
         String requestUri = request.getRequestURI();
 
-        // 只拦截音频文件请求
-        if (!requestUri.startsWith("/audio/")) {
+        // 只拦截音频文件与 HLS 分段请求
+        boolean hls = requestUri.startsWith("/hls/");
+        if (!requestUri.startsWith("/audio/") && !hls) {
             chain.doFilter(request, response);
             return;
         }
@@ -66,13 +71,18 @@ public class AntiLeechFilter implements Filter {
             return;
         }
 
-        String ip = JakartaServletUtil.getClientIP(request);
+        String ip = clientIpResolver.resolve(request);
 
         log.debug("防盗链检查开始 - IP: {}, URI: {}", ip, requestUri);
 
         try {
             // 防盗链检查（会抛出AntiLeechException）
-            antiLeechService.checkAntiLeech(request, ip);
+            // HLS 播放列表与分段校验分段目录的签名（输出播放列表时已把签名附加到分段地址上）
+            if (securityProperties.getSignedUrl().getEnabled()) {
+                antiLeechService.checkSignedUrl(request, ip);
+            } else {
+                antiLeechService.checkAntiLeech(request, ip);
+            }
 
             // 放行请求
             chain.doFilter(request, response);
@@ -1,12 +1,12 @@
 package com.naruto.wangyiyunmusic.filter;
 
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.extra.servlet.JakartaServletUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.naruto.wangyiyunmusic.common.Result;
 import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
 import com.naruto.wangyiyunmusic.exception.RateLimitException;
 import com.naruto.wangyiyunmusic.service.impl.AudioRateLimitService;
+import com.naruto.wangyiyunmusic.service.impl.ClientIpResolver;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -17,6 +17,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 音频限流过滤器
@@ -28,6 +32,9 @@ import java.io.IOException;
  *   <li>动态黑名单拦截</li>
  *   <li>并发连接数管理（增加/释放）</li>
  * </ul>
+ * <p>异步写出的请求在 Servlet 返回后仍在传输，并发连接数在异步请求完成时释放；
+ * sendfile 请求同样在 Servlet 返回后才由容器发送，但没有完成回调：流式传输服务以 {@link #SENDFILE_BYTES_ATTR}
+ * 标记传输字节数，名额按配置的速率估算传输时长，到期后释放（不超过配置的最长时长）</p>
  *
  * @Author: naruto
  * @CreateTime: 2026-01-31
@@ -37,14 +44,41 @@ import java.io.IOException;
 @Order(2) // 优先级2（防盗链Filter为1，先执行防盗链检查）
 public class AudioRateLimitFilter implements Filter {
 
+    /**
+     * 请求属性：当前请求占用了并发连接名额（值为客户端IP）
+     */
+    public static final String CONNECTION_SLOT_ATTR = AudioRateLimitFilter.class.getName() + ".CONNECTION_SLOT";
+
+    /**
+     * 请求属性：响应体交给 sendfile 发送的字节数（Long）
+     */
+    public static final String SENDFILE_BYTES_ATTR = AudioRateLimitFilter.class.getName() + ".SENDFILE_BYTES";
+
     @Autowired
     private AudioRateLimitService rateLimitService;
 
     @Autowired
     private AudioSecurityProperties securityProperties;
 
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * sendfile 请求到期释放名额的线程
+     */
+    private final ScheduledExecutorService leaseReleaser = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "audio-sendfile-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void destroy() {
+        leaseReleaser.shutdownNow();
+    }
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
             throws IOException, ServletException {
@@ -54,8 +88,9 @@ public class AudioRateLimitFilter implements Filter {
 
         String requestUri = request.getRequestURI();
 
-        // 只拦截音频文件请求
-        if (!requestUri.startsWith("/audio/")) {
+        // 只拦截音频文件与 HLS 播放列表、分段请求
+        boolean hls = requestUri.startsWith("/hls/");
+        if (!requestUri.startsWith("/audio/") && !hls) {
             chain.doFilter(request, response);
             return;
         }
@@ -67,9 +102,12 @@ public class AudioRateLimitFilter implements Filter {
             return;
         }
 
-        String ip = JakartaServletUtil.getClientIP(request);
-        boolean isRangeRequest = StrUtil.isNotBlank(request.getHeader("Range"));
-        String fileName = StrUtil.subAfter(requestUri, '/', true);
+        String ip = clientIpResolver.resolve(request);
+        // HLS 播放列表与分段按 Range 请求计数，同时占用并发连接名额；
+        // 文件名取分段目录（同一首歌的播放列表与所有分段只算一个文件）
+        boolean isRangeRequest = hls || StrUtil.isNotBlank(request.getHeader("Range"));
+        String fileName = hls ? StrUtil.subBefore(StrUtil.subAfter(requestUri, "/hls/", false), '/', true)
+                : StrUtil.subAfter(requestUri, '/', true);
 
         log.debug("限流检查开始 - IP: {}, 文件: {}, Range: {}", ip, fileName, isRangeRequest);
 
@@ -79,13 +117,21 @@ public class AudioRateLimitFilter implements Filter {
 
             // 2. 增加并发连接数
             rateLimitService.incrementConnection(ip);
+            request.setAttribute(CONNECTION_SLOT_ATTR, ip);
 
             try {
                 // 3. 放行请求
                 chain.doFilter(request, response);
             } finally {
-                // 4. 减少并发连接数（无论请求成功或失败）
-                rateLimitService.decrementConnection(ip);
+                // 4. 减少并发连接数（无论请求成功或失败，异步请求延迟到完成时，sendfile 请求延迟到估算的传输结束）
+                Object sendfileBytes = request.getAttribute(SENDFILE_BYTES_ATTR);
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new ConnectionReleaseListener(ip));
+                } else if (sendfileBytes instanceof Long bytes) {
+                    releaseAfterSendfile(ip, bytes);
+                } else {
+                    rateLimitService.decrementConnection(ip);
+                }
             }
 
         } catch (RateLimitException e) {
@@ -94,6 +140,23 @@ public class AudioRateLimitFilter implements Filter {
         }
     }
 
+    /**
+     * 按估算的 sendfile 传输时长延迟释放并发连接数
+     *
+     * @param ip    客户端IP
+     * @param bytes sendfile 发送的字节数
+     */
+    private void releaseAfterSendfile(String ip, long bytes) {
+        AudioSecurityProperties.RateLimitConfig config = securityProperties.getRateLimit();
+        long delayMillis = Math.min(bytes * 1000 / Math.max(1L, config.getSendfileLeaseBytesPerSecond()),
+                config.getSendfileLeaseMaxSeconds() * 1000L);
+        try {
+            leaseReleaser.schedule(() -> rateLimitService.decrementConnection(ip), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            rateLimitService.decrementConnection(ip);
+        }
+    }
+
     /**
      * 处理限流异常
      *
@@ -112,4 +175,35 @@ public class AudioRateLimitFilter implements Filter {
 
         log.info("限流拦截: IP={}, 类型={}, 消息={}", e.getIp(), e.getLimitType(), e.getMessage());
     }
+
+    /**
+     * 异步请求完成时释放并发连接数
+     *
+     * <p>onComplete 在正常完成、超时、出错后都会触发，只在此处释放一次</p>
+     */
+    private class ConnectionReleaseListener implements AsyncListener {
+
+        private final String ip;
+
+        ConnectionReleaseListener(String ip) {
+            this.ip = ip;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            rateLimitService.decrementConnection(ip);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
 }
@@ -13,4 +13,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface AlbumMapper extends BaseMapper<Album> {
 
+    /**
+     * 按 music 表重新统计所有专辑的歌曲数量
+     *
+     * @return 修正的行数
+     */
+    int reconcileSongCount();
 }
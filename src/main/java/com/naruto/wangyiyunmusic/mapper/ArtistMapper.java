@@ -13,4 +13,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface ArtistMapper extends BaseMapper<Artist> {
 
+    /**
+     * 按关联表重新统计所有歌手的关联音乐数量
+     *
+     * @return 修正的行数
+     */
+    int reconcileMusicCount();
 }
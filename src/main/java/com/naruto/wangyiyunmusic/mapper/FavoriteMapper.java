@@ -2,6 +2,10 @@ package com.naruto.wangyiyunmusic.mapper;
 
 import com.naruto.wangyiyunmusic.model.entity.Favorite;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * <p>
@@ -13,4 +17,21 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface FavoriteMapper extends BaseMapper<Favorite> {
 
+    /**
+     * 按 (用户ID, 音乐ID) 批量查询收藏记录（包含已取消的记录）
+     *
+     * @param keys 只需设置 userId、musicId
+     * @return 收藏记录（id、userId、musicId、isDeleted）
+     */
+    List<Favorite> selectByUserAndMusic(@Param("keys") Collection<Favorite> keys);
+
+    /**
+     * 批量写入收藏状态（单条多行 INSERT，已存在的记录按唯一键更新）
+     *
+     * <p>重新收藏时收藏时间更新为本次收藏时间；取消收藏时保留原收藏时间</p>
+     *
+     * @param favorites 收藏记录（userId、musicId、isDeleted、createTime、updateTime）
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("favorites") List<Favorite> favorites);
 }
@@ -2,6 +2,11 @@ package com.naruto.wangyiyunmusic.mapper;
 
 import com.naruto.wangyiyunmusic.model.entity.Music;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.naruto.wangyiyunmusic.model.vo.MusicDetailVO;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * <p>
@@ -13,4 +18,61 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface MusicMapper extends BaseMapper<Music> {
 
+    /**
+     * 根据ID查询音乐详情（专辑名称、分类名称、歌手、标签一次查出）
+     *
+     * @param id 音乐ID
+     * @return 音乐详情，不存在时返回null
+     */
+    MusicDetailVO selectMusicDetail(@Param("id") Long id);
+
+    /**
+     * 批量累加播放次数（单条SQL，原子更新）
+     *
+     * @param deltas 音乐ID -> 播放次数增量
+     * @return 影响行数
+     */
+    int incrementPlayCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 批量调整收藏次数（单条SQL，原子更新，结果不小于0）
+     *
+     * @param deltas 音乐ID -> 收藏次数增量（可为负数）
+     * @return 影响行数
+     */
+    int incrementFavoriteCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 收藏次数加1（原子更新）
+     *
+     * @param id 音乐ID
+     * @return 影响行数
+     */
+    int incrementFavoriteCount(@Param("id") Long id);
+
+    /**
+     * 收藏次数减1（原子更新，已为0时不变）
+     *
+     * @param id 音乐ID
+     * @return 影响行数
+     */
+    int decrementFavoriteCount(@Param("id") Long id);
+
+    /**
+     * 查询最大音乐ID（包含已删除的音乐）
+     *
+     * @return 最大ID，表为空时返回null
+     */
+    Long selectMaxId();
+
+    /**
+     * 按 favorite 表重新统计指定ID区间内音乐的收藏次数，只更新不一致的行
+     *
+     * @param minId      区间起始ID（包含）
+     * @param maxId      区间结束ID（包含）
+     * @param excludeIds 跳过的音乐ID（仍有未刷写增量的音乐，可为空）
+     * @return 修正的行数
+     */
+    int reconcileFavoriteCount(@Param("minId") long minId, @Param("maxId") long maxId,
+                               @Param("excludeIds") Collection<Long> excludeIds);
 }
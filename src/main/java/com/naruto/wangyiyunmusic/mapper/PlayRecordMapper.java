@@ -2,6 +2,9 @@ package com.naruto.wangyiyunmusic.mapper;
 
 import com.naruto.wangyiyunmusic.model.entity.PlayRecord;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * <p>
@@ -13,4 +16,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface PlayRecordMapper extends BaseMapper<PlayRecord> {
 
+    /**
+     * 批量插入播放记录（单条多行 INSERT）
+     *
+     * @param records 播放记录
+     * @return 影响行数
+     */
+    int insertBatch(@Param("records") List<PlayRecord> records);
 }
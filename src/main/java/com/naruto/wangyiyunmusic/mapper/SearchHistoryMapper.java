@@ -4,6 +4,9 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.naruto.wangyiyunmusic.model.entity.SearchHistory;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * 搜索历史 Mapper 接口
  *
@@ -30,4 +33,13 @@ public interface SearchHistoryMapper extends BaseMapper<SearchHistory> {
      * @return 影响行数
      */
     int incrementSearchCount(@Param("id") Long id);
+
+    /**
+     * 查询热门搜索关键词（按关键词汇总所有用户的搜索次数）
+     *
+     * @param since 只统计该时间之后搜索过的记录
+     * @param limit 最多返回条数
+     * @return 关键词与汇总搜索次数（keyword、searchCount），按搜索次数降序
+     */
+    List<SearchHistory> selectPopularKeywords(@Param("since") LocalDateTime since, @Param("limit") int limit);
 }
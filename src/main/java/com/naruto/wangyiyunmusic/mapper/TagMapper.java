@@ -13,4 +13,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
  */
 public interface TagMapper extends BaseMapper<Tag> {
 
+    /**
+     * 按关联表重新统计所有标签的关联音乐数量
+     *
+     * @return 修正的行数
+     */
+    int reconcileMusicCount();
 }
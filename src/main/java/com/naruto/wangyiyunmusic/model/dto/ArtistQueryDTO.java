@@ -47,4 +47,10 @@ public class ArtistQueryDTO {
      */
     @Schema(description = "排序方式", example = "desc", allowableValues = {"asc", "desc"})
     private String sortOrder = "desc";
+
+    /**
+     * 游标（游标分页模式使用，首页不传，之后传入上一页返回的 nextCursor）
+     */
+    @Schema(description = "游标（游标分页模式使用，首页不传）", example = "Y3JlYXRlX3RpbWV8ZGVzY3wyMDI2LTAxLTAxVDEwOjAwfDEwMA")
+    private String cursor;
 }
@@ -0,0 +1,34 @@
+package com.naruto.wangyiyunmusic.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量获取音频URL请求DTO
+ *
+ * <p>播放器加载播放队列时一次性提交所有音乐ID</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Schema(description = "批量获取音频URL请求参数")
+public class AudioUrlBatchDTO {
+
+    /**
+     * 音乐ID列表（按播放队列顺序）
+     */
+    @NotEmpty(message = "音乐ID列表不能为空")
+    @Schema(description = "音乐ID列表（返回结果保持相同顺序）", example = "[1, 2, 3]")
+    private List<Long> musicIds;
+
+    /**
+     * 音质（为空或 auto 时按客户端类型自动选择）
+     */
+    @Schema(description = "音质：low（64kbps）、standard（128kbps）、high（320kbps）、original（原始文件）、auto（移动端自动降档）",
+            example = "auto")
+    private String quality;
+}
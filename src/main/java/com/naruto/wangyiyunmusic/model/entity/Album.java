@@ -53,6 +53,12 @@ public class Album implements Serializable {
     @TableField("release_date")
     private LocalDate releaseDate;
 
+    /**
+     * 歌曲数量（冗余计数，由 CatalogCounterService 定时对账维护，不随实体插入/更新写入）
+     */
+    @TableField(value = "song_count", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer songCount;
+
     /**
      * 逻辑删除
      */
@@ -0,0 +1,52 @@
+package com.naruto.wangyiyunmusic.model.entity;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * 音频文件元数据实体
+ *
+ * <p>由音频元数据索引在启动时构建、文件变更时刷新，流式传输与URL生成直接读取，无需每次访问磁盘</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+public class AudioFileMetadata {
+
+    /**
+     * 相对于音频存储目录的路径（统一使用 / 分隔，如: jay/晴天.mp3）
+     */
+    private String relativePath;
+
+    /**
+     * 文件绝对路径
+     */
+    private Path filePath;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long size;
+
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    private Long lastModified;
+
+    /**
+     * 强 ETag（文件内容 SHA-256 摘要前32位，含双引号）
+     */
+    private String etag;
+
+    /**
+     * MIME 类型（如: audio/mpeg）
+     */
+    private String contentType;
+
+    /**
+     * 时长（秒），来自音乐表，未关联音乐时为null
+     */
+    private Integer duration;
+}
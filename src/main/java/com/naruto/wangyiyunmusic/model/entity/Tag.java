@@ -34,6 +34,12 @@ public class Tag implements Serializable {
     @TableField("name")
     private String name;
 
+    /**
+     * 关联音乐数量（冗余计数，由 CatalogCounterService 定时对账维护，不随实体插入/更新写入）
+     */
+    @TableField(value = "music_count", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer musicCount;
+
     /**
      * 逻辑删除
      */
@@ -0,0 +1,71 @@
+package com.naruto.wangyiyunmusic.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 音质枚举
+ *
+ * <p>定义音频转码阶梯，ORIGINAL 表示直接返回原始文件</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Getter
+public enum AudioQuality {
+
+    /**
+     * 流畅（64kbps）
+     */
+    LOW("low", "流畅", 64),
+
+    /**
+     * 标准（128kbps）
+     */
+    STANDARD("standard", "标准", 128),
+
+    /**
+     * 高品质（320kbps）
+     */
+    HIGH("high", "高品质", 320),
+
+    /**
+     * 原始文件（不转码）
+     */
+    ORIGINAL("original", "原始音质", 0);
+
+    /**
+     * 音质代码
+     */
+    private final String code;
+
+    /**
+     * 音质名称
+     */
+    private final String name;
+
+    /**
+     * 转码码率（kbps），原始文件为0
+     */
+    private final int bitrate;
+
+    AudioQuality(String code, String name, int bitrate) {
+        this.code = code;
+        this.name = name;
+        this.bitrate = bitrate;
+    }
+
+    /**
+     * 根据code查找枚举
+     *
+     * @param code 音质代码
+     * @return 音质枚举
+     */
+    public static AudioQuality fromCode(String code) {
+        for (AudioQuality quality : values()) {
+            if (quality.getCode().equalsIgnoreCase(code)) {
+                return quality;
+            }
+        }
+        throw new IllegalArgumentException("不支持的音质: " + code);
+    }
+}
@@ -48,6 +48,12 @@ public class ArtistDetailVO {
     @Schema(description = "国家/地区", example = "中国台湾")
     private String country;
 
+    /**
+     * 关联音乐数量
+     */
+    @Schema(description = "关联音乐数量", example = "120")
+    private Integer musicCount;
+
     /**
      * 创建时间
      */
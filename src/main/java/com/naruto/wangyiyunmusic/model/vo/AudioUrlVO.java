@@ -16,10 +16,10 @@ import lombok.Data;
 public class AudioUrlVO {
 
     /**
-     * 音频访问URL
+     * 音频访问URL（启用签名URL时附带过期时间和签名参数）
      */
-    @Schema(description = "音频访问URL（可直接用于<audio>标签的src属性）",
-            example = "http://localhost:8910/audio/jay/晴天.mp3")
+    @Schema(description = "音频访问URL（可直接用于<audio>标签的src属性，签名过期后需重新获取）",
+            example = "http://localhost:8910/audio/jay/晴天.mp3?e=1770000000&s=q1w2e3r4")
     private String audioUrl;
 
     /**
@@ -45,4 +45,35 @@ public class AudioUrlVO {
      */
     @Schema(description = "音乐时长(秒)", example = "269")
     private Integer duration;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Schema(description = "音频文件大小（字节），文件未索引时为空", example = "4304521")
+    private Long fileSize;
+
+    /**
+     * MIME 类型
+     */
+    @Schema(description = "音频MIME类型，文件未索引时为空", example = "audio/mpeg")
+    private String contentType;
+
+    /**
+     * 实际返回的音质
+     */
+    @Schema(description = "实际返回的音质（low/standard/high/original），转码文件尚未生成时为original", example = "standard")
+    private String quality;
+
+    /**
+     * 转码码率（kbps）
+     */
+    @Schema(description = "转码码率（kbps），原始文件为空", example = "128")
+    private Integer bitrate;
+
+    /**
+     * HLS 播放列表URL
+     */
+    @Schema(description = "HLS 播放列表URL（仅长音频，分段生成前为空），支持 HLS 的播放器优先使用",
+            example = "http://localhost:8910/hls/mix/live-2025/index.m3u8")
+    private String hlsUrl;
 }
@@ -0,0 +1,37 @@
+package com.naruto.wangyiyunmusic.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果视图对象
+ *
+ * <p>不返回总数与总页数（不执行 COUNT 查询），通过 nextCursor 获取下一页</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Schema(description = "游标分页结果")
+public class CursorPageVO<T> {
+
+    /**
+     * 当前页数据
+     */
+    @Schema(description = "当前页数据")
+    private List<T> records;
+
+    /**
+     * 下一页游标
+     */
+    @Schema(description = "下一页游标（没有更多数据时为null）", example = "Y3JlYXRlX3RpbWV8ZGVzY3wyMDI2LTAxLTAxVDEwOjAwfDEwMA")
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    @Schema(description = "是否还有更多数据", example = "true")
+    private Boolean hasMore;
+}
@@ -0,0 +1,37 @@
+package com.naruto.wangyiyunmusic.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 综合搜索结果视图对象
+ *
+ * <p>按类型分组返回音乐、歌手、专辑，组内按相关度降序排列；未搜索的类型为空列表</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Schema(description = "综合搜索结果")
+public class SearchResultVO {
+
+    /**
+     * 匹配的音乐
+     */
+    @Schema(description = "匹配的音乐（包含歌手名称）")
+    private List<MusicListVO> music = List.of();
+
+    /**
+     * 匹配的歌手
+     */
+    @Schema(description = "匹配的歌手")
+    private List<ArtistListVO> artists = List.of();
+
+    /**
+     * 匹配的专辑
+     */
+    @Schema(description = "匹配的专辑")
+    private List<AlbumListVO> albums = List.of();
+}
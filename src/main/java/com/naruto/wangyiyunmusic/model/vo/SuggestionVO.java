@@ -0,0 +1,33 @@
+package com.naruto.wangyiyunmusic.model.vo;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 搜索补全候选视图对象
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Data
+@Schema(description = "搜索补全候选")
+public class SuggestionVO {
+
+    /**
+     * 候选文本
+     */
+    @Schema(description = "候选文本", example = "晴天")
+    private String text;
+
+    /**
+     * 候选类型
+     */
+    @Schema(description = "候选类型：music、artist、album、keyword（热门搜索词）", example = "music")
+    private String type;
+
+    /**
+     * 对应实体ID
+     */
+    @Schema(description = "对应的音乐/歌手/专辑ID（热门搜索词为null）", example = "1")
+    private Long id;
+}
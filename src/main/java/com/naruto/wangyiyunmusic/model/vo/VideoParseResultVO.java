@@ -62,4 +62,18 @@ public class VideoParseResultVO {
      */
     @Schema(description = "原始视频ID", example = "BV1Yv6EBkEJ3")
     private String sourceVideoId;
+
+    /**
+     * HLS 播放列表URL（长音频，分段已生成时）
+     */
+    @Schema(description = "HLS 播放列表URL（仅长音频且分段已生成，与临时音频同时失效）",
+            example = "http://localhost:8910/temp-audio/.hls/BV1Yv6EBkEJ3/index.m3u8")
+    private String hlsUrl;
+
+    /**
+     * HLS 分段是否在后台生成中（长音频）
+     */
+    @Schema(description = "HLS 分段是否在后台生成中（仅长音频；为 true 时先播放 audioUrl，"
+            + "稍后通过 GET /api/video/hls 查询播放列表URL）", example = "false")
+    private Boolean hlsPending;
 }
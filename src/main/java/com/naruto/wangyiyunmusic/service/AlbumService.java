@@ -8,6 +8,7 @@ import com.naruto.wangyiyunmusic.model.dto.AlbumUpdateDTO;
 import com.naruto.wangyiyunmusic.model.entity.Album;
 import com.naruto.wangyiyunmusic.model.vo.AlbumDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.AlbumListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 
 /**
  * 专辑表 服务类
@@ -27,6 +28,14 @@ public interface AlbumService extends IService<Album> {
      */
     IPage<AlbumListVO> pageQuery(AlbumQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询专辑列表（不执行 COUNT 查询，适合深度翻页）
+     *
+     * @param queryDTO 查询条件（cursor 为上一页返回的游标）
+     * @return 游标分页结果
+     */
+    CursorPageVO<AlbumListVO> cursorQuery(AlbumQueryDTO queryDTO);
+
     /**
      * 获取专辑详情（包含歌曲数量）
      *
@@ -8,6 +8,7 @@ import com.naruto.wangyiyunmusic.model.dto.ArtistUpdateDTO;
 import com.naruto.wangyiyunmusic.model.entity.Artist;
 import com.naruto.wangyiyunmusic.model.vo.ArtistDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.ArtistListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 
 /**
  * 歌手表 服务类
@@ -27,6 +28,14 @@ public interface ArtistService extends IService<Artist> {
      */
     IPage<ArtistListVO> pageQuery(ArtistQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询歌手列表（不执行 COUNT 查询，适合深度翻页）
+     *
+     * @param queryDTO 查询条件（cursor 为上一页返回的游标）
+     * @return 游标分页结果
+     */
+    CursorPageVO<ArtistListVO> cursorQuery(ArtistQueryDTO queryDTO);
+
     /**
      * 获取歌手详情
      *
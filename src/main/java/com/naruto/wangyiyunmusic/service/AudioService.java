@@ -1,7 +1,10 @@
 package com.naruto.wangyiyunmusic.service;
 
+import com.naruto.wangyiyunmusic.model.enums.AudioQuality;
 import com.naruto.wangyiyunmusic.model.vo.AudioUrlVO;
 
+import java.util.List;
+
 /**
  * 音频服务接口
  *
@@ -15,8 +18,24 @@ public interface AudioService {
     /**
      * 根据音乐ID获取音频访问URL
      *
+     * <p>启用签名URL时返回带过期时间和签名的URL；转码文件可用时返回对应音质的转码文件</p>
+     *
      * @param musicId 音乐ID
+     * @param clientIp 客户端IP（签名绑定）
+     * @param quality 音质
      * @return 音频URL信息
      */
-    AudioUrlVO getAudioUrl(Long musicId);
+    AudioUrlVO getAudioUrl(Long musicId, String clientIp, AudioQuality quality);
+
+    /**
+     * 批量获取音频访问URL
+     *
+     * <p>单次 IN 查询获取所有音乐，结果按请求顺序返回，不存在或暂无音频文件的音乐将被跳过</p>
+     *
+     * @param musicIds 音乐ID列表
+     * @param clientIp 客户端IP（签名绑定）
+     * @param quality 音质
+     * @return 音频URL信息列表
+     */
+    List<AudioUrlVO> getAudioUrls(List<Long> musicIds, String clientIp, AudioQuality quality);
 }
@@ -0,0 +1,45 @@
+package com.naruto.wangyiyunmusic.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * 音频流式传输服务接口
+ *
+ * <p>负责将音频存储目录下的文件写入 HTTP 响应，支持单区间/多区间 Range 请求</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-08
+ */
+public interface AudioStreamService {
+
+    /**
+     * 输出音频文件
+     *
+     * @param filePath 相对于音频存储目录的文件路径（如: jay/晴天.mp3）
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 写出失败时抛出
+     */
+    default void streamAudio(String filePath, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        streamAudio(filePath, null, request, response);
+    }
+
+    /**
+     * 输出音频文件（内容寻址URL）
+     *
+     * <p>请求的内容版本与当前文件一致时返回长期不可变缓存头（immutable），
+     * 否则（文件已更新）按普通缓存策略返回当前内容</p>
+     *
+     * @param filePath 相对于音频存储目录的文件路径（如: jay/晴天.mp3）
+     * @param version  URL中的内容版本，普通URL为null
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 写出失败时抛出
+     */
+    void streamAudio(String filePath, String version, HttpServletRequest request, HttpServletResponse response)
+            throws IOException;
+}
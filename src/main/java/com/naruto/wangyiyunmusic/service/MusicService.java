@@ -5,6 +5,7 @@ import com.naruto.wangyiyunmusic.model.dto.MusicQueryDTO;
 import com.naruto.wangyiyunmusic.model.entity.Music;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.naruto.wangyiyunmusic.model.vo.MusicDetailVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.model.vo.MusicListVO;
 
 /**
@@ -25,6 +26,14 @@ public interface MusicService extends IService<Music> {
      */
     IPage<MusicListVO> pageQuery(MusicQueryDTO queryDTO);
 
+    /**
+     * 游标分页查询音乐列表（不执行 COUNT 查询，适合深度翻页）
+     *
+     * @param queryDTO 查询条件（cursor 为上一页返回的游标）
+     * @return 游标分页结果
+     */
+    CursorPageVO<MusicListVO> cursorQuery(MusicQueryDTO queryDTO);
+
     /**
      * 获取音乐详情（包含歌手、专辑、标签等）
      *
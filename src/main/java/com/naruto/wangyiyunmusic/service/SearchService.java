@@ -0,0 +1,37 @@
+package com.naruto.wangyiyunmusic.service;
+
+import com.naruto.wangyiyunmusic.model.vo.SearchResultVO;
+import com.naruto.wangyiyunmusic.model.vo.SuggestionVO;
+
+import java.util.List;
+
+/**
+ * 曲库综合搜索服务接口
+ *
+ * <p>在音乐（标题、歌手、专辑、歌词）、歌手、专辑中按相关度检索，并提供搜索框前缀补全</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public interface SearchService {
+
+    /**
+     * 综合搜索
+     *
+     * @param keyword  关键词
+     * @param type     搜索类型：all（默认）、music、artist、album
+     * @param limit    每种类型最多返回条数（为空时使用默认值）
+     * @param clientIp 客户端IP（用于搜索历史去重限流，为空时不限制）
+     * @return 搜索结果
+     */
+    SearchResultVO search(String keyword, String type, Integer limit, String clientIp);
+
+    /**
+     * 搜索框前缀补全
+     *
+     * @param prefix 输入前缀
+     * @param limit  最多返回条数（为空时使用默认值）
+     * @return 按热度降序排列的候选
+     */
+    List<SuggestionVO> suggest(String prefix, Integer limit);
+}
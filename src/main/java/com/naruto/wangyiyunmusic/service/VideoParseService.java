@@ -20,4 +20,12 @@ public interface VideoParseService {
      * @return 解析结果
      */
     VideoParseResultVO parseVideo(VideoParseRequestDTO requestDTO);
+
+    /**
+     * 查询解析音频的 HLS 播放列表URL
+     *
+     * @param fileName 临时音频文件名（解析结果 audioUrl 的最后一段）
+     * @return 播放列表URL，分段尚未生成时返回null
+     */
+    String getHlsUrl(String fileName);
 }
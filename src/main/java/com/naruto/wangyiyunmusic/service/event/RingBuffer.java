@@ -0,0 +1,249 @@
+package com.naruto.wangyiyunmusic.service.event;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界无锁环形缓冲区（多生产者、单消费者）
+ *
+ * <p>参考 Disruptor 的序号设计，槽位数组预先分配，容量为 2 的幂：</p>
+ * <ul>
+ *   <li>生产者通过 CAS 递增写序号申请槽位，写入事件后以 release 语义标记该槽位的序号，表示已发布</li>
+ *   <li>消费者从读序号开始按顺序批量取出已发布的槽位，遇到尚未发布的槽位即停止，保证事件顺序</li>
+ *   <li>写序号领先读序号一整圈时视为已满，生产者不阻塞，由调用方决定等待或降级（背压）</li>
+ * </ul>
+ *
+ * <p>同时记录发布、拒绝、等待、批次等计数，供背压监控使用</p>
+ *
+ * <p>{@link #drainTo(Collection, int)} 与 {@link #drainTo(Collection, int, long)} 只能由单个线程调用（或由调用方串行化）</p>
+ *
+ * @param <E> 事件类型
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class RingBuffer<E> {
+
+    private static final VarHandle ENTRIES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * 等待空闲槽位时每次休眠的时长（纳秒）
+     */
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * 缓冲区名称（用于监控日志）
+     */
+    private final String name;
+
+    /**
+     * 事件槽位
+     */
+    private final Object[] entries;
+
+    /**
+     * 每个槽位已发布的序号（未发布时为上一圈的序号）
+     */
+    private final long[] published;
+
+    private final int mask;
+
+    /**
+     * 最后一个已申请的序号
+     */
+    private final AtomicLong claimed = new AtomicLong(-1);
+
+    /**
+     * 最后一个已消费的序号（只由消费者写入）
+     */
+    private volatile long consumed = -1;
+
+    private final LongAdder publishedCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder waitedCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder consumedCount = new LongAdder();
+
+    /**
+     * 单批取出的最大事件数（只由消费者写入）
+     */
+    private volatile int maxBatch;
+
+    /**
+     * 创建环形缓冲区
+     *
+     * @param name     名称
+     * @param capacity 最小容量（向上取整为 2 的幂）
+     */
+    public RingBuffer(String name, int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("环形缓冲区容量超出范围: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.name = name;
+        this.entries = new Object[size];
+        this.published = new long[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            published[i] = i - (long) size;
+        }
+    }
+
+    /**
+     * 尝试发布一个事件
+     *
+     * @param event 事件
+     * @return true-已发布, false-缓冲区已满
+     */
+    public boolean tryPublish(E event) {
+        if (event == null) {
+            throw new NullPointerException("event");
+        }
+        long sequence;
+        do {
+            sequence = claimed.get() + 1;
+            if (sequence - entries.length > consumed) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence - 1, sequence));
+
+        int index = (int) (sequence & mask);
+        ENTRIES.set(entries, index, event);
+        PUBLISHED.setRelease(published, index, sequence);
+        publishedCount.increment();
+        return true;
+    }
+
+    /**
+     * 发布一个事件，缓冲区已满时最多等待指定时长
+     *
+     * @param event   事件
+     * @param timeout 最长等待时间，为 0 时不等待
+     * @param unit    时间单位
+     * @return true-已发布, false-等待超时仍未发布（已计入拒绝次数）
+     */
+    public boolean publish(E event, long timeout, TimeUnit unit) {
+        if (tryPublish(event)) {
+            return true;
+        }
+        if (timeout > 0) {
+            waitedCount.increment();
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(WAIT_PARK_NANOS);
+                if (tryPublish(event)) {
+                    return true;
+                }
+            }
+        }
+        rejectedCount.increment();
+        return false;
+    }
+
+    /**
+     * 按发布顺序批量取出事件
+     *
+     * @param sink     接收事件的集合
+     * @param maxCount 最多取出个数
+     * @return 取出个数
+     */
+    public int drainTo(Collection<? super E> sink, int maxCount) {
+        return drainTo(sink, maxCount, Long.MAX_VALUE);
+    }
+
+    /**
+     * 按发布顺序批量取出序号不超过指定值的事件
+     *
+     * @param sink          接收事件的集合
+     * @param maxCount      最多取出个数
+     * @param untilSequence 最大序号（含），通常为 {@link #claimedSequence()} 的返回值
+     * @return 取出个数
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super E> sink, int maxCount, long untilSequence) {
+        long next = consumed + 1;
+        int count = 0;
+        while (count < maxCount && next <= untilSequence) {
+            int index = (int) (next & mask);
+            if ((long) PUBLISHED.getAcquire(published, index) != next) {
+                break;
+            }
+            sink.add((E) ENTRIES.get(entries, index));
+            ENTRIES.set(entries, index, null);
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            consumed = next - 1;
+            batchCount.increment();
+            consumedCount.add(count);
+            if (count > maxBatch) {
+                maxBatch = count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 最后一个已申请的序号（此前申请的事件都不晚于该序号）
+     */
+    public long claimedSequence() {
+        return claimed.get();
+    }
+
+    /**
+     * 当前积压的事件数（含已申请但尚未发布完成的槽位）
+     */
+    public int size() {
+        return (int) Math.max(0, claimed.get() - consumed);
+    }
+
+    /**
+     * 容量
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * 监控快照
+     */
+    public Stats stats() {
+        return new Stats(name, capacity(), size(), publishedCount.sum(), rejectedCount.sum(),
+                waitedCount.sum(), batchCount.sum(), consumedCount.sum(), maxBatch);
+    }
+
+    /**
+     * 环形缓冲区监控快照（计数均为启动以来的累计值）
+     *
+     * @param name      名称
+     * @param capacity  容量
+     * @param backlog   当前积压
+     * @param published 已发布事件数
+     * @param rejected  因已满被拒绝的发布次数（调用方降级处理）
+     * @param waited    因已满而等待过的发布次数
+     * @param batches   消费批次数
+     * @param consumed  已消费事件数
+     * @param maxBatch  单批最大事件数
+     */
+    public record Stats(String name, int capacity, int backlog, long published, long rejected,
+                        long waited, long batches, long consumed, int maxBatch) {
+
+        /**
+         * 积压占容量的百分比
+         */
+        public double utilization() {
+            return capacity == 0 ? 0 : backlog * 100.0 / capacity;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import com.naruto.wangyiyunmusic.model.entity.Album;
 import com.naruto.wangyiyunmusic.model.entity.Music;
 import com.naruto.wangyiyunmusic.model.vo.AlbumDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.AlbumListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.service.AlbumService;
 import com.naruto.wangyiyunmusic.service.MusicService;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +22,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -39,6 +42,12 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
     @Autowired
     private MusicService musicService;
 
+    @Autowired
+    private MusicDetailCacheService detailCacheService;
+
+    @Autowired
+    private CatalogSearchIndexService searchIndexService;
+
     @Override
     public IPage<AlbumListVO> pageQuery(AlbumQueryDTO queryDTO) {
         log.info("分页查询专辑列表, 查询参数: {}", queryDTO);
@@ -47,12 +56,7 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
         Page<Album> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
 
         // 2. 构建查询条件
-        LambdaQueryWrapper<Album> wrapper = new LambdaQueryWrapper<>();
-
-        // 关键词搜索（专辑名称）
-        if (StringUtils.hasText(queryDTO.getKeyword())) {
-            wrapper.like(Album::getName, queryDTO.getKeyword());
-        }
+        LambdaQueryWrapper<Album> wrapper = buildQueryWrapper(queryDTO);
 
         // 排序
         if ("release_date".equals(queryDTO.getSortField())) {
@@ -67,7 +71,7 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
         // 3. 查询专辑分页数据
         IPage<Album> albumPage = this.page(page, wrapper);
 
-        // 4. 转换为 AlbumListVO 并填充歌曲数量
+        // 4. 转换为 AlbumListVO（歌曲数量读取冗余列 song_count，不在查询时聚合）
         List<AlbumListVO> voList = albumPage.getRecords().stream()
                 .map(this::convertToListVO)
                 .collect(Collectors.toList());
@@ -80,6 +84,46 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
         return result;
     }
 
+    @Override
+    public CursorPageVO<AlbumListVO> cursorQuery(AlbumQueryDTO queryDTO) {
+        // 1. 构建筛选条件
+        LambdaQueryWrapper<Album> wrapper = buildQueryWrapper(queryDTO);
+
+        // 2. 添加 (排序字段, id) 游标条件与排序（发行日期可为空，按 NULL 最小处理）
+        boolean asc = "asc".equals(queryDTO.getSortOrder());
+        boolean byCreateTime = "create_time".equals(queryDTO.getSortField());
+        String sortField = byCreateTime ? "create_time" : "release_date";
+        if (byCreateTime) {
+            KeysetQuerySupport.apply(wrapper, Album::getCreateTime, Album::getId, LocalDateTime.class,
+                    sortField, asc, queryDTO.getCursor(), queryDTO.getPageSize());
+        } else {
+            KeysetQuerySupport.apply(wrapper, Album::getReleaseDate, Album::getId, LocalDate.class,
+                    sortField, asc, queryDTO.getCursor(), queryDTO.getPageSize());
+        }
+
+        // 3. 查询并构造结果
+        return KeysetQuerySupport.toPage(this.list(wrapper), queryDTO.getPageSize(), sortField, asc,
+                album -> byCreateTime ? album.getCreateTime() : album.getReleaseDate(),
+                Album::getId, this::convertToListVO);
+    }
+
+    /**
+     * 构建筛选条件（不含排序）
+     *
+     * @param queryDTO 查询条件
+     * @return 查询包装器
+     */
+    private LambdaQueryWrapper<Album> buildQueryWrapper(AlbumQueryDTO queryDTO) {
+        LambdaQueryWrapper<Album> wrapper = new LambdaQueryWrapper<>();
+
+        // 关键词搜索（专辑名称）
+        if (StringUtils.hasText(queryDTO.getKeyword())) {
+            wrapper.like(Album::getName, queryDTO.getKeyword());
+        }
+
+        return wrapper;
+    }
+
     @Override
     public AlbumDetailVO getAlbumDetail(Long id) {
         log.info("查询专辑详情, id: {}", id);
@@ -90,15 +134,11 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
             throw new BusinessException("专辑不存在，ID: " + id);
         }
 
-        // 2. 转换为 AlbumDetailVO
+        // 2. 转换为 AlbumDetailVO（歌曲数量读取冗余列 song_count）
         AlbumDetailVO detailVO = new AlbumDetailVO();
         BeanUtils.copyProperties(album, detailVO);
 
-        // 3. 统计专辑歌曲数量
-        Integer songCount = countSongsByAlbumId(id);
-        detailVO.setSongCount(songCount);
-
-        log.info("查询专辑详情成功, id: {}, name: {}, songCount: {}", id, album.getName(), songCount);
+        log.info("查询专辑详情成功, id: {}, name: {}, songCount: {}", id, album.getName(), album.getSongCount());
         return detailVO;
     }
 
@@ -117,6 +157,9 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
             throw new BusinessException("创建专辑失败");
         }
 
+        // 4. 更新搜索索引
+        searchIndexService.albumChanged(album.getId());
+
         log.info("创建专辑成功, id: {}, name: {}", album.getId(), album.getName());
         return album.getId();
     }
@@ -142,6 +185,10 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
             throw new BusinessException("更新专辑失败");
         }
 
+        // 4. 失效该专辑下音乐的详情缓存（专辑名称），并更新搜索索引
+        detailCacheService.evictByAlbum(id);
+        searchIndexService.albumChanged(id);
+
         log.info("更新专辑成功, id: {}, name: {}", id, updateDTO.getName());
         return true;
     }
@@ -168,6 +215,9 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
             throw new BusinessException("删除专辑失败");
         }
 
+        // 4. 从搜索索引中移除
+        searchIndexService.albumChanged(id);
+
         log.info("删除专辑成功, id: {}, name: {}", id, album.getName());
         return true;
     }
@@ -194,11 +244,6 @@ public class AlbumServiceImpl extends ServiceImpl<AlbumMapper, Album> implements
     private AlbumListVO convertToListVO(Album album) {
         AlbumListVO vo = new AlbumListVO();
         BeanUtils.copyProperties(album, vo);
-
-        // 统计歌曲数量
-        Integer songCount = countSongsByAlbumId(album.getId());
-        vo.setSongCount(songCount);
-
         return vo;
     }
 }
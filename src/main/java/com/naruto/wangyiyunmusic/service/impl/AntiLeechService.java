@@ -1,14 +1,27 @@
 package com.naruto.wangyiyunmusic.service.impl;
 
 import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
 import com.naruto.wangyiyunmusic.exception.AntiLeechException;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * 防盗链服务
@@ -20,6 +33,7 @@ import java.util.List;
  *   <li>爬虫批量下载（User-Agent检查）</li>
  *   <li>已知恶意IP访问（IP黑名单）</li>
  * </ul>
+ * <p>启用签名URL后，Referer/User-Agent 检查只在签发音频URL时执行，音频请求校验签名与IP黑名单</p>
  *
  * @Author: naruto
  * @CreateTime: 2026-01-31
@@ -28,9 +42,128 @@ import java.util.List;
 @Service
 public class AntiLeechService {
 
+    /**
+     * 音频访问路径前缀
+     */
+    private static final String AUDIO_PATH_PREFIX = "/audio/";
+
+    /**
+     * HLS 访问路径前缀
+     */
+    private static final String HLS_PATH_PREFIX = "/hls/";
+
+    /**
+     * User-Agent 判定缓存最大条目数
+     */
+    private static final long USER_AGENT_CACHE_SIZE = 10_000;
+
+    /**
+     * 单条规则展开为字面量的最大个数（如 [Pp][Yy]... 展开过多时仍按正则匹配）
+     */
+    private static final int MAX_LITERAL_EXPANSION = 64;
+
+    /**
+     * 反向引用（\1、\k&lt;name&gt;），可导致指数级回溯，不允许出现在黑名单规则中
+     */
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
     @Autowired
     private AudioSecurityProperties securityProperties;
 
+    @Autowired
+    private AudioUrlSignService urlSignService;
+
+    /**
+     * User-Agent 分类器（启动时根据配置构建）
+     */
+    private UserAgentClassifier userAgentClassifier;
+
+    /**
+     * 编译 User-Agent 黑名单
+     */
+    @PostConstruct
+    public void init() {
+        List<String> blockedPatterns = securityProperties.getAntiLeech().getBlockedUserAgents();
+        this.userAgentClassifier = new UserAgentClassifier(blockedPatterns);
+        log.info("User-Agent黑名单已编译, 规则数: {}, 字面量自动机: {} 个, 正则: {} 条",
+                blockedPatterns.size(), userAgentClassifier.automaton.size(), userAgentClassifier.regexCount);
+    }
+
+    /**
+     * 签发音频URL前的检查
+     *
+     * <p>获取音频URL接口调用，启用签名URL时执行完整的 IP/User-Agent/Referer 检查，通过后才签发签名URL；
+     * 未启用签名URL时不检查（防盗链仍由 {@link com.naruto.wangyiyunmusic.filter.AntiLeechFilter} 在音频请求上执行）</p>
+     *
+     * @param request HTTP请求
+     * @param ip 客户端IP
+     * @throws AntiLeechException 当被拦截时抛出
+     */
+    public void checkIssuance(HttpServletRequest request, String ip) {
+        if (!securityProperties.getAntiLeech().getEnabled() || !securityProperties.getSignedUrl().getEnabled()) {
+            return;
+        }
+        checkAntiLeech(request, ip);
+    }
+
+    /**
+     * 检查音频请求的签名
+     *
+     * <p>签名有效时只再检查IP黑名单（签发后被封禁的IP不能继续使用未过期的URL），
+     * 未携带签名且未强制要求签名时回退到 {@link #checkAntiLeech}</p>
+     *
+     * @param request HTTP请求
+     * @param ip 客户端IP
+     * @throws AntiLeechException 签名缺失、过期或错误时抛出
+     */
+    public void checkSignedUrl(HttpServletRequest request, String ip) {
+        String relativePath = extractRelativePath(request);
+        AudioUrlSignService.VerifyResult result = urlSignService.verify(relativePath,
+                request.getParameter(AudioUrlSignService.PARAM_EXPIRES),
+                request.getParameter(AudioUrlSignService.PARAM_SIGNATURE), ip);
+
+        switch (result) {
+            case VALID:
+                if (!checkIpBlacklist(ip)) {
+                    log.warn("防盗链拦截 - IP黑名单（已签名）: {}", ip);
+                    throw new AntiLeechException(ip, "IP_BLACKLIST", "IP已被禁止访问");
+                }
+                log.debug("签名校验通过: IP={}, 路径={}", ip, relativePath);
+                return;
+            case MISSING:
+                if (!securityProperties.getSignedUrl().getRequireSignature()) {
+                    checkAntiLeech(request, ip);
+                    return;
+                }
+                throw new AntiLeechException(ip, "SIGNATURE_MISSING", "缺少访问签名，请重新获取音频地址");
+            case EXPIRED:
+                throw new AntiLeechException(ip, "SIGNATURE_EXPIRED", "音频地址已过期，请重新获取");
+            default:
+                throw new AntiLeechException(ip, "SIGNATURE_INVALID", "音频地址签名无效");
+        }
+    }
+
+    /**
+     * 提取请求的签名路径（已解码）
+     *
+     * <p>音频文件为去掉 /audio/ 前缀的相对路径；HLS 播放列表与分段为所在目录（目录级签名）</p>
+     *
+     * @param request HTTP请求
+     * @return 签名路径
+     */
+    private String extractRelativePath(HttpServletRequest request) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        if (uri.startsWith(HLS_PATH_PREFIX)) {
+            return AudioHlsService.tokenScope(UriUtils.decode(uri.substring(HLS_PATH_PREFIX.length()),
+                    StandardCharsets.UTF_8));
+        }
+        if (uri.startsWith(AUDIO_PATH_PREFIX)) {
+            uri = uri.substring(AUDIO_PATH_PREFIX.length());
+        }
+        // 签名绑定文件路径，不含内容版本
+        return AudioMetadataIndexService.parseVersionedPath(UriUtils.decode(uri, StandardCharsets.UTF_8))[1];
+    }
+
     /**
      * 检查请求是否通过防盗链验证
      *
@@ -96,6 +229,8 @@ public class AntiLeechService {
      *   <li>空 User-Agent</li>
      *   <li>匹配黑名单正则表达式（爬虫、下载工具等）</li>
      * </ul>
+     * <p>黑名单规则启动时编译为 Aho-Corasick 字面量自动机与合并正则，
+     * 判定结果按 User-Agent 缓存（播放器 UA 种类很少，绝大多数请求直接命中缓存）</p>
      *
      * @param userAgent User-Agent字符串
      * @param ip IP地址（用于日志）
@@ -108,18 +243,15 @@ public class AntiLeechService {
             return false;
         }
 
-        List<String> blockedPatterns = securityProperties.getAntiLeech().getBlockedUserAgents();
-
-        // 检查是否匹配黑名单正则表达式
-        for (String pattern : blockedPatterns) {
-            try {
-                if (userAgent.matches(pattern)) {
-                    log.debug("User-Agent匹配黑名单: IP={}, UA={}, 模式={}", ip, userAgent, pattern);
-                    return false; // 匹配黑名单
-                }
-            } catch (Exception e) {
-                log.error("User-Agent正则匹配失败: pattern={}, UA={}", pattern, userAgent, e);
-            }
+        UserAgentClassifier classifier = userAgentClassifier;
+        Boolean blocked = classifier.verdicts.getIfPresent(userAgent);
+        if (blocked == null) {
+            blocked = classifier.isBlocked(userAgent);
+            classifier.verdicts.put(userAgent, blocked);
+        }
+        if (blocked) {
+            log.debug("User-Agent匹配黑名单: IP={}, UA={}", ip, userAgent);
+            return false;
         }
 
         return true;
@@ -164,4 +296,226 @@ public class AntiLeechService {
         log.debug("Referer 不在白名单: IP={}, Referer={}", ip, referer);
         return false;
     }
+
+    /**
+     * User-Agent 分类器
+     *
+     * <p>黑名单规则按形式分两类编译：</p>
+     * <ul>
+     *   <li>{@code .*字面量.*}（字面量中可含 {@code [Xx]} 这样的单字符类）：展开为字面量，
+     *       构建 Aho-Corasick 自动机，一次线性扫描判断是否包含任一字面量</li>
+     *   <li>其他正则：以 {@code (?:p1)|(?:p2)|...} 合并为一个表达式整串匹配</li>
+     * </ul>
+     * <p>两类判定与逐个 {@code String.matches} 一致；含反向引用或语法错误的规则记录错误并忽略</p>
+     */
+    private static final class UserAgentClassifier {
+
+        /**
+         * 字面量自动机
+         */
+        private final LiteralAutomaton automaton = new LiteralAutomaton();
+
+        /**
+         * 无法转换为字面量的规则合并后的表达式，无此类规则时为null
+         */
+        private final Pattern combined;
+
+        /**
+         * 按正则匹配的规则数
+         */
+        private final int regexCount;
+
+        /**
+         * User-Agent -> 是否拦截
+         */
+        private final Cache<String, Boolean> verdicts = CacheBuilder.newBuilder()
+                .maximumSize(USER_AGENT_CACHE_SIZE)
+                .build();
+
+        private UserAgentClassifier(List<String> source) {
+            StringJoiner joiner = new StringJoiner("|");
+            int regexes = 0;
+            for (String pattern : source) {
+                if (BACK_REFERENCE.matcher(pattern).find()) {
+                    log.error("User-Agent黑名单正则包含反向引用，已忽略: pattern={}", pattern);
+                    continue;
+                }
+                try {
+                    Pattern.compile(pattern);
+                } catch (PatternSyntaxException e) {
+                    log.error("User-Agent黑名单正则无效，已忽略: pattern={}", pattern, e);
+                    continue;
+                }
+
+                List<String> literals = expandLiterals(pattern);
+                if (literals != null) {
+                    literals.forEach(automaton::add);
+                } else {
+                    joiner.add("(?:" + pattern + ")");
+                    regexes++;
+                }
+            }
+            automaton.build();
+            this.combined = regexes > 0 ? Pattern.compile(joiner.toString()) : null;
+            this.regexCount = regexes;
+        }
+
+        private boolean isBlocked(String userAgent) {
+            return automaton.containsAny(userAgent) || (combined != null && combined.matcher(userAgent).matches());
+        }
+
+        /**
+         * 将 {@code .*字面量.*} 形式的规则展开为字面量列表
+         *
+         * @param pattern 正则
+         * @return 字面量列表，不是该形式或展开过多时返回null
+         */
+        private static List<String> expandLiterals(String pattern) {
+            if (pattern.length() <= 4 || !pattern.startsWith(".*") || !pattern.endsWith(".*")) {
+                return null;
+            }
+            String body = pattern.substring(2, pattern.length() - 2);
+
+            List<String> literals = new ArrayList<>(List.of(""));
+            for (int i = 0; i < body.length(); i++) {
+                char c = body.charAt(i);
+                String choices;
+                if (c == '\\') {
+                    // 转义的标点按字面量处理（\d、\w 等字符类不支持）
+                    if (i + 1 >= body.length() || Character.isLetterOrDigit(body.charAt(i + 1))) {
+                        return null;
+                    }
+                    choices = String.valueOf(body.charAt(++i));
+                } else if (c == '[') {
+                    int close = body.indexOf(']', i);
+                    if (close < 0) {
+                        return null;
+                    }
+                    choices = body.substring(i + 1, close);
+                    for (int j = 0; j < choices.length(); j++) {
+                        if (!Character.isLetterOrDigit(choices.charAt(j))) {
+                            return null;
+                        }
+                    }
+                    i = close;
+                } else if (".^$|?*+(){}]".indexOf(c) >= 0) {
+                    return null;
+                } else {
+                    choices = String.valueOf(c);
+                }
+
+                if (choices.isEmpty() || literals.size() * choices.length() > MAX_LITERAL_EXPANSION) {
+                    return null;
+                }
+                List<String> expanded = new ArrayList<>(literals.size() * choices.length());
+                for (String prefix : literals) {
+                    for (int j = 0; j < choices.length(); j++) {
+                        expanded.add(prefix + choices.charAt(j));
+                    }
+                }
+                literals = expanded;
+            }
+            return literals;
+        }
+    }
+
+    /**
+     * Aho-Corasick 字面量自动机（构建后只读，线程安全）
+     */
+    private static final class LiteralAutomaton {
+
+        /**
+         * 每个状态的转移：字符 -> 下一状态
+         */
+        private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+
+        /**
+         * 失败指针
+         */
+        private final List<Integer> failure = new ArrayList<>();
+
+        /**
+         * 是否为某个字面量的结尾（含经失败指针可达的结尾）
+         */
+        private final List<Boolean> terminal = new ArrayList<>();
+
+        private int literalCount;
+
+        private LiteralAutomaton() {
+            newState();
+        }
+
+        private int size() {
+            return literalCount;
+        }
+
+        private void add(String literal) {
+            int state = 0;
+            for (int i = 0; i < literal.length(); i++) {
+                Integer next = transitions.get(state).get(literal.charAt(i));
+                if (next == null) {
+                    next = newState();
+                    transitions.get(state).put(literal.charAt(i), next);
+                }
+                state = next;
+            }
+            terminal.set(state, true);
+            literalCount++;
+        }
+
+        /**
+         * 按层次遍历计算失败指针
+         */
+        private void build() {
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int child : transitions.get(0).values()) {
+                failure.set(child, 0);
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                    int child = edge.getValue();
+                    int fallback = failure.get(state);
+                    while (fallback != 0 && !transitions.get(fallback).containsKey(edge.getKey())) {
+                        fallback = failure.get(fallback);
+                    }
+                    Integer target = transitions.get(fallback).get(edge.getKey());
+                    int childFailure = target != null && target != child ? target : 0;
+                    failure.set(child, childFailure);
+                    if (terminal.get(childFailure)) {
+                        terminal.set(child, true);
+                    }
+                    queue.add(child);
+                }
+            }
+        }
+
+        private boolean containsAny(String text) {
+            if (literalCount == 0) {
+                return false;
+            }
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                Integer next = transitions.get(state).get(c);
+                while (next == null && state != 0) {
+                    state = failure.get(state);
+                    next = transitions.get(state).get(c);
+                }
+                state = next != null ? next : 0;
+                if (terminal.get(state)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int newState() {
+            transitions.add(new HashMap<>());
+            failure.add(0);
+            terminal.add(false);
+            return transitions.size() - 1;
+        }
+    }
 }
@@ -12,12 +12,15 @@ import com.naruto.wangyiyunmusic.model.dto.ArtistUpdateDTO;
 import com.naruto.wangyiyunmusic.model.entity.Artist;
 import com.naruto.wangyiyunmusic.model.vo.ArtistDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.ArtistListVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.service.ArtistService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,6 +36,12 @@ import java.util.stream.Collectors;
 @Service
 public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> implements ArtistService {
 
+    @Autowired
+    private MusicDetailCacheService detailCacheService;
+
+    @Autowired
+    private CatalogSearchIndexService searchIndexService;
+
     @Override
     public IPage<ArtistListVO> pageQuery(ArtistQueryDTO queryDTO) {
         log.info("分页查询歌手列表, 查询参数: {}", queryDTO);
@@ -41,17 +50,7 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         Page<Artist> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
 
         // 2. 构建查询条件
-        LambdaQueryWrapper<Artist> wrapper = new LambdaQueryWrapper<>();
-
-        // 歌手名称模糊搜索
-        if (StringUtils.hasText(queryDTO.getName())) {
-            wrapper.like(Artist::getName, queryDTO.getName());
-        }
-
-        // 国家/地区精确匹配
-        if (StringUtils.hasText(queryDTO.getCountry())) {
-            wrapper.eq(Artist::getCountry, queryDTO.getCountry());
-        }
+        LambdaQueryWrapper<Artist> wrapper = buildQueryWrapper(queryDTO);
 
         // 排序
         if ("create_time".equals(queryDTO.getSortField())) {
@@ -79,6 +78,46 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
         return result;
     }
 
+    @Override
+    public CursorPageVO<ArtistListVO> cursorQuery(ArtistQueryDTO queryDTO) {
+        // 1. 构建筛选条件
+        LambdaQueryWrapper<Artist> wrapper = buildQueryWrapper(queryDTO);
+
+        // 2. 添加 (排序字段, id) 游标条件与排序
+        boolean asc = "asc".equals(queryDTO.getSortOrder());
+        boolean byUpdateTime = "update_time".equals(queryDTO.getSortField());
+        String sortField = byUpdateTime ? "update_time" : "create_time";
+        KeysetQuerySupport.apply(wrapper, byUpdateTime ? Artist::getUpdateTime : Artist::getCreateTime,
+                Artist::getId, LocalDateTime.class, sortField, asc, queryDTO.getCursor(), queryDTO.getPageSize());
+
+        // 3. 查询并构造结果
+        return KeysetQuerySupport.toPage(this.list(wrapper), queryDTO.getPageSize(), sortField, asc,
+                artist -> byUpdateTime ? artist.getUpdateTime() : artist.getCreateTime(),
+                Artist::getId, this::convertToListVO);
+    }
+
+    /**
+     * 构建筛选条件（不含排序）
+     *
+     * @param queryDTO 查询条件
+     * @return 查询包装器
+     */
+    private LambdaQueryWrapper<Artist> buildQueryWrapper(ArtistQueryDTO queryDTO) {
+        LambdaQueryWrapper<Artist> wrapper = new LambdaQueryWrapper<>();
+
+        // 歌手名称模糊搜索
+        if (StringUtils.hasText(queryDTO.getName())) {
+            wrapper.like(Artist::getName, queryDTO.getName());
+        }
+
+        // 国家/地区精确匹配
+        if (StringUtils.hasText(queryDTO.getCountry())) {
+            wrapper.eq(Artist::getCountry, queryDTO.getCountry());
+        }
+
+        return wrapper;
+    }
+
     @Override
     public ArtistDetailVO getArtistDetail(Long id) {
         log.info("查询歌手详情, id: {}", id);
@@ -116,6 +155,9 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
             throw new BusinessException("创建歌手失败");
         }
 
+        // 4. 更新搜索索引
+        searchIndexService.artistChanged(artist.getId());
+
         log.info("创建歌手成功, id: {}, name: {}", artist.getId(), artist.getName());
         return artist.getId();
     }
@@ -148,6 +190,10 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
             throw new BusinessException("更新歌手失败");
         }
 
+        // 5. 失效该歌手关联音乐的详情缓存（歌手名称），并更新搜索索引
+        detailCacheService.evictByArtist(id);
+        searchIndexService.artistChanged(id);
+
         log.info("更新歌手成功, id: {}, name: {}", id, updateDTO.getName());
         return true;
     }
@@ -169,6 +215,10 @@ public class ArtistServiceImpl extends ServiceImpl<ArtistMapper, Artist> impleme
             throw new BusinessException("删除歌手失败");
         }
 
+        // 3. 失效该歌手关联音乐的详情缓存，并更新搜索索引
+        detailCacheService.evictByArtist(id);
+        searchIndexService.artistChanged(id);
+
         log.info("删除歌手成功, id: {}, name: {}", id, artist.getName());
         return true;
     }
@@ -0,0 +1,257 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 音频异步非阻塞写出器
+ *
+ * <p>基于 Servlet 3.1 {@link WriteListener}：只在 {@link ServletOutputStream#isReady()} 为 true 时写出，
+ * 套接字写满后立即归还工作线程，由容器在可写时回调 {@link #onWritePossible()} 继续写出。
+ * 慢速客户端（移动网络、暂停缓冲）不再长期占用 Tomcat 工作线程</p>
+ *
+ * <p>启用带宽调度时，令牌不足不会休眠线程，而是通过 {@link AudioBandwidthScheduler#schedule(Runnable, long)}
+ * 延迟后重新派发写出任务</p>
+ *
+ * <p>写出完成、出错或超时后，在 {@link AsyncListener#onComplete(AsyncEvent)} 中关闭文件通道并释放调度会话</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+final class AudioAsyncWriter implements WriteListener, AsyncListener {
+
+    /**
+     * 响应体分段：固定字节（multipart 分段头）或文件区间
+     *
+     * @param bytes  固定字节，为null时表示文件区间
+     * @param start  文件区间起始偏移
+     * @param length 文件区间字节数
+     */
+    record Part(byte[] bytes, long start, long length) {
+
+        static Part bytes(byte[] bytes) {
+            return new Part(bytes, 0, bytes.length);
+        }
+
+        static Part region(long start, long length) {
+            return new Part(null, start, length);
+        }
+    }
+
+    private final AsyncContext asyncContext;
+
+    private final ServletOutputStream out;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer cached;
+
+    private final Iterator<Part> parts;
+
+    private final AudioBandwidthScheduler scheduler;
+
+    private final AudioBandwidthScheduler.Session session;
+
+    /**
+     * 复用的写出缓冲区
+     */
+    private final byte[] buffer;
+
+    /**
+     * 当前文件区间的读取位置与剩余字节数
+     */
+    private long position;
+
+    private long remaining;
+
+    private volatile boolean finished;
+
+    private AudioAsyncWriter(AsyncContext asyncContext, ServletOutputStream out, FileChannel channel,
+                             ByteBuffer cached, List<Part> parts, AudioBandwidthScheduler scheduler,
+                             AudioBandwidthScheduler.Session session, int bufferSize) {
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.channel = channel;
+        this.cached = cached;
+        this.parts = parts.iterator();
+        this.scheduler = scheduler;
+        this.session = session;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * 开启异步请求并开始写出
+     *
+     * <p>调用返回后由本写出器负责关闭 channel 与 session</p>
+     *
+     * @param request       HTTP请求
+     * @param response      HTTP响应
+     * @param channel       文件通道（命中热门缓存时为null）
+     * @param cached        热门缓存中的文件内容（未缓存时为null）
+     * @param parts         响应体分段
+     * @param scheduler     带宽调度器
+     * @param session       带宽调度会话（未启用时为null）
+     * @param timeoutMillis 异步超时时间（毫秒）
+     * @param bufferSize    写出缓冲区大小
+     * @throws IOException 获取输出流失败
+     */
+    static void start(HttpServletRequest request, HttpServletResponse response, FileChannel channel,
+                      ByteBuffer cached, List<Part> parts, AudioBandwidthScheduler scheduler,
+                      AudioBandwidthScheduler.Session session, long timeoutMillis, int bufferSize) throws IOException {
+        ServletOutputStream out = response.getOutputStream();
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeoutMillis);
+
+        AudioAsyncWriter writer = new AudioAsyncWriter(asyncContext, out, channel,
+                cached, parts, scheduler, session, bufferSize);
+        asyncContext.addListener(writer);
+        // 设置监听器后容器立即回调 onWritePossible
+        out.setWriteListener(writer);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        while (!finished && out.isReady()) {
+            // 1. 当前区间已写完，切换到下一分段
+            if (remaining == 0) {
+                if (!parts.hasNext()) {
+                    finish();
+                    return;
+                }
+                Part part = parts.next();
+                if (part.bytes() != null) {
+                    out.write(part.bytes());
+                } else {
+                    position = part.start();
+                    remaining = part.length();
+                }
+                continue;
+            }
+
+            // 2. 申请带宽额度，不足时延迟后重新派发
+            int count = (int) Math.min(remaining, buffer.length);
+            if (session != null) {
+                int granted = session.tryAcquire(count);
+                if (granted == 0) {
+                    scheduler.schedule(this::resume, session.delayNanos(count));
+                    return;
+                }
+                count = granted;
+            }
+
+            // 3. 读取并写出一个分块（非阻塞模式下容器会复制未能立即发送的数据）
+            read(count);
+            out.write(buffer, 0, count);
+            position += count;
+            remaining -= count;
+        }
+    }
+
+    /**
+     * 从热门缓存或文件读取一个分块到缓冲区
+     */
+    private void read(int count) throws IOException {
+        if (cached != null) {
+            cached.get((int) position, buffer, 0, count);
+            return;
+        }
+
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, count);
+        long offset = position;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, offset);
+            if (read < 0) {
+                throw new EOFException("音频文件在传输过程中被截断");
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * 带宽等待结束后，在容器线程中继续写出
+     */
+    private void resume() {
+        if (finished) {
+            return;
+        }
+        try {
+            asyncContext.start(() -> {
+                try {
+                    onWritePossible();
+                } catch (IOException e) {
+                    onError(e);
+                }
+            });
+        } catch (IllegalStateException e) {
+            // 异步请求已超时或已完成
+            log.debug("音频异步写出已结束: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 完成异步请求（只执行一次）
+     */
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            log.debug("音频异步请求已完成: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        // 通常是客户端中断（拖拽、切歌）
+        log.debug("音频异步传输中断: {}", t != null ? t.getMessage() : null);
+        finish();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        finished = true;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("关闭音频文件通道失败: {}", e.getMessage());
+            }
+        }
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        log.debug("音频异步传输超时");
+        finish();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        onError(event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // 不会重复开启异步
+    }
+}
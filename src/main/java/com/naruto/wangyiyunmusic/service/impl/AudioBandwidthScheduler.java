@@ -0,0 +1,290 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioStreamProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 音频出口带宽调度器
+ *
+ * <p>防止单个客户端以线路速率拉取整个文件挤占其他听众的带宽：</p>
+ * <ul>
+ *   <li>全局令牌桶：本节点音频出口总速率上限</li>
+ *   <li>连接令牌桶：每个音频流的速率 = min(单连接上限, 全局速率 × 权重 / 活跃权重之和)，即按权重公平分配</li>
+ *   <li>起播突发：新连接带有 burst-bytes 的初始令牌，并在突发阶段使用更高权重，饱和时也能快速缓冲起播</li>
+ * </ul>
+ *
+ * <p>阻塞写出时线程在令牌不足时休眠（每次最多等待一个调度周期后重新计算公平份额）；
+ * 异步写出时使用 {@link Session#tryAcquire(long)} 与 {@link #schedule(Runnable, long)}，等待期间不占用线程。
+ * 启用后 sendfile 不再可用（内核一次性发送无法限速）</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Service
+public class AudioBandwidthScheduler {
+
+    /**
+     * 单次等待上限（纳秒），到期后按最新的活跃连接数重新计算份额
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * 全局令牌桶容量（秒数）
+     */
+    private static final double GLOBAL_BURST_SECONDS = 0.1;
+
+    @Autowired
+    private AudioStreamProperties streamProperties;
+
+    /**
+     * 活跃连接权重之和
+     */
+    private final AtomicLong totalWeight = new AtomicLong();
+
+    /**
+     * 活跃连接数
+     */
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * 全局令牌桶锁
+     */
+    private final Object globalLock = new Object();
+
+    /**
+     * 全局令牌数（可为负，表示欠账）
+     */
+    private double globalTokens;
+
+    /**
+     * 全局令牌桶上次补充时间（纳秒）
+     */
+    private long globalRefillTime = System.nanoTime();
+
+    /**
+     * 异步写出的等待定时器（守护线程，只负责到期后重新派发写出任务）
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "audio-bandwidth-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 是否启用带宽调度
+     */
+    public boolean isEnabled() {
+        return streamProperties.getBandwidth().getEnabled();
+    }
+
+    /**
+     * 当前活跃的音频流数量
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * 开始一个音频流
+     *
+     * @return 调度会话，未启用时返回null
+     */
+    public Session open() {
+        if (!isEnabled()) {
+            return null;
+        }
+        return new Session(streamProperties.getBandwidth());
+    }
+
+    /**
+     * 延迟执行任务（异步写出在令牌不足时使用）
+     *
+     * @param task       任务
+     * @param delayNanos 延迟（纳秒）
+     */
+    public void schedule(Runnable task, long delayNanos) {
+        timer.schedule(task, Math.max(delayNanos, 0), TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * 从全局令牌桶扣除令牌（允许欠账）
+     *
+     * @param bytes 字节数
+     * @return 欠账需要等待的时长（纳秒），未欠账返回0
+     */
+    private long chargeGlobal(long bytes) {
+        AudioStreamProperties.BandwidthConfig config = streamProperties.getBandwidth();
+        double rate = config.getGlobalBytesPerSecond();
+        double capacity = rate * GLOBAL_BURST_SECONDS;
+
+        long waitNanos;
+        synchronized (globalLock) {
+            long now = System.nanoTime();
+            globalTokens = Math.min(capacity, globalTokens + rate * (now - globalRefillTime) / 1e9);
+            globalRefillTime = now;
+            globalTokens -= bytes;
+            waitNanos = globalTokens < 0 ? (long) (-globalTokens / rate * 1e9) : 0;
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 休眠指定时长
+     */
+    private static void park(long nanos) throws InterruptedIOException {
+        if (nanos <= 0) {
+            return;
+        }
+        LockSupport.parkNanos(nanos);
+        if (Thread.interrupted()) {
+            throw new InterruptedIOException("音频传输等待带宽时被中断");
+        }
+    }
+
+    /**
+     * 单个音频流的调度会话（同一时刻只由一个写出线程使用）
+     */
+    public final class Session implements AutoCloseable {
+
+        private final AudioStreamProperties.BandwidthConfig config;
+
+        /**
+         * 连接令牌数
+         */
+        private double tokens;
+
+        /**
+         * 上次补充时间（纳秒）
+         */
+        private long refillTime = System.nanoTime();
+
+        /**
+         * 已发送字节数
+         */
+        private long sentBytes;
+
+        /**
+         * 当前权重（突发阶段为 startup-weight，之后为1）
+         */
+        private int weight;
+
+        /**
+         * 全局令牌桶欠账时，下一次获取令牌的最早时间（纳秒）
+         */
+        private long notBefore = System.nanoTime();
+
+        private volatile boolean closed;
+
+        private Session(AudioStreamProperties.BandwidthConfig config) {
+            this.config = config;
+            this.tokens = config.getBurstBytes();
+            this.weight = Math.max(1, config.getStartupWeight());
+            totalWeight.addAndGet(weight);
+            activeSessions.incrementAndGet();
+        }
+
+        /**
+         * 获取发送额度，令牌不足时阻塞等待
+         *
+         * @param requested 期望发送的字节数
+         * @return 本次允许发送的字节数（不超过 chunk-size）
+         * @throws InterruptedIOException 等待被中断
+         */
+        public int acquire(long requested) throws InterruptedIOException {
+            for (;;) {
+                int bytes = tryAcquire(requested);
+                if (bytes > 0) {
+                    return bytes;
+                }
+                park(delayNanos(requested));
+            }
+        }
+
+        /**
+         * 尝试获取发送额度（不阻塞）
+         *
+         * @param requested 期望发送的字节数
+         * @return 本次允许发送的字节数（不超过 chunk-size），令牌不足时返回0
+         */
+        public int tryAcquire(long requested) {
+            int bytes = (int) Math.min(requested, config.getChunkSize());
+            long now = System.nanoTime();
+            if (now - notBefore < 0) {
+                return 0;
+            }
+
+            refill(now);
+            if (tokens < bytes) {
+                return 0;
+            }
+            tokens -= bytes;
+            notBefore = now + chargeGlobal(bytes);
+
+            sentBytes += bytes;
+            if (weight > 1 && sentBytes >= config.getBurstBytes()) {
+                // 起播突发结束，恢复普通权重
+                totalWeight.addAndGet(1 - weight);
+                weight = 1;
+            }
+            return bytes;
+        }
+
+        /**
+         * 距离下一次可能获取到额度的等待时长
+         *
+         * @param requested 期望发送的字节数
+         * @return 等待时长（纳秒），不超过一个调度周期
+         */
+        public long delayNanos(long requested) {
+            int bytes = (int) Math.min(requested, config.getChunkSize());
+            long now = System.nanoTime();
+            refill(now);
+            long tokenWait = tokens >= bytes ? 0 : (long) ((bytes - tokens) / fairRate() * 1e9);
+            long globalWait = notBefore - now;
+            return Math.max(1, Math.min(MAX_WAIT_NANOS, Math.max(tokenWait, globalWait)));
+        }
+
+        /**
+         * 按当前公平份额补充令牌
+         */
+        private void refill(long now) {
+            double capacity = Math.max(config.getChunkSize(), sentBytes < config.getBurstBytes() ? config.getBurstBytes() : 0);
+            tokens = Math.min(capacity, tokens + fairRate() * (now - refillTime) / 1e9);
+            refillTime = now;
+        }
+
+        /**
+         * 当前公平份额速率（字节/秒）
+         */
+        private double fairRate() {
+            long total = Math.max(totalWeight.get(), weight);
+            double share = (double) config.getGlobalBytesPerSecond() * weight / total;
+            return Math.max(1, Math.min(config.getPerConnectionBytesPerSecond(), share));
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            totalWeight.addAndGet(-weight);
+            activeSessions.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioMediaProperties;
+import com.naruto.wangyiyunmusic.model.entity.AudioFileMetadata;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 音频 HLS 分段服务
+ *
+ * <p>将长音频（长时长混音、视频解析提取的大文件）切分为固定时长的分段并生成 VOD 播放列表：</p>
+ * <ul>
+ *   <li>曲库音频：分段存放在存储目录下的 {outputDir}/{原相对路径去掉扩展名}/ 中，通过 /hls/** 访问；
+ *       获取URL时分段缺失或过期则提交后台任务（与转码共用线程池），生成完成前只返回原始文件URL</li>
+ *   <li>视频解析音频：解析完成后提交后台分段任务（与转码共用线程池），输出到临时目录的 {outputDir}/ 下，
+ *       随临时文件一起过期清理；解析接口先返回完整文件URL，播放列表生成后可通过 /api/video/hls 查询</li>
+ *   <li>MP3/AAC 直接封装为 MPEG-TS（不重新编码），其他格式转为 AAC</li>
+ * </ul>
+ *
+ * <p>拖拽播放只需请求对应的小分段，分段内容不变，可被浏览器与 CDN 独立缓存</p>
+ *
+ * <p>启用签名URL时，播放列表与其中的分段共用一个目录级签名（签名路径为分段目录，以 / 结尾），
+ * 输出播放列表时把签名参数附加到每个分段地址上</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class AudioHlsService {
+
+    /**
+     * 播放列表文件名
+     */
+    public static final String PLAYLIST_NAME = "index.m3u8";
+
+    @Autowired
+    private AudioMediaProperties mediaProperties;
+
+    @Autowired
+    private AudioTranscodeService transcodeService;
+
+    @Autowired
+    private AudioMetadataIndexService metadataIndexService;
+
+    /**
+     * 音频文件存储路径（如: file:/data/music-data/audio/）
+     */
+    @Value("${audio.storage-path}")
+    private String audioStoragePath;
+
+    /**
+     * 视频解析临时文件存储路径
+     */
+    @Value("${video.parser.temp-path}")
+    private String tempPath;
+
+    /**
+     * 音频存储根目录（规范化后的绝对路径）
+     */
+    private Path storageRoot;
+
+    /**
+     * 临时文件根目录（规范化后的绝对路径）
+     */
+    private Path tempRoot;
+
+    @PostConstruct
+    public void init() throws FileNotFoundException {
+        this.storageRoot = ResourceUtils.getFile(audioStoragePath).toPath().toAbsolutePath().normalize();
+        this.tempRoot = Path.of(tempPath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 是否启用 HLS 分段（ffmpeg 可用时）
+     */
+    public boolean isEnabled() {
+        return mediaProperties.getHls().getEnabled() && transcodeService.isAvailable();
+    }
+
+    /**
+     * 查询曲库音频的播放列表路径
+     *
+     * <p>不满足分段条件返回null；分段缺失或过期时提交后台分段任务并返回null</p>
+     *
+     * @param fileUrl  原始文件相对路径
+     * @param duration 时长（秒，可为null）
+     * @return 播放列表相对路径（相对于 /hls/），不可用时返回null
+     */
+    public String playlistPath(String fileUrl, Integer duration) {
+        if (!isEnabled() || !StringUtils.hasText(fileUrl)) {
+            return null;
+        }
+
+        AudioMediaProperties.HlsConfig config = mediaProperties.getHls();
+        String relativePath = stripExtension(fileUrl.startsWith("/") ? fileUrl.substring(1) : fileUrl);
+
+        Path source = storageRoot.resolve(fileUrl.startsWith("/") ? fileUrl.substring(1) : fileUrl).normalize();
+        Path outputDir = storageRoot.resolve(config.getOutputDir()).resolve(relativePath).normalize();
+        if (!source.startsWith(storageRoot) || !outputDir.startsWith(storageRoot.resolve(config.getOutputDir()))) {
+            return null;
+        }
+
+        // 1. 判断是否为长音频
+        AudioFileMetadata metadata = metadataIndexService.lookup(fileUrl);
+        long size = metadata != null ? metadata.getSize() : fileSize(source);
+        boolean longTrack = (duration != null && duration >= config.getMinDurationSeconds())
+                || size >= config.getMinFileBytes();
+        if (!longTrack) {
+            return null;
+        }
+
+        // 2. 分段已生成且不早于原始文件
+        long sourceModified = metadata != null ? metadata.getLastModified() : lastModified(source);
+        if (sourceModified < 0) {
+            return null;
+        }
+        if (lastModified(outputDir.resolve(PLAYLIST_NAME)) >= sourceModified) {
+            return relativePath + "/" + PLAYLIST_NAME;
+        }
+
+        // 3. 提交后台分段
+        transcodeService.submit(config.getOutputDir() + "/" + relativePath, () -> {
+            if (lastModified(outputDir.resolve(PLAYLIST_NAME)) < lastModified(source)) {
+                segment(source, outputDir);
+            }
+        });
+        return null;
+    }
+
+    /**
+     * 签名作用域：播放列表或分段所在的目录
+     *
+     * @param path 相对于 /hls/ 的路径，如: mix/live-2025/seg_00001.ts
+     * @return 以 / 结尾的目录路径，如: mix/live-2025/
+     */
+    public static String tokenScope(String path) {
+        String normalized = path.startsWith("/") ? path.substring(1) : path;
+        return normalized.substring(0, normalized.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * 读取曲库播放列表，并在每个分段地址后附加签名参数
+     *
+     * @param playlistPath 播放列表路径（相对于 /hls/）
+     * @param query        签名查询参数（不含 ?）
+     * @return 改写后的播放列表，不存在时返回null
+     * @throws IOException 读取失败
+     */
+    public String signedPlaylist(String playlistPath, String query) throws IOException {
+        Path hlsRoot = storageRoot.resolve(mediaProperties.getHls().getOutputDir()).normalize();
+        Path playlist = hlsRoot.resolve(playlistPath.startsWith("/") ? playlistPath.substring(1) : playlistPath)
+                .normalize();
+        if (!playlist.startsWith(hlsRoot) || !Files.isRegularFile(playlist)) {
+            return null;
+        }
+
+        StringBuilder content = new StringBuilder();
+        for (String line : Files.readAllLines(playlist, StandardCharsets.UTF_8)) {
+            content.append(line);
+            // 非空且不以 # 开头的行为分段地址
+            if (!line.isBlank() && !line.startsWith("#")) {
+                content.append(line.indexOf('?') < 0 ? '?' : '&').append(query);
+            }
+            content.append('\n');
+        }
+        return content.toString();
+    }
+
+    /**
+     * 对视频解析提取的临时音频提交后台分段任务
+     *
+     * @param audioFile 临时音频文件
+     * @param duration  时长（秒，可为null）
+     * @return true-已提交, false-不满足分段条件、ffmpeg 不可用或队列已满
+     */
+    public boolean submitTempSegment(Path audioFile, Integer duration) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        AudioMediaProperties.HlsConfig config = mediaProperties.getHls();
+        boolean longTrack = (duration != null && duration >= config.getMinDurationSeconds())
+                || fileSize(audioFile) >= config.getMinFileBytes();
+        if (!longTrack) {
+            return false;
+        }
+
+        String name = stripExtension(audioFile.getFileName().toString());
+        Path outputDir = tempRoot.resolve(config.getOutputDir()).resolve(name);
+        return transcodeService.submit("temp/" + config.getOutputDir() + "/" + name, () -> {
+            if (Files.isRegularFile(audioFile)) {
+                segment(audioFile, outputDir);
+            }
+        });
+    }
+
+    /**
+     * 查询临时音频已生成的播放列表
+     *
+     * @param fileName 临时音频文件名
+     * @return 播放列表相对路径（相对于临时音频URL前缀），尚未生成或文件名非法时返回null
+     */
+    public String tempPlaylistPath(String fileName) {
+        if (!StringUtils.hasText(fileName) || fileName.contains("/") || fileName.contains("\\")
+                || fileName.startsWith(".")) {
+            return null;
+        }
+        String outputDir = mediaProperties.getHls().getOutputDir();
+        String name = stripExtension(fileName);
+        Path playlist = tempRoot.resolve(outputDir).resolve(name).resolve(PLAYLIST_NAME).normalize();
+        if (!playlist.startsWith(tempRoot.resolve(outputDir)) || !Files.isRegularFile(playlist)) {
+            return null;
+        }
+        return outputDir + "/" + name + "/" + PLAYLIST_NAME;
+    }
+
+    /**
+     * 生成分段与播放列表
+     *
+     * <p>先写入 {outputDir}.part 目录，成功后整体替换旧目录，播放中的客户端不会读到写了一半的播放列表</p>
+     *
+     * @param source    原始音频文件
+     * @param outputDir 输出目录
+     * @return true-分段成功
+     */
+    private boolean segment(Path source, Path outputDir) {
+        AudioMediaProperties.HlsConfig config = mediaProperties.getHls();
+        Path workDir = outputDir.resolveSibling(outputDir.getFileName() + ".part");
+        long startTime = System.currentTimeMillis();
+
+        try {
+            FileSystemUtils.deleteRecursively(workDir);
+            Files.createDirectories(workDir);
+
+            List<String> arguments = new ArrayList<>(List.of(
+                    "-nostdin", "-hide_banner", "-loglevel", "error", "-y",
+                    "-i", source.toAbsolutePath().toString(),
+                    "-vn", "-map", "0:a:0"));
+            if (canCopy(source)) {
+                arguments.addAll(List.of("-codec:a", "copy"));
+            } else {
+                arguments.addAll(List.of("-codec:a", "aac", "-b:a", config.getAacBitrate() + "k"));
+            }
+            // 在输出目录中执行，播放列表中的分段地址为相对路径
+            arguments.addAll(List.of(
+                    "-f", "hls",
+                    "-hls_time", String.valueOf(config.getSegmentSeconds()),
+                    "-hls_playlist_type", "vod",
+                    "-hls_segment_filename", "seg_%05d.ts",
+                    PLAYLIST_NAME));
+
+            if (!transcodeService.runFfmpeg(arguments, workDir, source.getFileName().toString())) {
+                return false;
+            }
+
+            FileSystemUtils.deleteRecursively(outputDir);
+            Files.move(workDir, outputDir, StandardCopyOption.ATOMIC_MOVE);
+            log.info("✅ HLS 分段完成: {} ({} ms)", outputDir, System.currentTimeMillis() - startTime);
+            return true;
+        } catch (IOException e) {
+            log.warn("⚠️ HLS 分段异常: {}, 原因: {}", source, e.getMessage());
+            return false;
+        } finally {
+            try {
+                FileSystemUtils.deleteRecursively(workDir);
+            } catch (IOException e) {
+                log.debug("删除 HLS 临时目录失败: {}", workDir);
+            }
+        }
+    }
+
+    /**
+     * 是否可以不重新编码直接封装为 MPEG-TS
+     */
+    private boolean canCopy(Path source) {
+        String name = source.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".mp3") || name.endsWith(".aac");
+    }
+
+    private static String stripExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') ? path.substring(0, dot) : path;
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioStreamProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 热门音频内存映射缓存服务
+ *
+ * <p>播放分布高度倾斜：少量热门歌曲占据了大部分 Range 流量，
+ * 将其映射为 {@link MappedByteBuffer} 后可直接从页缓存写出，避免重复打开文件和系统调用</p>
+ *
+ * <p>缓存策略：</p>
+ * <ul>
+ *   <li>容量：按映射字节数计算，受 max-bytes 预算约束</li>
+ *   <li>准入：基于 Count-Min Sketch 统计的近期播放次数，达到阈值才准入</li>
+ *   <li>淘汰：近似 LFU，随机抽样若干缓存文件取频率最低者（不遍历全部条目），
+ *       仅当候选文件频率高于被淘汰文件时才替换（冷门歌曲不会挤掉热门歌曲）</li>
+ *   <li>衰减：定期将频率计数原子地减半，使统计反映"近期"热度</li>
+ * </ul>
+ *
+ * <p>sendfile 可用的请求不查询本缓存（由调用方判断），内核直接从页缓存发送已是最优路径；
+ * 本缓存服务于无法使用 sendfile 的请求：多区间、带宽调度、占用限流连接名额或容器不支持 sendfile</p>
+ *
+ * <p>注意：JDK 未提供显式 unmap，被淘汰的映射区域在 GC 回收后才释放虚拟地址空间</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-08
+ */
+@Slf4j
+@Service
+public class AudioHotCacheService {
+
+    /**
+     * Count-Min Sketch 行数（哈希函数个数）
+     */
+    private static final int SKETCH_DEPTH = 4;
+
+    /**
+     * Count-Min Sketch 每行宽度（2的幂）
+     */
+    private static final int SKETCH_WIDTH = 4096;
+
+    /**
+     * 每行哈希种子
+     */
+    private static final int[] SKETCH_SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /**
+     * 淘汰时随机抽样的缓存文件数
+     */
+    private static final int EVICTION_SAMPLES = 8;
+
+    @Autowired
+    private AudioStreamProperties streamProperties;
+
+    /**
+     * 文件路径 -> 缓存条目
+     */
+    private final ConcurrentHashMap<Path, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 当前已映射字节数
+     */
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * 播放频率统计（Count-Min Sketch）
+     */
+    private final AtomicIntegerArray sketch = new AtomicIntegerArray(SKETCH_DEPTH * SKETCH_WIDTH);
+
+    /**
+     * 准入/淘汰互斥锁（只在未命中且满足准入条件时竞争）
+     */
+    private final Object admissionLock = new Object();
+
+    /**
+     * 已缓存文件列表（用于随机抽样淘汰，受 admissionLock 保护）
+     */
+    private final List<Path> residents = new ArrayList<>();
+
+    /**
+     * 文件路径 -> 在 residents 中的下标（受 admissionLock 保护）
+     */
+    private final Map<Path, Integer> residentIndex = new HashMap<>();
+
+    /**
+     * 查找缓存并记录播放
+     *
+     * <p>命中时返回只读视图；未命中时根据播放频率决定是否准入，准入成功同样返回只读视图</p>
+     *
+     * @param file         文件路径
+     * @param fileLength   当前文件长度
+     * @param lastModified 当前文件修改时间
+     * @param newPlay      是否为一次新播放（完整请求或从0开始的 Range 请求）
+     * @return 文件内容只读视图，未缓存时返回null
+     */
+    public ByteBuffer acquire(Path file, long fileLength, long lastModified, boolean newPlay) {
+        AudioStreamProperties.HotCacheConfig config = streamProperties.getHotCache();
+        if (!config.getEnabled()) {
+            return null;
+        }
+
+        int frequency = newPlay ? increment(file) : frequency(file);
+
+        CacheEntry entry = entries.get(file);
+        if (entry != null) {
+            if (entry.matches(fileLength, lastModified)) {
+                return entry.buffer.asReadOnlyBuffer();
+            }
+            // 文件已被替换，丢弃旧映射
+            synchronized (admissionLock) {
+                remove(file, entry);
+            }
+        }
+
+        if (!newPlay || frequency < config.getAdmissionThreshold() || fileLength > config.getMaxFileBytes()
+                || fileLength > config.getMaxBytes() || fileLength == 0) {
+            return null;
+        }
+
+        CacheEntry admitted = admit(file, fileLength, lastModified, frequency);
+        return admitted != null ? admitted.buffer.asReadOnlyBuffer() : null;
+    }
+
+    /**
+     * 准入文件
+     *
+     * @param file         文件路径
+     * @param fileLength   文件长度
+     * @param lastModified 文件修改时间
+     * @param frequency    候选文件播放频率
+     * @return 新缓存条目，被拒绝时返回null
+     */
+    private CacheEntry admit(Path file, long fileLength, long lastModified, int frequency) {
+        long maxBytes = streamProperties.getHotCache().getMaxBytes();
+
+        synchronized (admissionLock) {
+            CacheEntry existing = entries.get(file);
+            if (existing != null) {
+                return existing.matches(fileLength, lastModified) ? existing : null;
+            }
+
+            // 预算不足时按 LFU 淘汰，被淘汰者频率不低于候选者则拒绝准入
+            while (usedBytes.get() + fileLength > maxBytes) {
+                Map.Entry<Path, CacheEntry> victim = findVictim();
+                if (victim == null || frequency(victim.getKey()) >= frequency) {
+                    log.debug("热门缓存拒绝准入: {} (频率: {})", file.getFileName(), frequency);
+                    return null;
+                }
+                remove(victim.getKey(), victim.getValue());
+                log.debug("热门缓存淘汰: {}", victim.getKey().getFileName());
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileLength);
+                CacheEntry entry = new CacheEntry(buffer, fileLength, lastModified);
+                entries.put(file, entry);
+                residentIndex.put(file, residents.size());
+                residents.add(file);
+                usedBytes.addAndGet(fileLength);
+                log.info("🔥 热门音频进入缓存: {} ({} KB, 频率: {}), 已用: {} MB",
+                        file.getFileName(), fileLength / 1024, frequency, usedBytes.get() / 1024 / 1024);
+                return entry;
+            } catch (IOException e) {
+                log.warn("音频文件内存映射失败: {}, 原因: {}", file, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 随机抽样查找频率较低的缓存条目（调用方持有 admissionLock）
+     *
+     * <p>缓存文件数不超过抽样数时等同于全量比较</p>
+     *
+     * @return 淘汰候选，缓存为空时返回null
+     */
+    private Map.Entry<Path, CacheEntry> findVictim() {
+        int size = residents.size();
+        if (size == 0) {
+            return null;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int samples = Math.min(EVICTION_SAMPLES, size);
+        Path victim = null;
+        int minFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < samples; i++) {
+            Path candidate = residents.get(samples == size ? i : random.nextInt(size));
+            int frequency = frequency(candidate);
+            if (frequency < minFrequency) {
+                minFrequency = frequency;
+                victim = candidate;
+            }
+        }
+        CacheEntry entry = entries.get(victim);
+        return entry != null ? Map.entry(victim, entry) : null;
+    }
+
+    /**
+     * 移除缓存条目（调用方持有 admissionLock）
+     *
+     * @param file  文件路径
+     * @param entry 缓存条目
+     */
+    private void remove(Path file, CacheEntry entry) {
+        if (!entries.remove(file, entry)) {
+            return;
+        }
+        usedBytes.addAndGet(-entry.length);
+
+        // 与末尾元素交换后删除，保持 O(1)
+        Integer index = residentIndex.remove(file);
+        if (index != null) {
+            Path last = residents.remove(residents.size() - 1);
+            if (index < residents.size()) {
+                residents.set(index, last);
+                residentIndex.put(last, index);
+            }
+        }
+    }
+
+    /**
+     * 增加播放频率
+     *
+     * @param file 文件路径
+     * @return 增加后的估计频率
+     */
+    private int increment(Path file) {
+        int hash = file.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            int value = sketch.incrementAndGet(index(row, hash));
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    /**
+     * 查询播放频率估计值
+     *
+     * @param file 文件路径
+     * @return 估计频率
+     */
+    private int frequency(Path file) {
+        int hash = file.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            min = Math.min(min, sketch.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    /**
+     * 计算 Sketch 下标
+     */
+    private int index(int row, int hash) {
+        int h = (hash ^ SKETCH_SEEDS[row]) * 0x9E3779B1;
+        h ^= h >>> 16;
+        return row * SKETCH_WIDTH + (h & (SKETCH_WIDTH - 1));
+    }
+
+    /**
+     * 定期衰减播放频率
+     *
+     * <p>所有计数原子地减半（与并发的播放计数不会相互覆盖），使准入判断基于近期热度</p>
+     * <p>执行间隔：由配置文件指定（默认10分钟）</p>
+     */
+    @Scheduled(fixedDelayString = "#{@audioStreamProperties.hotCache.decayIntervalMinutes * 60 * 1000}")
+    public void decayFrequencies() {
+        for (int i = 0; i < sketch.length(); i++) {
+            if (sketch.get(i) > 0) {
+                sketch.updateAndGet(i, value -> value >>> 1);
+            }
+        }
+        log.debug("热门缓存频率衰减完成，缓存文件数: {}，已用: {} MB", entries.size(), usedBytes.get() / 1024 / 1024);
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static final class CacheEntry {
+
+        private final MappedByteBuffer buffer;
+
+        private final long length;
+
+        private final long lastModified;
+
+        private CacheEntry(MappedByteBuffer buffer, long length, long lastModified) {
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        private boolean matches(long fileLength, long fileLastModified) {
+            return length == fileLength && lastModified == fileLastModified;
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.naruto.wangyiyunmusic.config.properties.AudioMediaProperties;
+import com.naruto.wangyiyunmusic.config.properties.AudioStreamProperties;
+import com.naruto.wangyiyunmusic.model.entity.AudioFileMetadata;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.service.MusicService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 音频元数据索引服务
+ *
+ * <p>在内存中维护 文件相对路径 -> {@link AudioFileMetadata} 的索引：</p>
+ * <ul>
+ *   <li>应用启动后在后台线程扫描音频存储目录构建索引</li>
+ *   <li>通过 WatchService 监听目录变更，增量刷新新增/修改/删除的文件</li>
+ *   <li>ETag 基于文件内容摘要（强 ETag），文件未变化（大小、修改时间一致）时复用，不重复计算</li>
+ *   <li>摘要按 相对路径+大小+修改时间 持久化到快照文件，重启后只为变化的文件重新计算</li>
+ *   <li>转码目录、HLS 分段目录与写入中的临时文件（*.part）不建立索引、不监听</li>
+ * </ul>
+ *
+ * <p>流式传输和音频URL生成直接读取索引，条件请求（If-None-Match / If-Range）无需访问磁盘即可返回 304</p>
+ * <p>内容版本（ETag 摘要前16位）用于生成内容寻址URL（/audio/v/{版本}/{相对路径}），文件内容变化时URL随之变化</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class AudioMetadataIndexService {
+
+    /**
+     * 内容寻址URL路径前缀（相对于 /audio/）
+     */
+    public static final String VERSION_PATH_PREFIX = "v/";
+
+    /**
+     * 内容版本长度（十六进制字符数）
+     */
+    private static final int VERSION_LENGTH = 16;
+
+    /**
+     * 内容寻址路径匹配规则：v/{版本}/{相对路径}
+     */
+    private static final Pattern VERSIONED_PATH = Pattern.compile("^/*v/([0-9a-f]{" + VERSION_LENGTH + "})/(.+)$");
+
+    /**
+     * 写入中的临时文件后缀（转码、HLS 分段先写入临时文件再原子移动）
+     */
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    @Autowired
+    private AudioStreamProperties streamProperties;
+
+    @Autowired
+    private AudioMediaProperties mediaProperties;
+
+    @Autowired
+    private MusicService musicService;
+
+    /**
+     * 音频文件存储路径（如: file:/data/music-data/audio/）
+     */
+    @Value("${audio.storage-path}")
+    private String audioStoragePath;
+
+    /**
+     * 音频存储根目录（规范化后的绝对路径）
+     */
+    private Path storageRoot;
+
+    /**
+     * 相对路径 -> 文件元数据
+     */
+    private final ConcurrentHashMap<String, AudioFileMetadata> index = new ConcurrentHashMap<>();
+
+    /**
+     * 相对路径 -> 时长（秒），来自音乐表
+     */
+    private volatile Map<String, Integer> durations = Map.of();
+
+    /**
+     * 快照中读取的摘要：相对路径 -> 快照条目（全量构建完成后清空）
+     */
+    private volatile Map<String, AudioFileMetadata> snapshot = Map.of();
+
+    /**
+     * 不建立索引的目录（转码目录、HLS 分段目录）
+     */
+    private Set<Path> excludedDirectories = Set.of();
+
+    /**
+     * 目录监听服务
+     */
+    private WatchService watchService;
+
+    /**
+     * 监听Key -> 被监听目录
+     */
+    private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+    /**
+     * 索引构建与目录监听线程
+     */
+    private Thread indexThread;
+
+    /**
+     * 初始化音频存储根目录
+     */
+    @PostConstruct
+    public void init() throws FileNotFoundException {
+        this.storageRoot = ResourceUtils.getFile(audioStoragePath).toPath().toAbsolutePath().normalize();
+        this.excludedDirectories = Set.of(
+                storageRoot.resolve(mediaProperties.getTranscode().getRenditionDir()).normalize(),
+                storageRoot.resolve(mediaProperties.getHls().getOutputDir()).normalize());
+    }
+
+    /**
+     * 应用启动完成后在后台构建索引并开始监听目录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AudioStreamProperties.MetadataIndexConfig config = streamProperties.getMetadataIndex();
+        if (!config.getEnabled()) {
+            log.info("音频元数据索引已禁用");
+            return;
+        }
+
+        if (!Files.isDirectory(storageRoot)) {
+            log.warn("⚠️ 音频存储目录不存在，跳过元数据索引构建: {}", storageRoot);
+            return;
+        }
+
+        indexThread = new Thread(() -> {
+            loadSnapshot();
+            rebuild();
+            if (config.getWatchEnabled()) {
+                watchLoop(config.getWatchDebounceMillis(), config.getWatchMaxDelayMillis());
+            }
+        }, "audio-metadata-index");
+        indexThread.setDaemon(true);
+        indexThread.start();
+    }
+
+    /**
+     * 停止目录监听
+     */
+    @PreDestroy
+    public void stop() {
+        if (indexThread != null) {
+            indexThread.interrupt();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("关闭目录监听失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 查询文件元数据
+     *
+     * @param relativePath 相对于音频存储目录的路径
+     * @return 文件元数据，未索引时返回null
+     */
+    public AudioFileMetadata lookup(String relativePath) {
+        if (!StringUtils.hasText(relativePath)) {
+            return null;
+        }
+        return index.get(normalizeKey(relativePath));
+    }
+
+    /**
+     * 查询文件内容版本
+     *
+     * @param relativePath 相对于音频存储目录的路径
+     * @return 内容版本（ETag 摘要前16位），未索引时返回null
+     */
+    public String version(String relativePath) {
+        return versionOf(lookup(relativePath));
+    }
+
+    /**
+     * 从元数据的 ETag 中取出内容版本
+     *
+     * @param metadata 文件元数据（可为null）
+     * @return 内容版本（ETag 摘要前16位），ETag 缺失或格式不符时返回null
+     */
+    public static String versionOf(AudioFileMetadata metadata) {
+        if (metadata == null || metadata.getEtag() == null || metadata.getEtag().length() < VERSION_LENGTH + 2) {
+            return null;
+        }
+        return metadata.getEtag().substring(1, VERSION_LENGTH + 1);
+    }
+
+    /**
+     * 解析内容寻址路径
+     *
+     * @param path 请求路径（如: v/0123456789abcdef/jay/晴天.mp3）
+     * @return [版本, 相对路径]，不是内容寻址路径时返回 [null, 原路径]
+     */
+    public static String[] parseVersionedPath(String path) {
+        Matcher matcher = VERSIONED_PATH.matcher(path);
+        if (!matcher.matches()) {
+            return new String[]{null, path};
+        }
+        return new String[]{matcher.group(1), matcher.group(2)};
+    }
+
+    /**
+     * 全量重建索引
+     *
+     * <p>未变化的文件复用已计算的 ETag，已删除的文件从索引中移除</p>
+     */
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        loadDurations();
+
+        Set<String> seen = new HashSet<>();
+        try (Stream<Path> paths = Files.walk(storageRoot)) {
+            paths.filter(this::isIndexable).forEach(path -> {
+                AudioFileMetadata metadata = indexFile(path);
+                if (metadata != null) {
+                    seen.add(metadata.getRelativePath());
+                }
+            });
+        } catch (IOException e) {
+            log.error("❌ 扫描音频存储目录失败: {}", storageRoot, e);
+            return;
+        }
+
+        index.keySet().retainAll(seen);
+        snapshot = Map.of();
+        saveSnapshot();
+        log.info("✅ 音频元数据索引构建完成，文件数: {}，耗时: {} ms",
+                index.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 是否为需要索引的文件（排除转码目录、HLS 分段目录与写入中的临时文件）
+     */
+    private boolean isIndexable(Path path) {
+        return Files.isRegularFile(path) && !path.getFileName().toString().endsWith(PARTIAL_SUFFIX)
+                && !isExcludedDirectory(path);
+    }
+
+    /**
+     * 路径是否位于排除目录下（含排除目录本身）
+     */
+    private boolean isExcludedDirectory(Path path) {
+        for (Path excluded : excludedDirectories) {
+            if (path.startsWith(excluded)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 索引单个文件
+     *
+     * @param path 文件绝对路径
+     * @return 文件元数据，读取失败时返回null
+     */
+    private AudioFileMetadata indexFile(Path path) {
+        String key = toKey(path);
+        try {
+            long size = Files.size(path);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+            AudioFileMetadata existing = index.get(key);
+            if (existing == null) {
+                existing = snapshot.get(key);
+            }
+            String etag;
+            if (existing != null && existing.getSize() == size && existing.getLastModified() == lastModified) {
+                etag = existing.getEtag();
+            } else {
+                etag = "\"" + DigestUtil.sha256Hex(path.toFile()).substring(0, 32) + "\"";
+            }
+
+            AudioFileMetadata metadata = new AudioFileMetadata();
+            metadata.setRelativePath(key);
+            metadata.setFilePath(path);
+            metadata.setSize(size);
+            metadata.setLastModified(lastModified);
+            metadata.setEtag(etag);
+            metadata.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+            metadata.setDuration(durations.get(key));
+
+            index.put(key, metadata);
+            log.debug("索引音频文件: {} ({} KB)", key, size / 1024);
+            return metadata;
+        } catch (IOException e) {
+            log.warn("索引音频文件失败: {}, 原因: {}", path, e.getMessage());
+            index.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * 从音乐表加载时长信息
+     */
+    private void loadDurations() {
+        try {
+            List<Music> musicList = musicService.list(new LambdaQueryWrapper<Music>()
+                    .select(Music::getFileUrl, Music::getDuration)
+                    .isNotNull(Music::getFileUrl));
+
+            Map<String, Integer> loaded = new HashMap<>();
+            for (Music music : musicList) {
+                if (StringUtils.hasText(music.getFileUrl()) && music.getDuration() != null) {
+                    loaded.put(normalizeKey(music.getFileUrl()), music.getDuration());
+                }
+            }
+            this.durations = loaded;
+        } catch (Exception e) {
+            log.warn("加载音乐时长失败，索引中时长将为空: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取摘要快照
+     *
+     * <p>每行格式：相对路径 \t 大小 \t 修改时间 \t ETag；快照不存在或损坏时全部重新计算</p>
+     */
+    private void loadSnapshot() {
+        Path file = snapshotFile();
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+
+        Map<String, AudioFileMetadata> loaded = new HashMap<>();
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                String[] fields = line.split("\t");
+                if (fields.length != 4) {
+                    return;
+                }
+                AudioFileMetadata metadata = new AudioFileMetadata();
+                metadata.setSize(Long.parseLong(fields[1]));
+                metadata.setLastModified(Long.parseLong(fields[2]));
+                metadata.setEtag(fields[3]);
+                loaded.put(fields[0], metadata);
+            });
+            this.snapshot = loaded;
+            log.info("读取音频摘要快照: {} 条", loaded.size());
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ 读取音频摘要快照失败，将重新计算全部摘要: {}, 原因: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 写入摘要快照（先写临时文件再原子替换）
+     */
+    private void saveSnapshot() {
+        Path file = snapshotFile();
+        if (file == null) {
+            return;
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + PARTIAL_SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (AudioFileMetadata metadata : index.values()) {
+                    String key = metadata.getRelativePath();
+                    if (metadata.getEtag() == null || key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0) {
+                        continue;
+                    }
+                    writer.write(key + "\t" + metadata.getSize() + "\t" + metadata.getLastModified()
+                            + "\t" + metadata.getEtag());
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("⚠️ 写入音频摘要快照失败: {}, 原因: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 快照文件路径，未配置时返回null
+     */
+    private Path snapshotFile() {
+        String path = streamProperties.getMetadataIndex().getSnapshotPath();
+        return StringUtils.hasText(path) ? Path.of(path).toAbsolutePath().normalize() : null;
+    }
+
+    /**
+     * 目录监听循环
+     *
+     * <p>变更事件先合并到待刷新集合，静默 debounce 时长后再统一刷新，避免文件写入期间反复计算摘要；
+     * 事件持续不断时，距第一个未刷新事件超过最长等待时长也会刷新一次</p>
+     *
+     * @param debounceMillis 合并等待时长（毫秒）
+     * @param maxDelayMillis 最长等待时长（毫秒）
+     */
+    private void watchLoop(long debounceMillis, long maxDelayMillis) {
+        try {
+            watchService = storageRoot.getFileSystem().newWatchService();
+            registerRecursively(storageRoot);
+            log.info("👀 开始监听音频存储目录变更: {}", storageRoot);
+        } catch (IOException e) {
+            log.error("❌ 注册目录监听失败，索引将不会自动刷新: {}", storageRoot, e);
+            return;
+        }
+
+        Set<Path> dirtyPaths = new HashSet<>();
+        boolean rescanRequired = false;
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        // 第一个未刷新事件的时间
+        long firstDirtyAt = 0;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            boolean pending = rescanRequired || !dirtyPaths.isEmpty();
+            long waitMillis = debounceMillis;
+            if (pending) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(maxDelayNanos - (System.nanoTime() - firstDirtyAt));
+                waitMillis = Math.max(0, Math.min(debounceMillis, remaining));
+            }
+
+            WatchKey key;
+            try {
+                key = watchService.poll(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if (key != null) {
+                Path directory = watchedDirectories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                        rescanRequired = true;
+                        continue;
+                    }
+                    Path path = directory.resolve((Path) event.context());
+                    if (!path.getFileName().toString().endsWith(PARTIAL_SUFFIX) && !isExcludedDirectory(path)) {
+                        dirtyPaths.add(path);
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirectories.remove(key);
+                }
+                if (!pending && (rescanRequired || !dirtyPaths.isEmpty())) {
+                    firstDirtyAt = System.nanoTime();
+                }
+            }
+
+            // 静默期或超过最长等待时长：统一刷新
+            boolean overdue = pending && System.nanoTime() - firstDirtyAt >= maxDelayNanos;
+            if (key != null && !overdue) {
+                continue;
+            }
+            if (rescanRequired) {
+                rebuild();
+                rescanRequired = false;
+                dirtyPaths.clear();
+            } else if (!dirtyPaths.isEmpty()) {
+                dirtyPaths.forEach(this::refreshPath);
+                dirtyPaths.clear();
+                saveSnapshot();
+            }
+        }
+
+        log.info("音频存储目录监听已停止");
+    }
+
+    /**
+     * 刷新变更路径
+     *
+     * @param path 发生变更的文件或目录
+     */
+    private void refreshPath(Path path) {
+        if (Files.isDirectory(path)) {
+            // 新目录：注册监听并索引其中的文件
+            try {
+                registerRecursively(path);
+                try (Stream<Path> paths = Files.walk(path)) {
+                    paths.filter(this::isIndexable).forEach(this::indexFile);
+                }
+            } catch (IOException e) {
+                log.warn("刷新目录索引失败: {}, 原因: {}", path, e.getMessage());
+            }
+        } else if (Files.isRegularFile(path)) {
+            indexFile(path);
+        } else {
+            // 已删除：移除文件本身及目录下的所有条目
+            String key = toKey(path);
+            String prefix = key + "/";
+            index.keySet().removeIf(k -> k.equals(key) || k.startsWith(prefix));
+            log.debug("移除音频文件索引: {}", key);
+        }
+    }
+
+    /**
+     * 递归注册目录监听
+     *
+     * @param directory 目录
+     * @throws IOException 注册失败
+     */
+    private void registerRecursively(Path directory) throws IOException {
+        List<Path> directories;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            directories = paths.filter(Files::isDirectory).filter(dir -> !isExcludedDirectory(dir))
+                    .collect(Collectors.toList());
+        }
+        for (Path dir : directories) {
+            WatchKey key = dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirectories.put(key, dir);
+        }
+    }
+
+    /**
+     * 文件绝对路径转换为索引Key
+     */
+    private String toKey(Path path) {
+        return normalizeKey(storageRoot.relativize(path).toString());
+    }
+
+    /**
+     * 规范化索引Key（统一使用 / 分隔，去掉开头的 /）
+     */
+    private String normalizeKey(String relativePath) {
+        String key = relativePath.replace('\\', '/');
+        while (key.startsWith("/")) {
+            key = key.substring(1);
+        }
+        return key;
+    }
+}
@@ -1,7 +1,10 @@
 package com.naruto.wangyiyunmusic.service.impl;
 
+import com.naruto.wangyiyunmusic.config.properties.AudioStreamProperties;
 import com.naruto.wangyiyunmusic.exception.BusinessException;
+import com.naruto.wangyiyunmusic.model.entity.AudioFileMetadata;
 import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.model.enums.AudioQuality;
 import com.naruto.wangyiyunmusic.model.vo.AudioUrlVO;
 import com.naruto.wangyiyunmusic.service.AudioService;
 import com.naruto.wangyiyunmusic.service.MusicService;
@@ -11,6 +14,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
  * 音频服务实现类
  *
@@ -26,6 +37,21 @@ public class AudioServiceImpl implements AudioService {
     @Autowired
     private MusicService musicService;
 
+    @Autowired
+    private AudioMetadataIndexService metadataIndexService;
+
+    @Autowired
+    private AudioUrlSignService urlSignService;
+
+    @Autowired
+    private AudioTranscodeService transcodeService;
+
+    @Autowired
+    private AudioHlsService hlsService;
+
+    @Autowired
+    private AudioStreamProperties streamProperties;
+
     /**
      * 服务器基础URL（如: http://localhost:8910）
      */
@@ -38,14 +64,22 @@ public class AudioServiceImpl implements AudioService {
     @Value("${audio.url-prefix}")
     private String audioUrlPrefix;
 
+    /**
+     * 批量获取音频URL单次最多音乐数量
+     */
+    @Value("${audio.batch-max-size:200}")
+    private int batchMaxSize;
+
     /**
      * 根据音乐ID获取音频访问URL
      *
      * @param musicId 音乐ID
+     * @param clientIp 客户端IP（签名绑定）
+     * @param quality 音质
      * @return 音频URL信息
      */
     @Override
-    public AudioUrlVO getAudioUrl(Long musicId) {
+    public AudioUrlVO getAudioUrl(Long musicId, String clientIp, AudioQuality quality) {
         log.info("获取音频URL请求, musicId: {}", musicId);
 
         // 1. 查询音乐信息
@@ -62,23 +96,99 @@ public class AudioServiceImpl implements AudioService {
             throw new BusinessException("该音乐暂无音频文件");
         }
 
-        // 3. 构建完整的音频访问URL
-        String audioUrl = buildAudioUrl(fileUrl);
+        // 3. 构建返回对象
+        AudioUrlVO vo = buildAudioUrlVO(music, clientIp, quality);
 
-        // 4. 提取文件名（取最后一部分）
-        String fileName = extractFileName(fileUrl);
+        log.info("音频URL生成成功, musicId: {}, title: {}, audioUrl: {}",
+                musicId, music.getTitle(), vo.getAudioUrl());
+
+        return vo;
+    }
+
+    /**
+     * 批量获取音频访问URL
+     *
+     * @param musicIds 音乐ID列表
+     * @param clientIp 客户端IP（签名绑定）
+     * @param quality 音质
+     * @return 音频URL信息列表（按请求顺序）
+     */
+    @Override
+    public List<AudioUrlVO> getAudioUrls(List<Long> musicIds, String clientIp, AudioQuality quality) {
+        // 1. 去重（保持顺序）并校验数量
+        List<Long> ids = musicIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (ids.size() > batchMaxSize) {
+            throw new BusinessException("单次最多获取 " + batchMaxSize + " 首音乐的音频URL");
+        }
+
+        // 2. 单次 IN 查询
+        Map<Long, Music> musicMap = musicService.listByIds(ids).stream()
+                .collect(Collectors.toMap(Music::getId, Function.identity()));
+
+        // 3. 按请求顺序构建返回对象，跳过不存在或无音频文件的音乐
+        List<AudioUrlVO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Music music = musicMap.get(id);
+            if (music == null || !StringUtils.hasText(music.getFileUrl())) {
+                continue;
+            }
+            result.add(buildAudioUrlVO(music, clientIp, quality));
+        }
+
+        log.info("批量获取音频URL完成, 请求数: {}, 返回数: {}", ids.size(), result.size());
+        return result;
+    }
+
+    /**
+     * 构建音频URL返回对象
+     *
+     * @param music 音乐信息（fileUrl 不为空）
+     * @param clientIp 客户端IP（签名绑定）
+     * @param quality 音质
+     * @return 音频URL信息
+     */
+    private AudioUrlVO buildAudioUrlVO(Music music, String clientIp, AudioQuality quality) {
+        // 1. 选择实际返回的文件（转码文件不可用时返回原始文件）
+        String fileUrl = transcodeService.selectFile(music.getFileUrl(), quality);
+        boolean transcoded = !fileUrl.equals(music.getFileUrl());
+
+        // 2. 构建完整的音频访问URL（已索引时使用内容寻址路径，启用时附加签名），提取文件名
+        String audioUrl = buildAudioUrl(fileUrl);
+        if (urlSignService.isEnabled()) {
+            audioUrl = audioUrl + "?" + urlSignService.sign(fileUrl, clientIp);
+        }
 
-        // 5. 构建返回对象
         AudioUrlVO vo = new AudioUrlVO();
         vo.setAudioUrl(audioUrl);
         vo.setMusicId(music.getId());
         vo.setTitle(music.getTitle());
-        vo.setFileName(fileName);
+        vo.setFileName(extractFileName(fileUrl));
         vo.setDuration(music.getDuration());
+        vo.setQuality(transcoded ? quality.getCode() : AudioQuality.ORIGINAL.getCode());
+        vo.setBitrate(transcoded ? quality.getBitrate() : null);
 
-        log.info("音频URL生成成功, musicId: {}, title: {}, audioUrl: {}",
-                musicId, music.getTitle(), audioUrl);
+        // 3. 长音频附加 HLS 播放列表地址（分段生成前为空，启用时附加分段目录的签名）
+        String playlist = hlsService.playlistPath(music.getFileUrl(), music.getDuration());
+        if (playlist != null) {
+            String hlsUrl = trimTrailingSlash(serverBaseUrl) + "/hls/" + playlist;
+            if (urlSignService.isEnabled()) {
+                hlsUrl = hlsUrl + "?" + urlSignService.sign(AudioHlsService.tokenScope(playlist), clientIp);
+            }
+            vo.setHlsUrl(hlsUrl);
+        }
 
+        // 4. 补充文件元数据（读取内存索引，不访问磁盘）
+        AudioFileMetadata metadata = metadataIndexService.lookup(fileUrl);
+        if (metadata != null) {
+            vo.setFileSize(metadata.getSize());
+            vo.setContentType(metadata.getContentType());
+        }
         return vo;
     }
 
@@ -103,14 +213,26 @@ public class AudioServiceImpl implements AudioService {
             prefix = prefix + "/";
         }
 
-        // 确保 serverBaseUrl 结尾没有斜杠
-        String baseUrl = serverBaseUrl;
-        if (baseUrl.endsWith("/")) {
-            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        // 已索引的文件使用内容寻址路径: http://服务器地址/audio/v/内容版本/文件名
+        if (streamProperties.getVersionedUrlEnabled()) {
+            String version = metadataIndexService.version(fileUrl);
+            if (version != null) {
+                prefix = prefix + AudioMetadataIndexService.VERSION_PATH_PREFIX + version + "/";
+            }
         }
 
         // 拼接完整URL: http://服务器地址/audio/文件名
-        return baseUrl + prefix + fileUrl;
+        return trimTrailingSlash(serverBaseUrl) + prefix + fileUrl;
+    }
+
+    /**
+     * 去掉URL结尾的斜杠
+     *
+     * @param url URL
+     * @return 结尾没有斜杠的URL
+     */
+    private String trimTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
     }
 
     /**
@@ -0,0 +1,638 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioStreamProperties;
+import com.naruto.wangyiyunmusic.filter.AudioRateLimitFilter;
+import com.naruto.wangyiyunmusic.model.entity.AudioFileMetadata;
+import com.naruto.wangyiyunmusic.service.AudioStreamService;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 音频流式传输服务实现类
+ *
+ * <p>替代通用的 ResourceHttpRequestHandler，减少 Range 请求在堆内存中的拷贝：</p>
+ * <ul>
+ *   <li>热门音频：无法使用 sendfile 时查询 {@link AudioHotCacheService}，命中则直接从内存映射区域写出</li>
+ *   <li>单区间/完整请求：容器支持时使用 Tomcat sendfile，由内核直接把文件写入 Socket</li>
+ *   <li>不支持 sendfile 或多区间请求：从 FileChannel 分块读取后写入响应输出流（经过输出缓冲区拷贝，并非零拷贝）</li>
+ *   <li>多区间请求：重叠/相邻区间先合并，区间数超过上限或总长度超过文件长度时返回 416，再按 multipart/byteranges 格式输出</li>
+ *   <li>带宽调度：启用时每个分块写出前向 {@link AudioBandwidthScheduler} 申请令牌，并改用 transferTo 分块写出</li>
+ *   <li>异步写出：启用时非 sendfile 的响应体由 {@link AudioAsyncWriter} 基于 WriteListener 非阻塞写出</li>
+ * </ul>
+ *
+ * <p>文件大小、修改时间、ETag、MIME 类型优先读取 {@link AudioMetadataIndexService}，
+ * 条件请求（If-None-Match / If-Modified-Since / If-Range）无需访问磁盘</p>
+ *
+ * <p>注意：sendfile 的数据发送阶段在 Servlet 返回后由容器完成，应用拿不到传输结束的回调；
+ * 占用了限流并发连接名额的请求（{@link AudioRateLimitFilter#CONNECTION_SLOT_ATTR}）使用 sendfile 时，
+ * 以 {@link AudioRateLimitFilter#SENDFILE_BYTES_ATTR} 标记传输字节数，由限流过滤器按估算的传输时长保留名额</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-08
+ */
+@Slf4j
+@Service
+public class AudioStreamServiceImpl implements AudioStreamService {
+
+    /**
+     * Tomcat sendfile 相关请求属性
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * HLS 分段 MIME 类型
+     */
+    private static final MediaType MPEG_TS = MediaType.parseMediaType("video/mp2t");
+
+    @Autowired
+    private AudioStreamProperties streamProperties;
+
+    @Autowired
+    private AudioHotCacheService hotCacheService;
+
+    @Autowired
+    private AudioMetadataIndexService metadataIndexService;
+
+    @Autowired
+    private AudioBandwidthScheduler bandwidthScheduler;
+
+    @Autowired
+    private AudioUrlSignService urlSignService;
+
+    /**
+     * 音频文件存储路径（如: file:/data/music-data/audio/）
+     */
+    @Value("${audio.storage-path}")
+    private String audioStoragePath;
+
+    /**
+     * 音频存储根目录（规范化后的绝对路径）
+     */
+    private Path storageRoot;
+
+    /**
+     * 初始化音频存储根目录
+     */
+    @PostConstruct
+    public void init() throws FileNotFoundException {
+        this.storageRoot = ResourceUtils.getFile(audioStoragePath).toPath().toAbsolutePath().normalize();
+        log.info("✅ 音频流式传输服务初始化完成，存储目录: {}, sendfile: {}, 带宽调度: {}",
+                storageRoot, streamProperties.getSendfileEnabled() ? "启用" : "禁用",
+                bandwidthScheduler.isEnabled() ? "启用" : "禁用");
+    }
+
+    @Override
+    public void streamAudio(String filePath, String version, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        // 1. 查询文件元数据（优先读取索引，未索引时访问磁盘）
+        AudioFileMetadata metadata = resolveMetadata(filePath);
+        if (metadata == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path file = metadata.getFilePath();
+        long fileLength = metadata.getSize();
+        long lastModified = metadata.getLastModified();
+
+        // 2. 条件请求（If-None-Match / If-Modified-Since），命中时已写入 304
+        if (new ServletWebRequest(request, response).checkNotModified(metadata.getEtag(), lastModified)) {
+            return;
+        }
+
+        // 3. 公共响应头
+        MediaType mediaType = MediaType.parseMediaType(metadata.getContentType());
+        if (filePath.endsWith(".ts")) {
+            // HLS 分段（Spring 内置 MIME 表未收录 .ts）
+            mediaType = MPEG_TS;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // 内容寻址URL且版本与当前文件一致时，浏览器与 CDN 可长期缓存，重复播放不再回源；
+        // 启用签名URL时不加 immutable：同一内容的URL随签名变化，CDN 缓存键需忽略 e/s 参数（见 audio.security.signed-url）
+        boolean versioned = version != null && version.equals(AudioMetadataIndexService.versionOf(metadata));
+        if (versioned && urlSignService.isEnabled()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    "public, max-age=" + streamProperties.getImmutableCacheSeconds());
+        } else if (versioned) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                    "public, max-age=" + streamProperties.getImmutableCacheSeconds() + ", immutable");
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=" + streamProperties.getCacheSeconds());
+        }
+
+        boolean headRequest = HttpMethod.HEAD.matches(request.getMethod());
+
+        // 4. 解析 Range 请求头
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        List<HttpRange> ranges;
+        try {
+            ranges = StringUtils.hasText(rangeHeader) ? HttpRange.parseRanges(rangeHeader) : List.of();
+        } catch (IllegalArgumentException e) {
+            log.debug("Range 请求头格式错误: {}, 文件: {}", rangeHeader, filePath);
+            sendRangeNotSatisfiable(response, fileLength);
+            return;
+        }
+
+        // If-Range 不匹配（文件已变化）时忽略 Range，返回完整文件
+        if (!ranges.isEmpty() && !ifRangeMatches(request, metadata.getEtag(), lastModified)) {
+            ranges = List.of();
+        }
+
+        // 5. 校验区间是否可满足，并合并重叠/相邻区间
+        if (!ranges.isEmpty()) {
+            ranges = normalizeRanges(ranges, fileLength);
+            if (ranges == null) {
+                log.debug("Range 请求不可满足或区间过多: {}, 文件: {}", rangeHeader, filePath);
+                sendRangeNotSatisfiable(response, fileLength);
+                return;
+            }
+        }
+
+        // 6. 写出响应体（带宽调度会话在写出结束后释放公平份额，异步写出时由写出器释放）
+        AudioBandwidthScheduler.Session session = headRequest ? null : bandwidthScheduler.open();
+        try {
+            // 6.1 查询热门缓存（sendfile 可用时不查询；完整请求或从0开始的 Range 视为一次新播放）
+            ByteBuffer cached = null;
+            if (!headRequest && !willUseSendfile(request, ranges, fileLength, session)) {
+                boolean newPlay = ranges.isEmpty() || ranges.get(0).getRangeStart(fileLength) == 0;
+                cached = hotCacheService.acquire(file, fileLength, lastModified, newPlay);
+            }
+
+            // 6.2 写出
+            writeBody(request, response, file, cached, ranges, fileLength, mediaType, headRequest, session);
+        } finally {
+            if (session != null && !request.isAsyncStarted()) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * 写出响应体（完整文件、单区间或多区间）
+     *
+     * @param request     HTTP请求
+     * @param response    HTTP响应
+     * @param file        文件
+     * @param cached      热门缓存中的文件内容（未缓存时为null）
+     * @param ranges      区间列表（为空表示完整文件）
+     * @param fileLength  文件长度
+     * @param mediaType   文件媒体类型
+     * @param headRequest 是否为 HEAD 请求
+     * @param session     带宽调度会话（未启用时为null）
+     * @throws IOException 写出失败
+     */
+    private void writeBody(HttpServletRequest request, HttpServletResponse response, Path file, ByteBuffer cached,
+                           List<HttpRange> ranges, long fileLength, MediaType mediaType, boolean headRequest,
+                           AudioBandwidthScheduler.Session session) throws IOException {
+        // 7.1 完整文件
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(fileLength);
+            if (!headRequest) {
+                writeRange(request, response, file, cached, 0, fileLength, session);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        // 7.2 单区间
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(fileLength);
+            long end = ranges.get(0).getRangeEnd(fileLength);
+            long length = end - start + 1;
+
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength);
+            if (!headRequest) {
+                writeRange(request, response, file, cached, start, length, session);
+            }
+            return;
+        }
+
+        // 7.3 多区间（multipart/byteranges）
+        writeMultipleRanges(request, response, file, cached, ranges, fileLength, mediaType, headRequest, session);
+    }
+
+    /**
+     * 校验并规范化区间列表
+     *
+     * <p>拒绝区间数超过上限、起始偏移越界、区间总长度超过文件长度（大量重叠区间放大响应体）的请求；
+     * 其余区间按起始偏移排序，重叠或相邻的区间合并为一个</p>
+     *
+     * @param ranges     解析出的区间
+     * @param fileLength 文件长度
+     * @return 规范化后的区间列表，不可满足时返回null
+     */
+    private List<HttpRange> normalizeRanges(List<HttpRange> ranges, long fileLength) {
+        if (ranges.size() > streamProperties.getMaxRanges()) {
+            return null;
+        }
+
+        // 1. 解析为 [start, end]，校验越界与总长度
+        List<long[]> bounds = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(fileLength);
+            if (start >= fileLength) {
+                return null;
+            }
+            long end = range.getRangeEnd(fileLength);
+            total += end - start + 1;
+            bounds.add(new long[]{start, end});
+        }
+        if (total > fileLength) {
+            return null;
+        }
+        if (bounds.size() == 1) {
+            return ranges;
+        }
+
+        // 2. 排序后合并重叠/相邻区间
+        bounds.sort(Comparator.comparingLong(bound -> bound[0]));
+        List<HttpRange> merged = new ArrayList<>(bounds.size());
+        long start = bounds.get(0)[0];
+        long end = bounds.get(0)[1];
+        for (long[] bound : bounds.subList(1, bounds.size())) {
+            if (bound[0] <= end + 1) {
+                end = Math.max(end, bound[1]);
+                continue;
+            }
+            merged.add(HttpRange.createByteRange(start, end));
+            start = bound[0];
+            end = bound[1];
+        }
+        merged.add(HttpRange.createByteRange(start, end));
+        return merged;
+    }
+
+    /**
+     * 查询文件元数据
+     *
+     * <p>优先读取元数据索引；未索引（索引构建中或文件刚写入）时访问磁盘，此时不提供 ETag</p>
+     *
+     * @param filePath 相对路径
+     * @return 文件元数据，不存在时返回null
+     * @throws IOException 读取文件属性失败
+     */
+    private AudioFileMetadata resolveMetadata(String filePath) throws IOException {
+        AudioFileMetadata metadata = metadataIndexService.lookup(filePath);
+        if (metadata != null) {
+            return metadata;
+        }
+
+        Path file = resolveFile(filePath);
+        if (file == null) {
+            return null;
+        }
+
+        metadata = new AudioFileMetadata();
+        metadata.setFilePath(file);
+        metadata.setSize(Files.size(file));
+        metadata.setLastModified(Files.getLastModifiedTime(file).toMillis());
+        metadata.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        return metadata;
+    }
+
+    /**
+     * 判断 If-Range 条件是否满足
+     *
+     * <p>ETag 使用强比较（弱 ETag 永不匹配），日期需与最后修改时间（秒级）完全一致</p>
+     *
+     * @param request      HTTP请求
+     * @param etag         当前ETag（可为null）
+     * @param lastModified 最后修改时间
+     * @return true-满足（按 Range 返回），false-不满足（返回完整文件）
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (!StringUtils.hasText(ifRange)) {
+            return true;
+        }
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && ifRange.equals(etag);
+        }
+
+        try {
+            long ifRangeTime = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeTime != -1 && ifRangeTime / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析并校验文件路径
+     *
+     * @param filePath 相对路径
+     * @return 文件路径，不存在或越界时返回null
+     */
+    private Path resolveFile(String filePath) {
+        if (!StringUtils.hasText(filePath)) {
+            return null;
+        }
+
+        String relativePath = filePath.startsWith("/") ? filePath.substring(1) : filePath;
+        Path file = storageRoot.resolve(relativePath).normalize();
+
+        // 防止 ../ 目录穿越
+        if (!file.startsWith(storageRoot)) {
+            log.warn("非法音频路径访问: {}", filePath);
+            return null;
+        }
+
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            log.debug("音频文件不存在: {}", file);
+            return null;
+        }
+
+        return file;
+    }
+
+    /**
+     * 写出单个连续区间
+     *
+     * <p>未命中热门缓存、未启用带宽调度且容器支持 sendfile 时交给 Tomcat 完成零拷贝传输，
+     * 否则通过 {@link #writeParts} 从热门缓存或 FileChannel 写出</p>
+     *
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @param file     文件
+     * @param cached   热门缓存中的文件内容（未缓存时为null）
+     * @param start    起始偏移
+     * @param length   字节数
+     * @param session  带宽调度会话（未启用时为null）
+     * @throws IOException 写出失败
+     */
+    private void writeRange(HttpServletRequest request, HttpServletResponse response, Path file, ByteBuffer cached,
+                            long start, long length, AudioBandwidthScheduler.Session session) throws IOException {
+        if (cached == null && session == null && canUseSendfile(request, length)) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + length);
+            if (request.getAttribute(AudioRateLimitFilter.CONNECTION_SLOT_ATTR) != null) {
+                request.setAttribute(AudioRateLimitFilter.SENDFILE_BYTES_ATTR, length);
+            }
+            log.debug("sendfile 传输: {}, 区间: {}-{}", file.getFileName(), start, start + length - 1);
+            return;
+        }
+
+        writeParts(request, response, file, cached, List.of(AudioAsyncWriter.Part.region(start, length)), session);
+    }
+
+    /**
+     * 写出多区间响应（multipart/byteranges）
+     *
+     * @param response    HTTP响应
+     * @param file        文件
+     * @param cached      热门缓存中的文件内容（未缓存时为null）
+     * @param ranges      区间列表
+     * @param fileLength  文件长度
+     * @param mediaType   文件媒体类型
+     * @param headRequest 是否为 HEAD 请求
+     * @param session     带宽调度会话（未启用时为null）
+     * @throws IOException 写出失败
+     */
+    private void writeMultipleRanges(HttpServletRequest request, HttpServletResponse response, Path file,
+                                     ByteBuffer cached, List<HttpRange> ranges, long fileLength, MediaType mediaType,
+                                     boolean headRequest, AudioBandwidthScheduler.Session session) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+
+        // 构建分段并计算 Content-Length
+        List<AudioAsyncWriter.Part> parts = new ArrayList<>(ranges.size() * 2 + 1);
+        long contentLength = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(fileLength);
+            long end = range.getRangeEnd(fileLength);
+            byte[] header = partHeader(boundary, mediaType, start, end, fileLength);
+            parts.add(AudioAsyncWriter.Part.bytes(header));
+            parts.add(AudioAsyncWriter.Part.region(start, end - start + 1));
+            contentLength += header.length + (end - start + 1);
+        }
+        byte[] end = partEnd(boundary);
+        parts.add(AudioAsyncWriter.Part.bytes(end));
+        contentLength += end.length;
+        response.setContentLengthLong(contentLength);
+
+        if (headRequest) {
+            return;
+        }
+
+        writeParts(request, response, file, cached, parts, session);
+    }
+
+    /**
+     * 写出响应体分段
+     *
+     * <p>启用异步写出且容器支持时交给 {@link AudioAsyncWriter} 非阻塞写出，当前线程立即返回；
+     * 否则在当前线程阻塞写出</p>
+     *
+     * @param request  HTTP请求
+     * @param response HTTP响应
+     * @param file     文件
+     * @param cached   热门缓存中的文件内容（未缓存时为null）
+     * @param parts    响应体分段
+     * @param session  带宽调度会话（未启用时为null）
+     * @throws IOException 写出失败
+     */
+    private void writeParts(HttpServletRequest request, HttpServletResponse response, Path file, ByteBuffer cached,
+                            List<AudioAsyncWriter.Part> parts, AudioBandwidthScheduler.Session session)
+            throws IOException {
+        // 在当前线程打开文件，文件不存在等错误仍由控制器处理
+        FileChannel channel = cached == null ? FileChannel.open(file, StandardOpenOption.READ) : null;
+
+        AudioStreamProperties.AsyncConfig async = streamProperties.getAsync();
+        if (async.getEnabled() && request.isAsyncSupported()) {
+            try {
+                AudioAsyncWriter.start(request, response, channel, cached, parts, bandwidthScheduler, session,
+                        async.getTimeoutMillis(), async.getBufferSize());
+            } catch (IOException | RuntimeException e) {
+                if (channel != null) {
+                    channel.close();
+                }
+                throw e;
+            }
+            return;
+        }
+
+        try (channel) {
+            ServletOutputStream out = response.getOutputStream();
+            for (AudioAsyncWriter.Part part : parts) {
+                if (part.bytes() != null) {
+                    out.write(part.bytes());
+                } else if (cached != null) {
+                    writeBuffer(cached.slice((int) part.start(), (int) part.length()), out, session);
+                } else {
+                    transfer(channel, part.start(), part.length(), out, session);
+                }
+            }
+        }
+    }
+
+    /**
+     * 将文件区间分块写入输出流
+     *
+     * <p>目标是包装输出流的通道，transferTo 会先读入临时缓冲区再写入响应输出缓冲区，
+     * 属于普通拷贝而非零拷贝，只是省去了应用层的 byte[] 管理</p>
+     *
+     * @param channel 文件通道
+     * @param start   起始偏移
+     * @param length  字节数
+     * @param out     输出流
+     * @param session 带宽调度会话（未启用时为null）
+     * @throws IOException 写出失败
+     */
+    private void transfer(FileChannel channel, long start, long length, OutputStream out,
+                          AudioBandwidthScheduler.Session session) throws IOException {
+        // 注意：不能关闭该通道，否则会关闭底层响应输出流
+        WritableByteChannel target = Channels.newChannel(out);
+        long chunkSize = streamProperties.getTransferChunkSize();
+        long position = start;
+        long remaining = length;
+
+        while (remaining > 0) {
+            long count = session != null ? session.acquire(remaining) : Math.min(remaining, chunkSize);
+            long transferred = channel.transferTo(position, count, target);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    /**
+     * 将内存映射区域写入输出流
+     *
+     * <p>Tomcat 的输出流支持直接写入 ByteBuffer，避免额外的 byte[] 中转</p>
+     *
+     * @param buffer  待写出的数据
+     * @param out     输出流
+     * @param session 带宽调度会话（未启用时为null）
+     * @throws IOException 写出失败
+     */
+    private void writeBuffer(ByteBuffer buffer, OutputStream out, AudioBandwidthScheduler.Session session)
+            throws IOException {
+        if (session != null) {
+            // 按调度器分配的额度分块写出
+            while (buffer.hasRemaining()) {
+                int count = session.acquire(buffer.remaining());
+                ByteBuffer part = buffer.slice(buffer.position(), count);
+                buffer.position(buffer.position() + count);
+                writeBuffer(part, out, null);
+            }
+            return;
+        }
+
+        if (out instanceof CoyoteOutputStream coyoteOut) {
+            coyoteOut.write(buffer);
+            return;
+        }
+
+        // 注意：不能关闭该通道，否则会关闭底层响应输出流
+        WritableByteChannel target = Channels.newChannel(out);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    /**
+     * 判断本次响应体是否会交给 sendfile（完整请求或单区间、未启用带宽调度且容器支持）
+     *
+     * @param request    HTTP请求
+     * @param ranges     区间列表
+     * @param fileLength 文件长度
+     * @param session    带宽调度会话（未启用时为null）
+     * @return true-使用 sendfile
+     */
+    private boolean willUseSendfile(HttpServletRequest request, List<HttpRange> ranges, long fileLength,
+                                    AudioBandwidthScheduler.Session session) {
+        if (session != null || ranges.size() > 1) {
+            return false;
+        }
+        long length = ranges.isEmpty() ? fileLength
+                : ranges.get(0).getRangeEnd(fileLength) - ranges.get(0).getRangeStart(fileLength) + 1;
+        return canUseSendfile(request, length);
+    }
+
+    /**
+     * 判断是否可以使用 sendfile
+     *
+     * @param request HTTP请求
+     * @param length  传输字节数
+     * @return true-可以使用
+     */
+    private boolean canUseSendfile(HttpServletRequest request, long length) {
+        return streamProperties.getSendfileEnabled()
+                && length >= streamProperties.getSendfileMinSize()
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR));
+    }
+
+    /**
+     * 返回 416 Range Not Satisfiable
+     *
+     * @param response   HTTP响应
+     * @param fileLength 文件长度
+     * @throws IOException 写出失败
+     */
+    private void sendRangeNotSatisfiable(HttpServletResponse response, long fileLength) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    /**
+     * 构建 multipart 分段头
+     */
+    private byte[] partHeader(String boundary, MediaType mediaType, long start, long end, long fileLength) {
+        String header = "\r\n--" + boundary + "\r\n"
+                + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + fileLength + "\r\n\r\n";
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 构建 multipart 结束分隔符
+     */
+    private byte[] partEnd(String boundary) {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,482 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.naruto.wangyiyunmusic.config.properties.AudioMediaProperties;
+import com.naruto.wangyiyunmusic.exception.BusinessException;
+import com.naruto.wangyiyunmusic.model.entity.AudioFileMetadata;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.model.enums.AudioQuality;
+import com.naruto.wangyiyunmusic.service.MusicService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 音频转码服务
+ *
+ * <p>为每首音乐生成多档码率的转码文件（64/128/320kbps），减少慢速网络下的传输字节数与起播时间：</p>
+ * <ul>
+ *   <li>转码文件存放在存储目录下的 {renditionDir}/{码率}k/ 中，与原始文件一样通过 /audio/** 访问</li>
+ *   <li>后台线程池调用 ffmpeg 转码，先写入 .part 临时文件，完成后原子替换</li>
+ *   <li>获取URL时若转码文件缺失或过期，立即返回原始文件并提交转码任务；定时任务全量补齐缺失的转码文件</li>
+ *   <li>请求码率不低于原始文件码率时直接返回原始文件</li>
+ * </ul>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class AudioTranscodeService {
+
+    /**
+     * 转码输出格式
+     */
+    private static final String RENDITION_EXTENSION = ".mp3";
+
+    @Autowired
+    private AudioMediaProperties mediaProperties;
+
+    @Autowired
+    private AudioMetadataIndexService metadataIndexService;
+
+    @Autowired
+    private MusicService musicService;
+
+    /**
+     * 音频文件存储路径（如: file:/data/music-data/audio/）
+     */
+    @Value("${audio.storage-path}")
+    private String audioStoragePath;
+
+    /**
+     * 音频存储根目录（规范化后的绝对路径）
+     */
+    private Path storageRoot;
+
+    /**
+     * 移动端 User-Agent 匹配规则
+     */
+    private Pattern mobilePattern;
+
+    /**
+     * ffmpeg 是否可用
+     */
+    private volatile boolean available;
+
+    /**
+     * 转码线程池
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 排队或执行中的转码文件（相对路径），避免重复提交
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws FileNotFoundException {
+        this.storageRoot = ResourceUtils.getFile(audioStoragePath).toPath().toAbsolutePath().normalize();
+        this.mobilePattern = Pattern.compile(mediaProperties.getQuality().getMobileUserAgentPattern());
+
+        AudioMediaProperties.TranscodeConfig transcode = mediaProperties.getTranscode();
+        if (!transcode.getEnabled()) {
+            log.info("音频转码已禁用，始终返回原始文件");
+            return;
+        }
+
+        this.available = detectFfmpeg();
+        if (!available) {
+            log.warn("⚠️ ffmpeg 不可用（路径: {}），音频转码已禁用，始终返回原始文件", mediaProperties.getFfmpegPath());
+            return;
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(transcode.getWorkerThreads(), transcode.getWorkerThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(transcode.getQueueCapacity()), r -> {
+            Thread thread = new Thread(r, "audio-transcode-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        log.info("✅ 音频转码服务初始化完成，工作线程: {}，转码目录: {}",
+                transcode.getWorkerThreads(), storageRoot.resolve(transcode.getRenditionDir()));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * ffmpeg 是否可用（未启用转码时为false）
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 解析请求的音质
+     *
+     * @param code      音质代码（为空或 auto 时按客户端类型自动选择）
+     * @param userAgent 客户端 User-Agent
+     * @return 音质
+     * @throws BusinessException 音质代码不支持
+     */
+    public AudioQuality resolveQuality(String code, String userAgent) {
+        if (StringUtils.hasText(code) && !"auto".equalsIgnoreCase(code)) {
+            try {
+                return AudioQuality.fromCode(code);
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException(e.getMessage());
+            }
+        }
+
+        AudioMediaProperties.QualityConfig config = mediaProperties.getQuality();
+        boolean mobile = userAgent != null && mobilePattern.matcher(userAgent).find();
+        return AudioQuality.fromCode(mobile ? config.getMobileDefault() : config.getDesktopDefault());
+    }
+
+    /**
+     * 选择实际返回的音频文件
+     *
+     * <p>转码文件可用时返回转码文件，否则返回原始文件（转码文件缺失时提交后台转码）</p>
+     *
+     * @param fileUrl 原始文件相对路径
+     * @param quality 音质
+     * @return 实际返回的文件相对路径
+     */
+    public String selectFile(String fileUrl, AudioQuality quality) {
+        if (quality == AudioQuality.ORIGINAL || !available) {
+            return fileUrl;
+        }
+
+        AudioFileMetadata source = metadataIndexService.lookup(fileUrl);
+        if (source != null && notBelowSource(source, quality)) {
+            return fileUrl;
+        }
+
+        String rendition = renditionPath(fileUrl, quality);
+        if (isFresh(rendition, source != null ? source.getLastModified() : lastModified(resolve(fileUrl)))) {
+            return rendition;
+        }
+
+        submit(fileUrl, quality);
+        return fileUrl;
+    }
+
+    /**
+     * 全量扫描，为所有音乐补齐缺失或过期的转码文件
+     */
+    @Scheduled(fixedDelayString = "#{@audioMediaProperties.transcode.scanIntervalMinutes * 60 * 1000}",
+            initialDelay = 60_000L)
+    public void scanMissingRenditions() {
+        if (!available) {
+            return;
+        }
+
+        // 按主键分页读取，避免一次加载全部音乐
+        int batchSize = mediaProperties.getTranscode().getScanBatchSize();
+        long lastId = 0;
+        int scanned = 0;
+        int submitted = 0;
+        List<Music> batch;
+        do {
+            batch = musicService.list(new LambdaQueryWrapper<Music>()
+                    .select(Music::getId, Music::getFileUrl)
+                    .isNotNull(Music::getFileUrl)
+                    .gt(Music::getId, lastId)
+                    .orderByAsc(Music::getId)
+                    .last("LIMIT " + batchSize));
+            for (Music music : batch) {
+                submitted += submitMissing(music.getFileUrl());
+            }
+            scanned += batch.size();
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == batchSize);
+
+        if (submitted > 0) {
+            log.info("🔥 转码扫描完成，音乐数: {}，提交转码任务: {}", scanned, submitted);
+        }
+    }
+
+    /**
+     * 为单个原始文件提交缺失或过期的转码任务
+     *
+     * @param fileUrl 原始文件相对路径
+     * @return 提交的任务数
+     */
+    private int submitMissing(String fileUrl) {
+        if (!StringUtils.hasText(fileUrl)) {
+            return 0;
+        }
+        AudioFileMetadata source = metadataIndexService.lookup(fileUrl);
+        long sourceModified = source != null ? source.getLastModified() : lastModified(resolve(fileUrl));
+        if (sourceModified < 0) {
+            return 0;
+        }
+        int submitted = 0;
+        for (AudioQuality quality : ladder()) {
+            if (source != null && notBelowSource(source, quality)) {
+                continue;
+            }
+            if (!isFresh(renditionPath(fileUrl, quality), sourceModified) && submit(fileUrl, quality)) {
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+
+    /**
+     * 转码阶梯（除原始文件外的所有音质）
+     */
+    private List<AudioQuality> ladder() {
+        List<AudioQuality> ladder = new ArrayList<>();
+        for (AudioQuality quality : AudioQuality.values()) {
+            if (quality != AudioQuality.ORIGINAL) {
+                ladder.add(quality);
+            }
+        }
+        return ladder;
+    }
+
+    /**
+     * 提交转码任务
+     *
+     * @param fileUrl 原始文件相对路径
+     * @param quality 音质
+     * @return true-已提交, false-已在队列中或队列已满
+     */
+    private boolean submit(String fileUrl, AudioQuality quality) {
+        String rendition = renditionPath(fileUrl, quality);
+        return submit(rendition, () -> transcode(fileUrl, quality, rendition));
+    }
+
+    /**
+     * 提交后台媒体处理任务（与转码共用线程池，同一 key 同时只允许一个任务）
+     *
+     * @param key  任务标识（输出文件相对路径）
+     * @param task 任务
+     * @return true-已提交, false-ffmpeg 不可用、已在队列中或队列已满
+     */
+    boolean submit(String key, Runnable task) {
+        if (!available || !pending.add(key)) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    pending.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            log.debug("转码队列已满，稍后重试: {}", key);
+            return false;
+        }
+    }
+
+    /**
+     * 执行 ffmpeg 命令并等待结束
+     *
+     * @param arguments ffmpeg 参数（不含可执行文件路径）
+     * @param directory 工作目录（为null时使用当前目录）
+     * @param label     日志标识
+     * @return true-执行成功
+     * @throws IOException 启动进程失败
+     */
+    boolean runFfmpeg(List<String> arguments, Path directory, String label) throws IOException {
+        List<String> command = new ArrayList<>(arguments.size() + 1);
+        command.add(mediaProperties.getFfmpegPath());
+        command.addAll(arguments);
+
+        Process process = new ProcessBuilder(command)
+                .directory(directory != null ? directory.toFile() : null)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        int timeoutSeconds = mediaProperties.getTranscode().getTimeoutSeconds();
+        try {
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                log.warn("⚠️ ffmpeg 执行超时（超过 {} 秒）: {}", timeoutSeconds, label);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (process.exitValue() != 0) {
+            log.warn("⚠️ ffmpeg 执行失败，退出码: {}, 文件: {}", process.exitValue(), label);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 执行转码（转码线程中执行）
+     *
+     * @param fileUrl   原始文件相对路径
+     * @param quality   音质
+     * @param rendition 转码文件相对路径
+     */
+    private void transcode(String fileUrl, AudioQuality quality, String rendition) {
+        Path source = resolve(fileUrl);
+        long sourceModified = lastModified(source);
+        if (sourceModified < 0) {
+            log.debug("原始音频文件不存在，跳过转码: {}", fileUrl);
+            return;
+        }
+
+        Path target = storageRoot.resolve(rendition).normalize();
+        if (!target.startsWith(storageRoot) || lastModified(target) >= sourceModified) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            Files.createDirectories(target.getParent());
+
+            boolean success = runFfmpeg(List.of(
+                    "-nostdin", "-hide_banner", "-loglevel", "error", "-y",
+                    "-i", source.toString(),
+                    "-vn", "-map", "0:a:0", "-map_metadata", "0",
+                    "-codec:a", "libmp3lame", "-b:a", quality.getBitrate() + "k",
+                    "-f", "mp3", temp.toString()), null, rendition);
+            if (!success) {
+                return;
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("✅ 转码完成: {} ({} KB, {} ms)", rendition, Files.size(target) / 1024,
+                    System.currentTimeMillis() - startTime);
+        } catch (IOException e) {
+            log.warn("⚠️ 转码异常: {}, 原因: {}", rendition, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.debug("删除转码临时文件失败: {}", temp);
+            }
+        }
+    }
+
+    /**
+     * 请求码率是否不低于原始文件码率（按文件大小与时长估算）
+     */
+    private boolean notBelowSource(AudioFileMetadata source, AudioQuality quality) {
+        Integer duration = source.getDuration();
+        if (duration == null || duration <= 0) {
+            return false;
+        }
+        long sourceKbps = source.getSize() * 8 / 1000 / duration;
+        return quality.getBitrate() >= sourceKbps;
+    }
+
+    /**
+     * 转码文件是否存在且不早于原始文件
+     *
+     * <p>元数据索引不包含转码目录，直接读取文件修改时间</p>
+     */
+    private boolean isFresh(String rendition, long sourceModified) {
+        if (sourceModified < 0) {
+            return false;
+        }
+        return lastModified(storageRoot.resolve(rendition)) >= sourceModified;
+    }
+
+    /**
+     * 转码文件相对路径：{renditionDir}/{码率}k/{原相对路径去掉扩展名}.mp3
+     */
+    private String renditionPath(String fileUrl, AudioQuality quality) {
+        String relativePath = fileUrl.startsWith("/") ? fileUrl.substring(1) : fileUrl;
+        int dot = relativePath.lastIndexOf('.');
+        if (dot > relativePath.lastIndexOf('/')) {
+            relativePath = relativePath.substring(0, dot);
+        }
+        return mediaProperties.getTranscode().getRenditionDir() + "/" + quality.getBitrate() + "k/"
+                + relativePath + RENDITION_EXTENSION;
+    }
+
+    /**
+     * 解析原始文件路径
+     *
+     * @return 文件路径，越界时返回null
+     */
+    private Path resolve(String fileUrl) {
+        String relativePath = fileUrl.startsWith("/") ? fileUrl.substring(1) : fileUrl;
+        Path file = storageRoot.resolve(relativePath).normalize();
+        return file.startsWith(storageRoot) ? file : null;
+    }
+
+    /**
+     * 文件最后修改时间
+     *
+     * @return 毫秒时间戳，文件不存在时返回-1
+     */
+    private long lastModified(Path file) {
+        if (file == null) {
+            return -1;
+        }
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 检测 ffmpeg 是否可用
+     */
+    private boolean detectFfmpeg() {
+        try {
+            Process process = new ProcessBuilder(mediaProperties.getFfmpegPath(), "-version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
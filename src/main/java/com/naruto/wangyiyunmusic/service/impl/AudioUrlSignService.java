@@ -0,0 +1,216 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * 音频URL签名服务
+ *
+ * <p>签发带过期时间和客户端绑定的 HMAC-SHA256 签名URL：</p>
+ * <pre>
+ * /audio/jay/晴天.mp3?e={过期时间戳（秒）}&amp;s={签名}
+ * 签名 = Base64Url(HMAC-SHA256(secret, 相对路径 + "\n" + e + "\n" + 客户端IP))
+ * </pre>
+ *
+ * <p>HLS 使用目录级签名：相对路径为分段目录（以 / 结尾，不会与文件路径冲突），播放列表与分段共用</p>
+ *
+ * <p>签名参数随客户端和时间窗口变化，内容寻址URL（/audio/v/{内容版本}/...）经过 CDN 时，
+ * CDN 的缓存键必须忽略 e、s 两个查询参数，并在边缘校验签名（或对缓存未命中的请求回源校验），
+ * 否则每个客户端、每个窗口都会产生一份独立缓存</p>
+ *
+ * <p>Referer/User-Agent 等较重的检查只在签发时执行一次，
+ * 拖拽播放产生的每个 Range 请求只需一次常量时间的签名比对</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class AudioUrlSignService {
+
+    /**
+     * 过期时间参数名
+     */
+    public static final String PARAM_EXPIRES = "e";
+
+    /**
+     * 签名参数名
+     */
+    public static final String PARAM_SIGNATURE = "s";
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    @Autowired
+    private AudioSecurityProperties securityProperties;
+
+    /**
+     * 签名密钥
+     */
+    private SecretKeySpec secretKey;
+
+    /**
+     * Mac 实例非线程安全，每个线程复用一个
+     */
+    private final ThreadLocal<Mac> macHolder = ThreadLocal.withInitial(this::newMac);
+
+    /**
+     * 初始化签名密钥
+     *
+     * <p>启用签名URL但未配置密钥时启动失败，不生成随机密钥（重启或多实例之间签名会互相失效）</p>
+     */
+    @PostConstruct
+    public void init() {
+        AudioSecurityProperties.SignedUrlConfig config = securityProperties.getSignedUrl();
+        if (!config.getEnabled()) {
+            return;
+        }
+        if (!StringUtils.hasText(config.getSecret())) {
+            throw new IllegalStateException("已启用音频URL签名，但未配置签名密钥 audio.security.signed-url.secret（环境变量 AUDIO_SIGN_SECRET）");
+        }
+        this.secretKey = new SecretKeySpec(config.getSecret().getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        log.info("✅ 音频URL签名已启用, 有效期: {} 秒, 绑定IP: {}, 强制签名: {}",
+                config.getExpireSeconds(), config.getBindIp(), config.getRequireSignature());
+    }
+
+    /**
+     * 是否启用签名URL
+     */
+    public boolean isEnabled() {
+        return securityProperties.getSignedUrl().getEnabled();
+    }
+
+    /**
+     * 生成签名查询参数
+     *
+     * <p>过期时间向上对齐到 align-seconds 的整数倍，同一窗口内同一客户端获得的URL相同</p>
+     *
+     * @param relativePath 相对于音频存储目录的路径
+     * @param clientIp     客户端IP
+     * @return 查询参数（不含 ?），如: e=1770000000&amp;s=xxx
+     */
+    public String sign(String relativePath, String clientIp) {
+        AudioSecurityProperties.SignedUrlConfig config = securityProperties.getSignedUrl();
+
+        long now = System.currentTimeMillis() / 1000;
+        long align = Math.max(1, config.getAlignSeconds());
+        long expires = (now + config.getExpireSeconds() + align - 1) / align * align;
+
+        String signature = computeSignature(normalizePath(relativePath), expires, bindingIp(clientIp));
+        return PARAM_EXPIRES + "=" + expires + "&" + PARAM_SIGNATURE + "=" + signature;
+    }
+
+    /**
+     * 校验签名
+     *
+     * @param relativePath 请求的相对路径（已解码）
+     * @param expires      过期时间参数
+     * @param signature    签名参数
+     * @param clientIp     客户端IP
+     * @return 校验结果
+     */
+    public VerifyResult verify(String relativePath, String expires, String signature, String clientIp) {
+        if (!StringUtils.hasText(expires) || !StringUtils.hasText(signature)) {
+            return VerifyResult.MISSING;
+        }
+
+        // 1. 过期检查（无需计算签名）
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            return VerifyResult.INVALID;
+        }
+        if (expiresAt < System.currentTimeMillis() / 1000) {
+            return VerifyResult.EXPIRED;
+        }
+
+        // 2. 常量时间比对签名
+        byte[] provided;
+        try {
+            provided = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return VerifyResult.INVALID;
+        }
+        byte[] expected = mac(normalizePath(relativePath), expiresAt, bindingIp(clientIp));
+        return MessageDigest.isEqual(expected, provided) ? VerifyResult.VALID : VerifyResult.INVALID;
+    }
+
+    /**
+     * 计算签名（Base64Url 编码，无填充）
+     */
+    private String computeSignature(String relativePath, long expires, String ip) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mac(relativePath, expires, ip));
+    }
+
+    /**
+     * 计算 HMAC
+     */
+    private byte[] mac(String relativePath, long expires, String ip) {
+        String payload = relativePath + "\n" + expires + "\n" + ip;
+        return macHolder.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 创建 Mac 实例
+     */
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化音频URL签名失败", e);
+        }
+    }
+
+    /**
+     * 参与签名的客户端IP（未启用IP绑定时为空）
+     */
+    private String bindingIp(String clientIp) {
+        return securityProperties.getSignedUrl().getBindIp() && clientIp != null ? clientIp : "";
+    }
+
+    /**
+     * 规范化路径（统一使用 / 分隔，去掉开头的 /）
+     */
+    private String normalizePath(String relativePath) {
+        String path = relativePath.replace('\\', '/');
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path;
+    }
+
+    /**
+     * 签名校验结果
+     */
+    public enum VerifyResult {
+        /**
+         * 签名有效
+         */
+        VALID,
+        /**
+         * 缺少签名参数
+         */
+        MISSING,
+        /**
+         * 已过期
+         */
+        EXPIRED,
+        /**
+         * 签名错误
+         */
+        INVALID
+    }
+}
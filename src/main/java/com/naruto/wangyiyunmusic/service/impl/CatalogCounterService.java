@@ -0,0 +1,71 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.mapper.AlbumMapper;
+import com.naruto.wangyiyunmusic.mapper.ArtistMapper;
+import com.naruto.wangyiyunmusic.mapper.TagMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 曲库冗余计数维护服务
+ *
+ * <p>专辑歌曲数（album.song_count）、歌手关联音乐数（artist.music_count）、标签关联音乐数（tag.music_count）
+ * 以冗余列保存，列表页直接读取，不在查询时 COUNT(*) 聚合</p>
+ *
+ * <p>应用目前没有写入 music、music_artist、music_tag 的接口（曲库数据由导入脚本维护），
+ * 计数由定时对账按关联表重新统计并修正不一致的行；计数只统计未删除的音乐。
+ * 新增曲库写入接口时，应在同一事务中以原子 UPDATE（col = col + delta）增量维护对应计数</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class CatalogCounterService {
+
+    @Autowired
+    private AlbumMapper albumMapper;
+
+    @Autowired
+    private ArtistMapper artistMapper;
+
+    @Autowired
+    private TagMapper tagMapper;
+
+    /**
+     * 是否启用定时对账
+     */
+    @Value("${music.counter.reconcile-enabled:true}")
+    private boolean reconcileEnabled;
+
+    /**
+     * 定时对账
+     *
+     * <p>每天凌晨执行（根据配置的 cron 表达式），每张表一条 UPDATE ... JOIN 聚合语句，只写入不一致的行</p>
+     */
+    @Scheduled(cron = "${music.counter.reconcile-cron:0 30 3 * * ?}")
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            log.debug("计数对账已禁用，跳过定时任务");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            int albums = albumMapper.reconcileSongCount();
+            int artists = artistMapper.reconcileMusicCount();
+            int tags = tagMapper.reconcileMusicCount();
+
+            if (albums + artists + tags > 0) {
+                log.warn("⚠️ 计数对账修正: 专辑 {} 行, 歌手 {} 行, 标签 {} 行（曲库导入或直接改库后的变化）",
+                        albums, artists, tags);
+            }
+            log.info("✅ 计数对账完成, 耗时: {} ms", System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("❌ 计数对账失败", e);
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.naruto.wangyiyunmusic.common.TransactionCallbacks;
+import com.naruto.wangyiyunmusic.config.properties.MusicSearchProperties;
+import com.naruto.wangyiyunmusic.mapper.AlbumMapper;
+import com.naruto.wangyiyunmusic.mapper.ArtistMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicArtistMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicMapper;
+import com.naruto.wangyiyunmusic.model.entity.Album;
+import com.naruto.wangyiyunmusic.model.entity.Artist;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.model.entity.MusicArtist;
+import com.naruto.wangyiyunmusic.service.search.HanziPinyin;
+import com.naruto.wangyiyunmusic.service.search.InvertedIndex;
+import com.naruto.wangyiyunmusic.service.search.SearchTokenizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 曲库全文索引服务
+ *
+ * <p>在进程内为音乐、歌手、专辑各维护一个倒排索引（{@link InvertedIndex}），搜索不访问数据库：</p>
+ * <ul>
+ *   <li>音乐文档：标题、歌手名称、专辑名称、歌词（可配置），按字段加权，热度（播放次数）参与排序</li>
+ *   <li>歌手文档：歌手名称，歌曲数参与排序</li>
+ *   <li>专辑文档：专辑名称，歌曲数参与排序</li>
+ *   <li>拼音（可配置）：标题、歌手名称、专辑名称额外以全拼、首字母建立索引（{@link HanziPinyin}），
+ *       输入 qingtian、qt 可命中"晴天"</li>
+ * </ul>
+ *
+ * <p>维护方式：</p>
+ * <ul>
+ *   <li>全量重建：应用启动后及每天定时（根据配置的 cron 表达式）按主键分批读取数据库，构建完成后整体替换</li>
+ *   <li>增量更新：歌手、专辑、音乐写入后调用对应方法，事务提交后重新读取受影响的文档</li>
+ *   <li>所有写入在单个后台线程中按提交顺序执行，重建期间到达的增量更新排在重建之后，不会被覆盖</li>
+ * </ul>
+ *
+ * <p>首次构建完成前 {@link #isReady()} 为false，调用方应降级为数据库查询</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class CatalogSearchIndexService {
+
+    @Autowired
+    private MusicSearchProperties searchProperties;
+
+    @Autowired
+    private MusicMapper musicMapper;
+
+    @Autowired
+    private ArtistMapper artistMapper;
+
+    @Autowired
+    private AlbumMapper albumMapper;
+
+    @Autowired
+    private MusicArtistMapper musicArtistMapper;
+
+    /**
+     * 当前索引（首次构建完成前为null）
+     */
+    private volatile Indexes indexes;
+
+    /**
+     * 索引写入线程（单线程，保证重建与增量更新按顺序执行）
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 三类文档的索引
+     */
+    private record Indexes(InvertedIndex music, InvertedIndex artists, InvertedIndex albums) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(searchProperties.getQueueCapacity()), r -> {
+            Thread thread = new Thread(r, "catalog-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 应用启动完成后在后台构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!searchProperties.getEnabled()) {
+            log.info("曲库全文索引已禁用，搜索使用数据库查询");
+            return;
+        }
+        submit(this::rebuild);
+    }
+
+    /**
+     * 定时全量重建（修正绕过应用的写入与丢弃的增量更新）
+     */
+    @Scheduled(cron = "${music.search.rebuild-cron:0 0 4 * * ?}")
+    public void scheduledRebuild() {
+        if (searchProperties.getEnabled()) {
+            submit(this::rebuild);
+        }
+    }
+
+    /**
+     * 索引是否可用
+     */
+    public boolean isReady() {
+        return searchProperties.getEnabled() && indexes != null;
+    }
+
+    /**
+     * 搜索音乐
+     *
+     * @param keyword 关键词
+     * @param limit   最多返回条数
+     * @return 按相关度降序排列的音乐ID（索引不可用时返回空列表）
+     */
+    public List<Long> searchMusic(String keyword, int limit) {
+        Indexes current = indexes;
+        return current != null ? search(current.music(), keyword, limit) : List.of();
+    }
+
+    /**
+     * 搜索歌手
+     *
+     * @param keyword 关键词
+     * @param limit   最多返回条数
+     * @return 按相关度降序排列的歌手ID（索引不可用时返回空列表）
+     */
+    public List<Long> searchArtists(String keyword, int limit) {
+        Indexes current = indexes;
+        return current != null ? search(current.artists(), keyword, limit) : List.of();
+    }
+
+    /**
+     * 搜索专辑
+     *
+     * @param keyword 关键词
+     * @param limit   最多返回条数
+     * @return 按相关度降序排列的专辑ID（索引不可用时返回空列表）
+     */
+    public List<Long> searchAlbums(String keyword, int limit) {
+        Indexes current = indexes;
+        return current != null ? search(current.albums(), keyword, limit) : List.of();
+    }
+
+    /**
+     * 音乐新增、修改、删除或歌手关联变更
+     *
+     * @param musicIds 音乐ID集合
+     */
+    public void musicChanged(Collection<Long> musicIds) {
+        if (musicIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(musicIds);
+        TransactionCallbacks.afterCommit(() -> submit(() -> reindexMusic(ids)));
+    }
+
+    /**
+     * 歌手新增、修改或删除（同时更新该歌手关联的音乐）
+     *
+     * @param artistId 歌手ID
+     */
+    public void artistChanged(Long artistId) {
+        TransactionCallbacks.afterCommit(() -> submit(() -> {
+            reindexArtist(artistId);
+            reindexMusic(musicArtistMapper.selectList(new LambdaQueryWrapper<MusicArtist>()
+                            .select(MusicArtist::getMusicId)
+                            .eq(MusicArtist::getArtistId, artistId))
+                    .stream().map(MusicArtist::getMusicId).collect(Collectors.toSet()));
+        }));
+    }
+
+    /**
+     * 专辑新增、修改或删除（同时更新该专辑下的音乐）
+     *
+     * @param albumId 专辑ID
+     */
+    public void albumChanged(Long albumId) {
+        TransactionCallbacks.afterCommit(() -> submit(() -> {
+            reindexAlbum(albumId);
+            reindexMusic(musicMapper.selectList(new LambdaQueryWrapper<Music>()
+                            .select(Music::getId)
+                            .eq(Music::getAlbumId, albumId))
+                    .stream().map(Music::getId).collect(Collectors.toSet()));
+        }));
+    }
+
+    /**
+     * 全量重建索引
+     */
+    private void rebuild() {
+        long startTime = System.currentTimeMillis();
+        int batchSize = searchProperties.getBatchSize();
+
+        // 1. 歌手、专辑（同时作为音乐文档的名称字典）
+        Map<Long, Artist> artists = new HashMap<>();
+        long lastId = 0;
+        List<Artist> artistBatch;
+        do {
+            artistBatch = artistMapper.selectList(new LambdaQueryWrapper<Artist>()
+                    .select(Artist::getId, Artist::getName, Artist::getMusicCount)
+                    .gt(Artist::getId, lastId)
+                    .orderByAsc(Artist::getId)
+                    .last("LIMIT " + batchSize));
+            artistBatch.forEach(artist -> artists.put(artist.getId(), artist));
+            lastId = artistBatch.isEmpty() ? lastId : artistBatch.get(artistBatch.size() - 1).getId();
+        } while (artistBatch.size() == batchSize);
+
+        Map<Long, Album> albums = new HashMap<>();
+        lastId = 0;
+        List<Album> albumBatch;
+        do {
+            albumBatch = albumMapper.selectList(new LambdaQueryWrapper<Album>()
+                    .select(Album::getId, Album::getName, Album::getSongCount)
+                    .gt(Album::getId, lastId)
+                    .orderByAsc(Album::getId)
+                    .last("LIMIT " + batchSize));
+            albumBatch.forEach(album -> albums.put(album.getId(), album));
+            lastId = albumBatch.isEmpty() ? lastId : albumBatch.get(albumBatch.size() - 1).getId();
+        } while (albumBatch.size() == batchSize);
+
+        Indexes rebuilt = new Indexes(new InvertedIndex(), new InvertedIndex(), new InvertedIndex());
+        artists.values().forEach(artist -> indexArtist(rebuilt.artists(), artist));
+        albums.values().forEach(album -> indexAlbum(rebuilt.albums(), album));
+
+        // 2. 音乐（每批查询该批的歌手关联）
+        lastId = 0;
+        List<Music> musicBatch;
+        do {
+            musicBatch = musicMapper.selectList(musicColumns()
+                    .gt(Music::getId, lastId)
+                    .orderByAsc(Music::getId)
+                    .last("LIMIT " + batchSize));
+            indexMusicBatch(rebuilt.music(), musicBatch, artists, albums);
+            lastId = musicBatch.isEmpty() ? lastId : musicBatch.get(musicBatch.size() - 1).getId();
+        } while (musicBatch.size() == batchSize);
+
+        // 3. 整体替换
+        this.indexes = rebuilt;
+        log.info("✅ 曲库全文索引构建完成: 音乐 {} 首, 歌手 {} 位, 专辑 {} 张, 词典 {} 项, 耗时: {} ms",
+                rebuilt.music().size(), rebuilt.artists().size(), rebuilt.albums().size(),
+                rebuilt.music().termCount() + rebuilt.artists().termCount() + rebuilt.albums().termCount(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 重新读取并索引指定音乐（已删除的从索引中移除）
+     */
+    private void reindexMusic(Set<Long> musicIds) {
+        Indexes current = indexes;
+        if (current == null || musicIds.isEmpty()) {
+            return;
+        }
+
+        List<Music> musicList = musicMapper.selectList(musicColumns().in(Music::getId, musicIds));
+
+        Set<Long> artistIds = musicArtistMapper.selectList(new LambdaQueryWrapper<MusicArtist>()
+                        .select(MusicArtist::getArtistId)
+                        .in(MusicArtist::getMusicId, musicIds))
+                .stream().map(MusicArtist::getArtistId).collect(Collectors.toSet());
+        Map<Long, Artist> artists = artistIds.isEmpty() ? Map.of()
+                : artistMapper.selectBatchIds(artistIds).stream()
+                        .collect(Collectors.toMap(Artist::getId, Function.identity()));
+
+        Set<Long> albumIds = musicList.stream().map(Music::getAlbumId).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Album> albums = albumIds.isEmpty() ? Map.of()
+                : albumMapper.selectBatchIds(albumIds).stream()
+                        .collect(Collectors.toMap(Album::getId, Function.identity()));
+
+        indexMusicBatch(current.music(), musicList, artists, albums);
+
+        Set<Long> removed = new HashSet<>(musicIds);
+        musicList.forEach(music -> removed.remove(music.getId()));
+        removed.forEach(current.music()::remove);
+        log.debug("增量更新音乐索引: {} 首, 移除: {}", musicList.size(), removed);
+    }
+
+    private void reindexArtist(Long artistId) {
+        Indexes current = indexes;
+        if (current == null) {
+            return;
+        }
+        Artist artist = artistMapper.selectById(artistId);
+        if (artist == null) {
+            current.artists().remove(artistId);
+        } else {
+            indexArtist(current.artists(), artist);
+        }
+    }
+
+    private void reindexAlbum(Long albumId) {
+        Indexes current = indexes;
+        if (current == null) {
+            return;
+        }
+        Album album = albumMapper.selectById(albumId);
+        if (album == null) {
+            current.albums().remove(albumId);
+        } else {
+            indexAlbum(current.albums(), album);
+        }
+    }
+
+    /**
+     * 索引一批音乐
+     *
+     * @param index     音乐索引
+     * @param musicList 音乐列表
+     * @param artists   歌手ID -> 歌手（需包含这批音乐关联的歌手）
+     * @param albums    专辑ID -> 专辑（需包含这批音乐所属的专辑）
+     */
+    private void indexMusicBatch(InvertedIndex index, List<Music> musicList,
+                                 Map<Long, Artist> artists, Map<Long, Album> albums) {
+        if (musicList.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<String>> artistNames = new HashMap<>();
+        musicArtistMapper.selectList(new LambdaQueryWrapper<MusicArtist>()
+                        .select(MusicArtist::getMusicId, MusicArtist::getArtistId)
+                        .in(MusicArtist::getMusicId, musicList.stream().map(Music::getId).toList()))
+                .forEach(ma -> {
+                    Artist artist = artists.get(ma.getArtistId());
+                    if (artist != null) {
+                        artistNames.computeIfAbsent(ma.getMusicId(), k -> new ArrayList<>()).add(artist.getName());
+                    }
+                });
+
+        MusicSearchProperties.WeightConfig weight = searchProperties.getWeight();
+        for (Music music : musicList) {
+            Album album = music.getAlbumId() != null ? albums.get(music.getAlbumId()) : null;
+            String artistText = String.join(" ", artistNames.getOrDefault(music.getId(), List.of()));
+            List<InvertedIndex.Field> fields = new ArrayList<>(5);
+            fields.add(new InvertedIndex.Field(music.getTitle(), weight.getTitle()));
+            fields.add(new InvertedIndex.Field(artistText, weight.getArtist()));
+            fields.add(new InvertedIndex.Field(album != null ? album.getName() : null, weight.getAlbum()));
+            if (searchProperties.getIndexLyrics()) {
+                fields.add(new InvertedIndex.Field(music.getLyrics(), weight.getLyrics()));
+            }
+            if (searchProperties.getIndexPinyin()) {
+                fields.add(new InvertedIndex.Field(
+                        HanziPinyin.searchText(music.getTitle() + " " + artistText), weight.getPinyin()));
+            }
+            index.put(music.getId(), fields, popularityBoost(music.getPlayCount()));
+        }
+    }
+
+    private void indexArtist(InvertedIndex index, Artist artist) {
+        index.put(artist.getId(), nameFields(artist.getName()), popularityBoost(artist.getMusicCount()));
+    }
+
+    private void indexAlbum(InvertedIndex index, Album album) {
+        index.put(album.getId(), nameFields(album.getName()), popularityBoost(album.getSongCount()));
+    }
+
+    /**
+     * 歌手、专辑文档的字段：名称及其拼音
+     */
+    private List<InvertedIndex.Field> nameFields(String name) {
+        MusicSearchProperties.WeightConfig weight = searchProperties.getWeight();
+        InvertedIndex.Field nameField = new InvertedIndex.Field(name, weight.getTitle());
+        if (!searchProperties.getIndexPinyin()) {
+            return List.of(nameField);
+        }
+        return List.of(nameField, new InvertedIndex.Field(HanziPinyin.searchText(name), weight.getPinyin()));
+    }
+
+    private LambdaQueryWrapper<Music> musicColumns() {
+        LambdaQueryWrapper<Music> wrapper = new LambdaQueryWrapper<>();
+        if (searchProperties.getIndexLyrics()) {
+            wrapper.select(Music::getId, Music::getTitle, Music::getAlbumId, Music::getPlayCount, Music::getLyrics);
+        } else {
+            wrapper.select(Music::getId, Music::getTitle, Music::getAlbumId, Music::getPlayCount);
+        }
+        return wrapper;
+    }
+
+    private float popularityBoost(Number count) {
+        long value = count != null ? Math.max(count.longValue(), 0) : 0;
+        return 1 + searchProperties.getWeight().getPopularity() * (float) Math.log10(1 + value);
+    }
+
+    private List<Long> search(InvertedIndex index, String keyword, int limit) {
+        return index.search(SearchTokenizer.analyze(keyword), limit).stream()
+                .map(InvertedIndex.Hit::id)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 提交到索引写入线程（队列满时丢弃，由下一次全量重建修正）
+     */
+    private void submit(Runnable task) {
+        if (!searchProperties.getEnabled()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("❌ 曲库全文索引更新失败", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ 曲库全文索引更新队列已满，丢弃本次更新（等待下一次全量重建）");
+        }
+    }
+}
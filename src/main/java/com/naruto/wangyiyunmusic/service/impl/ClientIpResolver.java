@@ -0,0 +1,190 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 客户端IP解析服务
+ *
+ * <p>只信任配置的反向代理（trusted-proxies）追加的 X-Forwarded-For：</p>
+ * <ul>
+ *   <li>直连地址不是可信代理：直接使用直连地址，忽略客户端自带的 X-Forwarded-For</li>
+ *   <li>直连地址是可信代理：从 X-Forwarded-For 右侧向左跳过可信代理，第一个不可信的地址即为客户端IP</li>
+ * </ul>
+ *
+ * <p>限流、黑名单、签名IP绑定都依赖客户端IP，不能由请求方任意伪造</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class ClientIpResolver {
+
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    @Autowired
+    private AudioSecurityProperties securityProperties;
+
+    /**
+     * 可信代理网段
+     */
+    private List<Subnet> trustedProxies = List.of();
+
+    /**
+     * 解析可信代理配置
+     */
+    @PostConstruct
+    public void init() {
+        List<Subnet> subnets = new ArrayList<>();
+        for (String cidr : securityProperties.getTrustedProxies()) {
+            if (!StringUtils.hasText(cidr)) {
+                continue;
+            }
+            Subnet subnet = Subnet.parse(cidr.trim());
+            if (subnet == null) {
+                throw new IllegalStateException("可信代理配置格式错误（应为IP或CIDR）: " + cidr);
+            }
+            subnets.add(subnet);
+        }
+        this.trustedProxies = List.copyOf(subnets);
+        if (!subnets.isEmpty()) {
+            log.info("✅ 可信反向代理: {}", securityProperties.getTrustedProxies());
+        }
+    }
+
+    /**
+     * 解析客户端IP
+     *
+     * @param request HTTP请求
+     * @return 客户端IP
+     */
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (!StringUtils.hasText(forwardedFor)) {
+            return remoteAddr;
+        }
+
+        // 从右向左跳过可信代理（左侧的值可能由客户端伪造）
+        String[] hops = forwardedFor.split(",");
+        String client = remoteAddr;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (parseAddress(hop) == null) {
+                // 格式错误的条目之后的值都不可信
+                break;
+            }
+            client = hop;
+            if (!isTrusted(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 是否为可信代理
+     */
+    private boolean isTrusted(String ip) {
+        InetAddress address = parseAddress(ip);
+        if (address == null) {
+            return false;
+        }
+        for (Subnet subnet : trustedProxies) {
+            if (subnet.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析IP字面量（不做DNS解析）
+     *
+     * @param ip IP字符串
+     * @return 地址，格式错误时返回null
+     */
+    private static InetAddress parseAddress(String ip) {
+        if (!StringUtils.hasText(ip)) {
+            return null;
+        }
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != '.' && c != ':') {
+                return null;
+            }
+        }
+        try {
+            return InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 网段
+     *
+     * @param network      网络地址
+     * @param prefixLength 前缀长度
+     */
+    private record Subnet(byte[] network, int prefixLength) {
+
+        /**
+         * 解析IP或CIDR（如: 10.0.0.0/8、::1）
+         */
+        static Subnet parse(String cidr) {
+            int slash = cidr.indexOf('/');
+            InetAddress address = parseAddress(slash < 0 ? cidr : cidr.substring(0, slash));
+            if (address == null) {
+                return null;
+            }
+            byte[] bytes = address.getAddress();
+            int prefixLength = bytes.length * 8;
+            if (slash >= 0) {
+                try {
+                    prefixLength = Integer.parseInt(cidr.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (prefixLength < 0 || prefixLength > bytes.length * 8) {
+                    return null;
+                }
+            }
+            return new Subnet(bytes, prefixLength);
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
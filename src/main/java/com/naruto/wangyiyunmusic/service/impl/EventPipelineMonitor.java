@@ -0,0 +1,79 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.service.event.RingBuffer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件缓冲区背压监控
+ *
+ * <p>定期输出播放、收藏环形缓冲区在本周期内的发布、等待、拒绝（降级为同步写入）次数，
+ * 以及消费批次、平均批量和当前积压；出现拒绝或积压超过一半容量时输出警告</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Component
+public class EventPipelineMonitor {
+
+    /**
+     * 积压告警阈值（占容量百分比）
+     */
+    private static final double BACKLOG_WARN_PERCENT = 50.0;
+
+    @Autowired
+    private PlayCounterService playCounterService;
+
+    @Autowired
+    private FavoriteEventPipeline favoriteEventPipeline;
+
+    /**
+     * 上一周期的快照：缓冲区名称 -> 快照
+     */
+    private final Map<String, RingBuffer.Stats> lastStats = new HashMap<>();
+
+    /**
+     * 当前各缓冲区的监控快照
+     */
+    public List<RingBuffer.Stats> snapshot() {
+        return List.of(playCounterService.ringStats(), favoriteEventPipeline.ringStats());
+    }
+
+    /**
+     * 定时输出背压指标（本周期内无事件时不输出）
+     */
+    @Scheduled(fixedDelayString = "#{@eventPipelineProperties.metricsLogIntervalSeconds * 1000}",
+            initialDelayString = "#{@eventPipelineProperties.metricsLogIntervalSeconds * 1000}")
+    public void report() {
+        for (RingBuffer.Stats stats : snapshot()) {
+            RingBuffer.Stats previous = lastStats.put(stats.name(), stats);
+            long published = stats.published() - (previous != null ? previous.published() : 0);
+            long waited = stats.waited() - (previous != null ? previous.waited() : 0);
+            long rejected = stats.rejected() - (previous != null ? previous.rejected() : 0);
+            long batches = stats.batches() - (previous != null ? previous.batches() : 0);
+            long consumed = stats.consumed() - (previous != null ? previous.consumed() : 0);
+            if (published == 0 && rejected == 0 && stats.backlog() == 0) {
+                continue;
+            }
+
+            String averageBatch = batches == 0 ? "0" : String.format("%.1f", (double) consumed / batches);
+            String utilization = String.format("%.1f", stats.utilization());
+            if (rejected > 0 || stats.utilization() > BACKLOG_WARN_PERCENT) {
+                log.warn("⚠️ 事件缓冲区 [{}] 背压: 发布 {}, 等待 {}, 拒绝(降级同步) {}, 积压 {}/{} ({}%), 平均批量 {}, 最大批量 {}",
+                        stats.name(), published, waited, rejected, stats.backlog(), stats.capacity(),
+                        utilization, averageBatch, stats.maxBatch());
+            } else {
+                log.info("事件缓冲区 [{}]: 发布 {}, 等待 {}, 消费批次 {}, 平均批量 {}, 积压 {}/{} ({}%)",
+                        stats.name(), published, waited, batches, averageBatch, stats.backlog(), stats.capacity(),
+                        utilization);
+            }
+        }
+    }
+}
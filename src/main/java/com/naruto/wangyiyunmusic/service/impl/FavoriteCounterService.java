@@ -0,0 +1,208 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.common.TransactionCallbacks;
+import com.naruto.wangyiyunmusic.config.properties.FavoriteCounterProperties;
+import com.naruto.wangyiyunmusic.mapper.MusicMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 音乐收藏次数维护服务
+ *
+ * <p>收藏次数（music.favorite_count）只通过原子 UPDATE 增减，不再读取整行后回写：</p>
+ * <ul>
+ *   <li>同步收藏路径：在调用方事务中执行 favorite_count = favorite_count ± 1</li>
+ *   <li>热门歌曲合并（可选）：一个刷写周期内同一首歌曲的更新次数超过阈值后，
+ *       后续增量在事务提交后累加到内存，由后台线程定期以一条 CASE 语句批量写入，减少同一行的锁竞争</li>
+ *   <li>定时对账：按 favorite 表重新统计，分ID区间修正不一致的行，覆盖直接改库、合并增量丢失等情况</li>
+ * </ul>
+ *
+ * <p>异步收藏管道 {@link FavoriteEventPipeline} 已在每批事件中合并增量，与收藏状态在同一事务中写入，不经过本服务的合并缓冲</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class FavoriteCounterService {
+
+    @Autowired
+    private FavoriteCounterProperties counterProperties;
+
+    @Autowired
+    private MusicMapper musicMapper;
+
+    @Autowired
+    private MusicDetailCacheService detailCacheService;
+
+    /**
+     * 待刷写的收藏次数增量：音乐ID -> 累加器
+     */
+    private final Map<Long, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+
+    /**
+     * 上次刷写时移除的空累加器（移除前取到引用的并发写入可能仍在累加，下次刷写时再读取一次）
+     */
+    private final List<Map.Entry<Long, LongAdder>> retiredDeltas = new ArrayList<>();
+
+    /**
+     * 当前刷写周期内每首歌曲的更新次数（用于识别热门歌曲）
+     */
+    private final Map<Long, LongAdder> windowHits = new ConcurrentHashMap<>();
+
+    /**
+     * 刷写线程
+     */
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "favorite-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (!counterProperties.getCoalesceEnabled()) {
+            return;
+        }
+        long interval = counterProperties.getFlushIntervalMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("✅ 热门歌曲收藏次数合并已启用, 阈值: {} 次/周期, 刷写间隔: {} ms",
+                counterProperties.getHotThreshold(), interval);
+    }
+
+    /**
+     * 停止前刷写剩余增量
+     */
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(counterProperties.getFlushIntervalMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 调整收藏次数（在调用方事务中调用）
+     *
+     * @param musicId 音乐ID
+     * @param delta   1-收藏, -1-取消收藏
+     */
+    public void adjust(Long musicId, int delta) {
+        // 1. 热门歌曲：事务提交后累加到内存，等待批量刷写
+        if (counterProperties.getCoalesceEnabled() && isHot(musicId)) {
+            TransactionCallbacks.afterCommit(() ->
+                    pendingDeltas.computeIfAbsent(musicId, k -> new LongAdder()).add(delta));
+            return;
+        }
+
+        // 2. 普通歌曲：原子更新
+        if (delta > 0) {
+            musicMapper.incrementFavoriteCount(musicId);
+        } else {
+            musicMapper.decrementFavoriteCount(musicId);
+        }
+        detailCacheService.evict(musicId);
+    }
+
+    /**
+     * 刷写内存中合并的增量
+     */
+    synchronized void flush() {
+        windowHits.clear();
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> retired : retiredDeltas) {
+            long delta = retired.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.merge(retired.getKey(), delta, Long::sum);
+            }
+        }
+        retiredDeltas.clear();
+
+        for (Map.Entry<Long, LongAdder> entry : pendingDeltas.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.merge(entry.getKey(), delta, Long::sum);
+            } else if (pendingDeltas.remove(entry.getKey(), entry.getValue())) {
+                // 一个周期内没有更新的歌曲移出，恢复为直接原子更新
+                retiredDeltas.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            musicMapper.incrementFavoriteCounts(deltas);
+            detailCacheService.evict(deltas.keySet());
+            log.debug("收藏次数合并刷写完成: 歌曲 {} 首", deltas.size());
+        } catch (Exception e) {
+            deltas.forEach((musicId, delta) ->
+                    pendingDeltas.computeIfAbsent(musicId, k -> new LongAdder()).add(delta));
+            log.error("❌ 收藏次数合并刷写失败，已放回内存等待重试: 歌曲 {} 首, 原因: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 定时对账
+     *
+     * <p>每天凌晨执行（根据配置的 cron 表达式），按ID区间逐段执行 UPDATE ... JOIN 聚合语句，只写入不一致的行；
+     * 仍有未刷写增量的音乐跳过，留到下一次对账</p>
+     */
+    @Scheduled(cron = "${music.favorite-counter.reconcile-cron:0 45 3 * * ?}")
+    public void reconcile() {
+        if (!counterProperties.getReconcileEnabled()) {
+            log.debug("收藏次数对账已禁用，跳过定时任务");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            Long maxId = musicMapper.selectMaxId();
+            if (maxId == null) {
+                return;
+            }
+            int step = counterProperties.getReconcileBatchSize();
+            int fixed = 0;
+            for (long minId = 1; minId <= maxId; minId += step) {
+                flush();
+                Set<Long> pending = Set.copyOf(pendingDeltas.keySet());
+                fixed += musicMapper.reconcileFavoriteCount(minId, minId + step - 1, pending);
+            }
+
+            if (fixed > 0) {
+                log.warn("⚠️ 收藏次数对账修正: {} 首歌曲（存在绕过应用的写入或丢失的增量）", fixed);
+            }
+            log.info("✅ 收藏次数对账完成, 耗时: {} ms", System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("❌ 收藏次数对账失败", e);
+        }
+    }
+
+    /**
+     * 记录一次更新，并判断歌曲在当前刷写周期内是否已成为热门
+     */
+    private boolean isHot(Long musicId) {
+        LongAdder hits = windowHits.computeIfAbsent(musicId, k -> new LongAdder());
+        hits.increment();
+        return hits.sum() > counterProperties.getHotThreshold() || pendingDeltas.containsKey(musicId);
+    }
+}
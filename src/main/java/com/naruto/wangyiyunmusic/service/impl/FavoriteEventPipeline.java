@@ -0,0 +1,306 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.EventPipelineProperties;
+import com.naruto.wangyiyunmusic.mapper.FavoriteMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicMapper;
+import com.naruto.wangyiyunmusic.model.entity.Favorite;
+import com.naruto.wangyiyunmusic.service.event.RingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * 收藏事件异步管道
+ *
+ * <p>收藏/取消收藏请求只把事件发布到有界环形缓冲区 {@link RingBuffer}，立即返回；
+ * 单个消费者线程批量取出事件写入数据库：</p>
+ * <ul>
+ *   <li>合并：同一批中同一用户对同一音乐的多次操作只保留最后一次</li>
+ *   <li>比对：一次查询取出这些 (用户, 音乐) 的当前收藏状态，状态未变化的事件直接忽略（重复收藏、取消未收藏）</li>
+ *   <li>写入：在一个事务中以多行 INSERT ... ON DUPLICATE KEY UPDATE 写入收藏状态，
+ *       并以一条 CASE 语句批量调整音乐的收藏次数</li>
+ *   <li>失败重试：整批重试若干次（根据配置），仍失败时逐个事件单独写入，
+ *       只丢弃单独写入仍失败的事件（错误日志中记录事件内容）</li>
+ * </ul>
+ *
+ * <p>缓冲区已满且等待超时时，发布失败，由调用方通过 {@link #applyInOrder(FavoriteEvent)} 在当前线程写入（背压）：
+ * 先处理缓冲区中已有的事件再写入该事件，与消费者互斥，不会与之前排队的同一 (用户, 音乐) 的操作乱序</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class FavoriteEventPipeline {
+
+    /**
+     * 收藏事件
+     *
+     * @param userId   用户ID
+     * @param musicId  音乐ID
+     * @param favorite true-收藏, false-取消收藏
+     * @param time     操作时间
+     */
+    public record FavoriteEvent(Long userId, Long musicId, boolean favorite, LocalDateTime time) {
+    }
+
+    /**
+     * 合并事件的键
+     */
+    private record Key(Long userId, Long musicId) {
+    }
+
+    @Autowired
+    private EventPipelineProperties pipelineProperties;
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    @Autowired
+    private MusicMapper musicMapper;
+
+    @Autowired
+    private MusicDetailCacheService detailCacheService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 待处理的收藏事件
+     */
+    private RingBuffer<FavoriteEvent> ring;
+
+    /**
+     * 消费者是否运行中
+     */
+    private volatile boolean running;
+
+    /**
+     * 消费者线程
+     */
+    private final ExecutorService consumer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "favorite-event-consumer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        this.ring = new RingBuffer<>("favorite", pipelineProperties.getFavoriteRingSize());
+        if (!pipelineProperties.getFavoriteAsyncEnabled()) {
+            log.info("收藏事件异步管道已禁用，收藏操作同步写入数据库");
+            return;
+        }
+        this.running = true;
+        consumer.execute(this::consumeLoop);
+        log.info("✅ 收藏事件异步管道已启动, 缓冲区容量: {}, 批量: {}",
+                ring.capacity(), pipelineProperties.getBatchSize());
+    }
+
+    /**
+     * 停止消费者，并在当前线程处理剩余事件
+     */
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        consumer.shutdown();
+        try {
+            if (!consumer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("⚠️ 收藏事件消费者未能在10秒内停止，剩余 {} 个事件未处理", ring.size());
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        List<FavoriteEvent> batch = new ArrayList<>();
+        while (drainAndProcess(batch, pipelineProperties.getBatchSize()) > 0) {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 是否异步处理收藏
+     */
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 发布收藏事件
+     *
+     * @param event 收藏事件
+     * @return true-已发布, false-管道未启用或缓冲区已满（调用方应同步写入）
+     */
+    public boolean publish(FavoriteEvent event) {
+        return running && ring.publish(event, pipelineProperties.getPublishTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在当前线程按顺序写入一个事件（发布失败时调用）
+     *
+     * <p>先处理进入本方法时缓冲区中已有的事件（只处理到当时的写序号，之后其他生产者发布的事件留给消费者），
+     * 再写入该事件，写入失败时向调用方抛出异常</p>
+     *
+     * @param event 收藏事件
+     */
+    public void applyInOrder(FavoriteEvent event) {
+        long until = ring.claimedSequence();
+        applyAfter(event, until);
+    }
+
+    private synchronized void applyAfter(FavoriteEvent event, long until) {
+        // 1. 处理之前排队的事件（消费者已取出的一批在获得锁之前已处理完）
+        List<FavoriteEvent> batch = new ArrayList<>();
+        while (ring.drainTo(batch, pipelineProperties.getBatchSize(), until) > 0) {
+            process(batch);
+            batch.clear();
+        }
+
+        // 2. 写入当前事件
+        apply(List.of(event));
+    }
+
+    /**
+     * 收藏事件缓冲区监控快照
+     */
+    public RingBuffer.Stats ringStats() {
+        return ring.stats();
+    }
+
+    /**
+     * 消费循环：有事件时立即取出一批处理，缓冲区为空时短暂休眠
+     */
+    private void consumeLoop() {
+        int batchSize = pipelineProperties.getBatchSize();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(pipelineProperties.getIdleWaitMillis());
+        List<FavoriteEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            if (drainAndProcess(batch, batchSize) == 0) {
+                LockSupport.parkNanos(idleNanos);
+                continue;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * 取出一批事件并处理（与 {@link #applyInOrder(FavoriteEvent)} 互斥）
+     *
+     * @return 取出的事件数
+     */
+    private synchronized int drainAndProcess(List<FavoriteEvent> batch, int batchSize) {
+        int drained = ring.drainTo(batch, batchSize);
+        if (drained > 0) {
+            process(batch);
+        }
+        return drained;
+    }
+
+    /**
+     * 处理一批事件（失败时整批重试）
+     */
+    private void process(List<FavoriteEvent> batch) {
+        int maxRetries = pipelineProperties.getMaxRetries();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                apply(batch);
+                return;
+            } catch (Exception e) {
+                if (attempt >= maxRetries) {
+                    log.error("❌ 收藏事件批量写入失败，已重试 {} 次，逐个写入 {} 个事件", maxRetries, batch.size(), e);
+                    applyEach(batch);
+                    return;
+                }
+                log.warn("⚠️ 收藏事件批量写入失败，第 {} 次重试, 原因: {}", attempt + 1, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L * (attempt + 1)));
+            }
+        }
+    }
+
+    /**
+     * 逐个事件单独写入（整批重试仍失败时），按原顺序写入，单个事件失败不影响其他事件
+     */
+    private void applyEach(List<FavoriteEvent> batch) {
+        int dropped = 0;
+        for (FavoriteEvent event : batch) {
+            try {
+                apply(List.of(event));
+            } catch (Exception e) {
+                dropped++;
+                log.error("❌ 收藏事件写入失败，丢弃: userId={}, musicId={}, favorite={}, time={}, 原因: {}",
+                        event.userId(), event.musicId(), event.favorite(), event.time(), e.getMessage());
+            }
+        }
+        if (dropped > 0) {
+            log.error("❌ 收藏事件逐个写入完成: 共 {} 个, 丢弃 {} 个", batch.size(), dropped);
+        }
+    }
+
+    private void apply(List<FavoriteEvent> batch) {
+        // 1. 合并同一用户对同一音乐的操作，只保留最后一次
+        Map<Key, FavoriteEvent> latest = new LinkedHashMap<>();
+        for (FavoriteEvent event : batch) {
+            latest.put(new Key(event.userId(), event.musicId()), event);
+        }
+
+        // 2. 一次查询当前收藏状态
+        List<Favorite> keys = latest.keySet().stream().map(key -> {
+            Favorite favorite = new Favorite();
+            favorite.setUserId(key.userId());
+            favorite.setMusicId(key.musicId());
+            return favorite;
+        }).collect(Collectors.toList());
+        Map<Key, Boolean> active = favoriteMapper.selectByUserAndMusic(keys).stream()
+                .collect(Collectors.toMap(favorite -> new Key(favorite.getUserId(), favorite.getMusicId()),
+                        favorite -> favorite.getIsDeleted() == 0));
+
+        // 3. 计算状态变化与收藏次数增量
+        List<Favorite> changed = new ArrayList<>();
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Key, FavoriteEvent> entry : latest.entrySet()) {
+            FavoriteEvent event = entry.getValue();
+            if (active.getOrDefault(entry.getKey(), false) == event.favorite()) {
+                continue;
+            }
+            Favorite favorite = new Favorite();
+            favorite.setUserId(event.userId());
+            favorite.setMusicId(event.musicId());
+            favorite.setIsDeleted(event.favorite() ? 0 : 1);
+            favorite.setCreateTime(event.time());
+            favorite.setUpdateTime(event.time());
+            changed.add(favorite);
+            deltas.merge(event.musicId(), event.favorite() ? 1L : -1L, Long::sum);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        // 4. 在一个事务中批量写入
+        transactionTemplate.executeWithoutResult(status -> {
+            favoriteMapper.upsertBatch(changed);
+            if (!deltas.isEmpty()) {
+                musicMapper.incrementFavoriteCounts(deltas);
+                detailCacheService.evict(deltas.keySet());
+            }
+        });
+        log.debug("收藏事件批量写入完成: 事件 {} 个, 状态变化 {} 条, 歌曲 {} 首",
+                batch.size(), changed.size(), deltas.size());
+    }
+}
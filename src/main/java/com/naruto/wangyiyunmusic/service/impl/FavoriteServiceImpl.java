@@ -15,8 +15,9 @@ import com.naruto.wangyiyunmusic.service.ArtistNameService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -27,6 +28,10 @@ import java.util.stream.Collectors;
  * 收藏表 服务实现类
  * </p>
  *
+ * <p>收藏异步管道启用时，收藏/取消收藏只发布事件，由 {@link FavoriteEventPipeline} 批量写入；
+ * 此时重复收藏、取消未收藏的音乐不再报错，而是被忽略。缓冲区已满时经由管道在当前线程写入（先处理已排队的事件，保证顺序），
+ * 管道禁用时同步写入</p>
+ *
  * @author naruto
  * @since 2026-01-24
  */
@@ -39,69 +44,53 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
     @Autowired
     private ArtistNameService artistNameService;
 
-    @Override
-    @Transactional
-    public void addFavorite(Long musicId) {
-        Long userId = 0L; // 暂时默认0
+    @Autowired
+    private MusicExistenceCache musicExistenceCache;
 
-        // 验证音乐是否存在
-        Music music = musicService.getById(musicId);
-        if (music == null) {
-            throw new BusinessException("音乐不存在");
-        }
+    @Autowired
+    private FavoriteEventPipeline favoriteEventPipeline;
 
-        // 检查是否已收藏
-        Favorite existing = this.getOne(
-                new LambdaQueryWrapper<Favorite>()
-                        .eq(Favorite::getUserId, userId)
-                        .eq(Favorite::getMusicId, musicId)
-        );
+    @Autowired
+    private FavoriteCounterService favoriteCounterService;
 
-        if (existing != null && existing.getIsDeleted() == 0) {
-            throw new BusinessException("已收藏该音乐");
-        }
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
-        if (existing != null) {
-            // 恢复收藏
-            existing.setIsDeleted(0);
-            this.updateById(existing);
-        } else {
-            // 新增收藏
-            Favorite favorite = new Favorite();
-            favorite.setUserId(userId);
-            favorite.setMusicId(musicId);
-            this.save(favorite);
+    @Override
+    public void addFavorite(Long musicId) {
+        Long userId = 0L; // 暂时默认0
+
+        // 1. 异步：校验音乐存在后发布收藏事件，缓冲区已满时在当前线程按顺序写入
+        if (favoriteEventPipeline.isEnabled()) {
+            musicExistenceCache.requireExists(musicId);
+            FavoriteEventPipeline.FavoriteEvent event =
+                    new FavoriteEventPipeline.FavoriteEvent(userId, musicId, true, LocalDateTime.now());
+            if (!favoriteEventPipeline.publish(event)) {
+                favoriteEventPipeline.applyInOrder(event);
+            }
+            return;
         }
 
-        // 更新音乐收藏次数（复用已查询的 music 对象）
-        music.setFavoriteCount(music.getFavoriteCount() + 1);
-        musicService.updateById(music);
+        // 2. 同步写入（管道禁用）
+        transactionTemplate.executeWithoutResult(status -> addFavoriteDirectly(userId, musicId));
     }
 
     @Override
-    @Transactional
     public void removeFavorite(Long musicId) {
         Long userId = 0L; // 暂时默认0
 
-        // 检查收藏是否存在
-        Favorite favorite = this.getOne(
-                new LambdaQueryWrapper<Favorite>()
-                        .eq(Favorite::getUserId, userId)
-                        .eq(Favorite::getMusicId, musicId)
-        );
-
-        if (favorite == null || favorite.getIsDeleted() == 1) {
-            throw new BusinessException("未收藏该音乐");
+        // 1. 异步：发布取消收藏事件，缓冲区已满时在当前线程按顺序写入
+        if (favoriteEventPipeline.isEnabled()) {
+            FavoriteEventPipeline.FavoriteEvent event =
+                    new FavoriteEventPipeline.FavoriteEvent(userId, musicId, false, LocalDateTime.now());
+            if (!favoriteEventPipeline.publish(event)) {
+                favoriteEventPipeline.applyInOrder(event);
+            }
+            return;
         }
 
-        this.removeById(favorite.getId());
-
-        // 更新音乐收藏次数
-        Music music = musicService.getById(musicId);
-        if (music != null && music.getFavoriteCount() > 0) {
-            music.setFavoriteCount(music.getFavoriteCount() - 1);
-            musicService.updateById(music);
-        }
+        // 2. 同步写入（管道禁用）
+        transactionTemplate.executeWithoutResult(status -> removeFavoriteDirectly(userId, musicId));
     }
 
     @Override
@@ -160,4 +149,46 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         result.setRecords(favoriteVOList);
         return result;
     }
+
+    private void addFavoriteDirectly(Long userId, Long musicId) {
+        // 验证音乐是否存在
+        musicExistenceCache.requireExists(musicId);
+
+        // 检查是否已收藏（包含已取消的记录）
+        Favorite key = new Favorite();
+        key.setUserId(userId);
+        key.setMusicId(musicId);
+        List<Favorite> existing = baseMapper.selectByUserAndMusic(List.of(key));
+        if (!existing.isEmpty() && existing.get(0).getIsDeleted() == 0) {
+            throw new BusinessException("已收藏该音乐");
+        }
+
+        // 新增收藏，或恢复已取消的收藏
+        LocalDateTime now = LocalDateTime.now();
+        key.setIsDeleted(0);
+        key.setCreateTime(now);
+        key.setUpdateTime(now);
+        baseMapper.upsertBatch(List.of(key));
+
+        // 原子累加音乐收藏次数
+        favoriteCounterService.adjust(musicId, 1);
+    }
+
+    private void removeFavoriteDirectly(Long userId, Long musicId) {
+        // 检查收藏是否存在
+        Favorite favorite = this.getOne(
+                new LambdaQueryWrapper<Favorite>()
+                        .eq(Favorite::getUserId, userId)
+                        .eq(Favorite::getMusicId, musicId)
+        );
+
+        if (favorite == null || favorite.getIsDeleted() == 1) {
+            throw new BusinessException("未收藏该音乐");
+        }
+
+        this.removeById(favorite.getId());
+
+        // 原子扣减音乐收藏次数
+        favoriteCounterService.adjust(musicId, -1);
+    }
 }
@@ -0,0 +1,145 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.naruto.wangyiyunmusic.common.CursorCodec;
+import com.naruto.wangyiyunmusic.exception.BusinessException;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标（Keyset）分页查询辅助类
+ *
+ * <p>以 (排序字段, id) 作为复合排序键，下一页条件为"排序键在上一页最后一行之后"，
+ * 配合 (排序字段, id) 索引可直接定位，不需要 OFFSET 跳过前面的行，也不执行 COUNT 查询</p>
+ *
+ * <p>可空排序字段（如专辑发行日期）按 MySQL 规则处理：NULL 视为最小值，升序排在最前、降序排在最后</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+final class KeysetQuerySupport {
+
+    /**
+     * 单页最大条数
+     */
+    static final int MAX_PAGE_SIZE = 100;
+
+    private KeysetQuerySupport() {
+    }
+
+    /**
+     * 添加排序与游标条件，并限制返回条数（多查一条用于判断是否还有下一页）
+     *
+     * @param wrapper   查询包装器
+     * @param column    排序字段
+     * @param idColumn  ID字段
+     * @param type      排序字段类型（用于解析游标中的排序值）
+     * @param sortField 排序字段名（写入游标）
+     * @param asc       是否升序
+     * @param cursor    游标（首页为空）
+     * @param pageSize  每页条数
+     * @param <T>       实体类型
+     */
+    static <T> void apply(LambdaQueryWrapper<T> wrapper, SFunction<T, ?> column, SFunction<T, Long> idColumn,
+                          Class<?> type, String sortField, boolean asc, String cursor, int pageSize) {
+        // 1. 游标条件
+        if (StringUtils.hasText(cursor)) {
+            CursorCodec.Cursor decoded = CursorCodec.decode(cursor, sortField, sortOrder(asc));
+            Object value = parseValue(decoded.value(), type);
+            Long id = decoded.id();
+
+            if (asc) {
+                if (value == null) {
+                    // NULL 段内继续，之后是全部非 NULL 行
+                    wrapper.and(w -> w.nested(n -> n.isNull(column).gt(idColumn, id)).or().isNotNull(column));
+                } else {
+                    wrapper.and(w -> w.gt(column, value).or(o -> o.eq(column, value).gt(idColumn, id)));
+                }
+            } else {
+                if (value == null) {
+                    // 已进入末尾的 NULL 段
+                    wrapper.isNull(column).lt(idColumn, id);
+                } else {
+                    wrapper.and(w -> w.lt(column, value)
+                            .or(o -> o.eq(column, value).lt(idColumn, id))
+                            .or().isNull(column));
+                }
+            }
+        }
+
+        // 2. 排序（排序字段相同时按ID排序，保证顺序稳定）
+        wrapper.orderBy(true, asc, column).orderBy(true, asc, idColumn);
+
+        // 3. 多查一条判断是否还有下一页
+        wrapper.last("LIMIT " + (limit(pageSize) + 1));
+    }
+
+    /**
+     * 构造游标分页结果
+     *
+     * @param rows      查询结果（最多比每页条数多一条）
+     * @param pageSize  每页条数
+     * @param sortField 排序字段名
+     * @param asc       是否升序
+     * @param sortValue 读取行的排序值
+     * @param idValue   读取行的ID
+     * @param converter 实体转视图对象
+     * @param <T>       实体类型
+     * @param <V>       视图对象类型
+     * @return 游标分页结果
+     */
+    static <T, V> CursorPageVO<V> toPage(List<T> rows, int pageSize, String sortField, boolean asc,
+                                         Function<T, Object> sortValue, Function<T, Long> idValue,
+                                         Function<T, V> converter) {
+        int limit = limit(pageSize);
+        boolean hasMore = rows.size() > limit;
+        List<T> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        CursorPageVO<V> page = new CursorPageVO<>();
+        page.setRecords(pageRows.stream().map(converter).toList());
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            T last = pageRows.get(pageRows.size() - 1);
+            page.setNextCursor(CursorCodec.encode(sortField, sortOrder(asc), sortValue.apply(last), idValue.apply(last)));
+        }
+        return page;
+    }
+
+    private static int limit(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
+    private static String sortOrder(boolean asc) {
+        return asc ? "asc" : "desc";
+    }
+
+    /**
+     * 解析游标中的排序值
+     */
+    private static Object parseValue(String value, Class<?> type) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            }
+            if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            }
+            if (type == Long.class) {
+                return Long.parseLong(value);
+            }
+            return value;
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new BusinessException("无效的分页游标");
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.naruto.wangyiyunmusic.common.TransactionCallbacks;
+import com.naruto.wangyiyunmusic.config.properties.MusicCacheProperties;
+import com.naruto.wangyiyunmusic.mapper.MusicArtistMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicTagMapper;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.model.entity.MusicArtist;
+import com.naruto.wangyiyunmusic.model.entity.MusicTag;
+import com.naruto.wangyiyunmusic.model.vo.MusicDetailVO;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 音乐详情多级缓存服务
+ *
+ * <p>缓存组装完成的 {@link MusicDetailVO}（音乐、专辑、分类、歌手、标签共7条SQL），热门详情页命中时不访问数据库：</p>
+ * <ul>
+ *   <li>L1：进程内 Guava Cache，按条数淘汰，写入后过期</li>
+ *   <li>L2：Redis（可选，多实例共享），L1 未命中时读取，命中后回填 L1</li>
+ * </ul>
+ *
+ * <p>失效：音乐、专辑、歌手、标签及关联关系变更时调用 evict 系列方法，
+ * 处于事务中时延迟到事务提交后执行，避免并发读取在提交前回填旧数据。
+ * 播放次数变更不触发失效，计数字段最多滞后 L1 过期时间；启用 L2 时 L1 过期后可能从 L2 回填旧值，
+ * 最多滞后 L2 + L1 过期时间（默认 600 + 60 秒）</p>
+ *
+ * <p>L2 只在本节点删除，其他节点的 L1 在过期后刷新；Redis 不可用时降级为只使用 L1</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class MusicDetailCacheService {
+
+    /**
+     * Redis 异常日志最小间隔（毫秒）
+     */
+    private static final long FAILURE_LOG_INTERVAL_MILLIS = 10_000L;
+
+    @Autowired
+    private MusicCacheProperties cacheProperties;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private MusicMapper musicMapper;
+
+    @Autowired
+    private MusicArtistMapper musicArtistMapper;
+
+    @Autowired
+    private MusicTagMapper musicTagMapper;
+
+    /**
+     * L1：音乐ID -> 音乐详情
+     */
+    private Cache<Long, MusicDetailVO> localCache;
+
+    /**
+     * 上次输出 Redis 异常日志的时间
+     */
+    private volatile long lastFailureLogTime;
+
+    @PostConstruct
+    public void init() {
+        MusicCacheProperties.DetailConfig config = cacheProperties.getDetail();
+        this.localCache = CacheBuilder.newBuilder()
+                .maximumSize(config.getLocalMaxSize())
+                .expireAfterWrite(config.getLocalTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+        log.info("✅ 音乐详情缓存初始化完成, 启用: {}, L1 容量: {}, L2(Redis): {}",
+                config.getEnabled(), config.getLocalMaxSize(), config.getRedisEnabled() ? "启用" : "禁用");
+    }
+
+    /**
+     * 读取音乐详情（L1 -> L2 -> 数据库）
+     *
+     * @param id     音乐ID
+     * @param loader 缓存未命中时的加载函数（音乐不存在时抛出异常，不缓存）
+     * @return 音乐详情
+     */
+    public MusicDetailVO get(Long id, Function<Long, MusicDetailVO> loader) {
+        MusicCacheProperties.DetailConfig config = cacheProperties.getDetail();
+        if (!config.getEnabled()) {
+            return loader.apply(id);
+        }
+
+        // 1. L1
+        MusicDetailVO vo = localCache.getIfPresent(id);
+        if (vo != null) {
+            return vo;
+        }
+
+        // 2. L2
+        vo = readRedis(id);
+        if (vo != null) {
+            localCache.put(id, vo);
+            return vo;
+        }
+
+        // 3. 数据库（并发未命中时各自加载，结果一致，不加锁）
+        vo = loader.apply(id);
+        localCache.put(id, vo);
+        writeRedis(id, vo);
+        return vo;
+    }
+
+    /**
+     * 失效指定音乐的详情缓存（音乐本身或歌手/标签关联变更）
+     *
+     * @param musicId 音乐ID
+     */
+    public void evict(Long musicId) {
+        if (musicId != null) {
+            evict(List.of(musicId));
+        }
+    }
+
+    /**
+     * 批量失效音乐详情缓存
+     *
+     * @param musicIds 音乐ID集合
+     */
+    public void evict(Collection<Long> musicIds) {
+        if (musicIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(musicIds);
+        TransactionCallbacks.afterCommit(() -> {
+            localCache.invalidateAll(ids);
+            deleteRedis(ids);
+            log.debug("失效音乐详情缓存: {}", ids);
+        });
+    }
+
+    /**
+     * 专辑变更：失效该专辑下所有音乐
+     *
+     * @param albumId 专辑ID
+     */
+    public void evictByAlbum(Long albumId) {
+        evict(musicMapper.selectList(new LambdaQueryWrapper<Music>()
+                        .select(Music::getId)
+                        .eq(Music::getAlbumId, albumId))
+                .stream().map(Music::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * 歌手变更：失效该歌手关联的所有音乐
+     *
+     * @param artistId 歌手ID
+     */
+    public void evictByArtist(Long artistId) {
+        evict(musicArtistMapper.selectList(new LambdaQueryWrapper<MusicArtist>()
+                        .select(MusicArtist::getMusicId)
+                        .eq(MusicArtist::getArtistId, artistId))
+                .stream().map(MusicArtist::getMusicId).collect(Collectors.toList()));
+    }
+
+    /**
+     * 标签变更：失效该标签关联的所有音乐
+     *
+     * @param tagId 标签ID
+     */
+    public void evictByTag(Long tagId) {
+        evict(musicTagMapper.selectList(new LambdaQueryWrapper<MusicTag>()
+                        .select(MusicTag::getMusicId)
+                        .eq(MusicTag::getTagId, tagId))
+                .stream().map(MusicTag::getMusicId).collect(Collectors.toList()));
+    }
+
+    /**
+     * 分类变更：失效该分类下所有音乐
+     *
+     * @param categoryId 分类ID
+     */
+    public void evictByCategory(Long categoryId) {
+        evict(musicMapper.selectList(new LambdaQueryWrapper<Music>()
+                        .select(Music::getId)
+                        .eq(Music::getCategoryId, categoryId))
+                .stream().map(Music::getId).collect(Collectors.toList()));
+    }
+
+    private MusicDetailVO readRedis(Long id) {
+        if (!cacheProperties.getDetail().getRedisEnabled()) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(redisKey(id));
+            return json != null ? JSON.parseObject(json, MusicDetailVO.class) : null;
+        } catch (DataAccessException e) {
+            logFailure(e);
+            return null;
+        }
+    }
+
+    private void writeRedis(Long id, MusicDetailVO vo) {
+        MusicCacheProperties.DetailConfig config = cacheProperties.getDetail();
+        if (!config.getRedisEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(redisKey(id), JSON.toJSONString(vo),
+                    config.getRedisTtlSeconds(), TimeUnit.SECONDS);
+        } catch (DataAccessException e) {
+            logFailure(e);
+        }
+    }
+
+    private void deleteRedis(Set<Long> ids) {
+        if (!cacheProperties.getDetail().getRedisEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(ids.stream().map(this::redisKey).collect(Collectors.toList()));
+        } catch (DataAccessException e) {
+            logFailure(e);
+        }
+    }
+
+    private String redisKey(Long id) {
+        return cacheProperties.getDetail().getRedisKeyPrefix() + id;
+    }
+
+    /**
+     * 输出 Redis 异常日志（限制频率，避免 Redis 故障时刷屏）
+     */
+    private void logFailure(DataAccessException e) {
+        long now = System.currentTimeMillis();
+        if (now - lastFailureLogTime >= FAILURE_LOG_INTERVAL_MILLIS) {
+            lastFailureLogTime = now;
+            log.warn("⚠️ 音乐详情 L2 缓存不可用，降级为只使用 L1: {}", e.getMessage());
+        }
+    }
+}
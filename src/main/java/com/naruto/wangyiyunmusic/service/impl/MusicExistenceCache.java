@@ -0,0 +1,62 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.naruto.wangyiyunmusic.config.properties.EventPipelineProperties;
+import com.naruto.wangyiyunmusic.exception.BusinessException;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.service.MusicService;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 音乐存在性校验缓存
+ *
+ * <p>播放、收藏等高频写入只需确认音乐ID存在，不读取整行数据；
+ * 只缓存存在的ID，音乐删除后最多10分钟内仍可通过校验</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Service
+public class MusicExistenceCache {
+
+    @Autowired
+    private MusicService musicService;
+
+    @Autowired
+    private EventPipelineProperties pipelineProperties;
+
+    /**
+     * 已确认存在的音乐ID
+     */
+    private Cache<Long, Boolean> existingMusic;
+
+    @PostConstruct
+    public void init() {
+        this.existingMusic = CacheBuilder.newBuilder()
+                .maximumSize(pipelineProperties.getExistenceCacheSize())
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 校验音乐存在
+     *
+     * @param musicId 音乐ID
+     * @throws BusinessException 音乐不存在
+     */
+    public void requireExists(Long musicId) {
+        if (existingMusic.getIfPresent(musicId) != null) {
+            return;
+        }
+        boolean exists = musicService.lambdaQuery().eq(Music::getId, musicId).exists();
+        if (!exists) {
+            throw new BusinessException("音乐不存在");
+        }
+        existingMusic.put(musicId, Boolean.TRUE);
+    }
+}
@@ -8,15 +8,18 @@ import com.naruto.wangyiyunmusic.model.dto.MusicQueryDTO;
 import com.naruto.wangyiyunmusic.model.entity.*;
 import com.naruto.wangyiyunmusic.mapper.MusicMapper;
 import com.naruto.wangyiyunmusic.model.vo.ArtistVO;
+import com.naruto.wangyiyunmusic.model.vo.CursorPageVO;
 import com.naruto.wangyiyunmusic.model.vo.MusicDetailVO;
 import com.naruto.wangyiyunmusic.model.vo.MusicListVO;
 import com.naruto.wangyiyunmusic.service.*;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -55,6 +58,15 @@ public class MusicServiceImpl extends ServiceImpl<MusicMapper, Music> implements
     @Autowired
     private MusicTagService musicTagService;
 
+    @Autowired
+    private MusicDetailCacheService detailCacheService;
+
+    /**
+     * 是否使用单条关联查询组装音乐详情（false 时逐表查询，用于对比压测）
+     */
+    @Value("${music.detail.joined-query:true}")
+    private boolean joinedQuery;
+
     @Override
     public IPage<MusicListVO> pageQuery(MusicQueryDTO queryDTO) {
         // 1. 构建分页对象
@@ -63,6 +75,14 @@ public class MusicServiceImpl extends ServiceImpl<MusicMapper, Music> implements
         // 2. 构建查询条件
         LambdaQueryWrapper<Music> wrapper = buildQueryWrapper(queryDTO);
 
+        // 排序
+        boolean asc = "asc".equals(queryDTO.getSortOrder());
+        if ("play_count".equals(queryDTO.getSortField())) {
+            wrapper.orderBy(true, asc, Music::getPlayCount);
+        } else {
+            wrapper.orderBy(true, asc, Music::getCreateTime);
+        }
+
         // 3. 查询音乐分页数据
         IPage<Music> musicPage = this.page(page, wrapper);
 
@@ -80,8 +100,35 @@ public class MusicServiceImpl extends ServiceImpl<MusicMapper, Music> implements
         return result;
     }
 
+    @Override
+    public CursorPageVO<MusicListVO> cursorQuery(MusicQueryDTO queryDTO) {
+        // 1. 构建筛选条件
+        LambdaQueryWrapper<Music> wrapper = buildQueryWrapper(queryDTO);
+
+        // 2. 添加 (排序字段, id) 游标条件与排序
+        boolean asc = "asc".equals(queryDTO.getSortOrder());
+        boolean byPlayCount = "play_count".equals(queryDTO.getSortField());
+        String sortField = byPlayCount ? "play_count" : "create_time";
+        if (byPlayCount) {
+            KeysetQuerySupport.apply(wrapper, Music::getPlayCount, Music::getId, Long.class,
+                    sortField, asc, queryDTO.getCursor(), queryDTO.getPageSize());
+        } else {
+            KeysetQuerySupport.apply(wrapper, Music::getCreateTime, Music::getId, LocalDateTime.class,
+                    sortField, asc, queryDTO.getCursor(), queryDTO.getPageSize());
+        }
+
+        // 3. 查询并构造结果
+        CursorPageVO<MusicListVO> result = KeysetQuerySupport.toPage(this.list(wrapper), queryDTO.getPageSize(),
+                sortField, asc, music -> byPlayCount ? music.getPlayCount() : music.getCreateTime(),
+                Music::getId, this::convertToListVO);
+
+        // 4. 批量填充歌手名称
+        artistNameService.fillArtistNames(result.getRecords());
+        return result;
+    }
+
     /**
-     * 构建查询条件
+     * 构建筛选条件（不含排序）
      *
      * @param queryDTO 查询条件
      * @return 查询包装器
@@ -99,13 +146,6 @@ public class MusicServiceImpl extends ServiceImpl<MusicMapper, Music> implements
             wrapper.like(Music::getTitle, queryDTO.getKeyword());
         }
 
-        // 排序
-        if ("play_count".equals(queryDTO.getSortField())) {
-            wrapper.orderBy(true, "asc".equals(queryDTO.getSortOrder()), Music::getPlayCount);
-        } else {
-            wrapper.orderBy(true, "asc".equals(queryDTO.getSortOrder()), Music::getCreateTime);
-        }
-
         return wrapper;
     }
 
@@ -124,6 +164,35 @@ public class MusicServiceImpl extends ServiceImpl<MusicMapper, Music> implements
 
     @Override
     public MusicDetailVO getMusicDetail(Long id) {
+        return detailCacheService.get(id, this::loadMusicDetail);
+    }
+
+    /**
+     * 从数据库组装音乐详情（缓存未命中时调用）
+     *
+     * @param id 音乐ID
+     * @return 音乐详情
+     */
+    private MusicDetailVO loadMusicDetail(Long id) {
+        if (!joinedQuery) {
+            return loadMusicDetailSeparately(id);
+        }
+
+        // 单条SQL关联查询专辑、分类、歌手、标签
+        MusicDetailVO vo = baseMapper.selectMusicDetail(id);
+        if (vo == null) {
+            throw new BusinessException("音乐不存在");
+        }
+        return vo;
+    }
+
+    /**
+     * 逐表查询组装音乐详情（最多7条SQL）
+     *
+     * @param id 音乐ID
+     * @return 音乐详情
+     */
+    private MusicDetailVO loadMusicDetailSeparately(Long id) {
         // 查询音乐基本信息
         Music music = this.getById(id);
         if (music == null) {
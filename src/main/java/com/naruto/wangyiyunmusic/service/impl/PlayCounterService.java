@@ -0,0 +1,362 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.config.properties.EventPipelineProperties;
+import com.naruto.wangyiyunmusic.config.properties.PlayCounterProperties;
+import com.naruto.wangyiyunmusic.mapper.MusicMapper;
+import com.naruto.wangyiyunmusic.mapper.PlayRecordMapper;
+import com.naruto.wangyiyunmusic.model.entity.PlayRecord;
+import com.naruto.wangyiyunmusic.service.event.RingBuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 播放计数写后合并服务
+ *
+ * <p>播放请求只写内存，由后台线程定期合并写入数据库，热门歌曲不再每次播放都锁同一行：</p>
+ * <ul>
+ *   <li>播放次数：按音乐ID累加到 {@link LongAdder}（分段计数，高并发下无竞争）</li>
+ *   <li>播放记录：放入有界环形缓冲区 {@link RingBuffer}，已满时短暂等待，仍满则该次播放降级为同步写入</li>
+ *   <li>刷写：每隔固定时间（根据配置）在一个事务中批量插入播放记录，
+ *       并以 play_count = play_count + CASE id ... END 一次累加多首歌曲的播放次数；失败时放回内存，下次重试</li>
+ *   <li>预写日志（可选）：播放先追加到本地日志，刷写提交后删除对应日志段；
+ *       重启时残留的日志段逐个同步写入数据库，不经过内存队列</li>
+ * </ul>
+ *
+ * <p>数据库中的播放次数与播放历史最多滞后一个刷写间隔；应用正常关闭时会先刷写一次</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class PlayCounterService {
+
+    @Autowired
+    private PlayCounterProperties counterProperties;
+
+    @Autowired
+    private EventPipelineProperties pipelineProperties;
+
+    @Autowired
+    private MusicMapper musicMapper;
+
+    @Autowired
+    private PlayRecordMapper playRecordMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 待刷写的播放次数：音乐ID -> 累加器
+     */
+    private final Map<Long, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+
+    /**
+     * 上次刷写时移除的空累加器（移除前取到引用的并发写入可能仍在累加，下次刷写时再读取一次）
+     */
+    private final List<Map.Entry<Long, LongAdder>> retiredCounters = new ArrayList<>();
+
+    /**
+     * 待写入的播放记录
+     */
+    private RingBuffer<PlayRecord> pendingRecords;
+
+    /**
+     * 预写日志（未启用时为null）
+     */
+    private PlayCounterWal wal;
+
+    /**
+     * 已切换出的、尚未写入数据库的日志段
+     */
+    private final List<Path> unflushedSegments = new ArrayList<>();
+
+    /**
+     * 启用预写日志时，写入（读锁）与切换日志段（写锁）互斥，保证日志段与内存中的数据一一对应
+     */
+    private final ReadWriteLock walLock = new ReentrantReadWriteLock();
+
+    /**
+     * 刷写线程
+     */
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "play-counter-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() throws IOException {
+        this.pendingRecords = new RingBuffer<>("play", counterProperties.getQueueCapacity());
+        if (!counterProperties.getWriteBehindEnabled()) {
+            log.info("播放计数写后合并已禁用，每次播放同步写入数据库");
+            return;
+        }
+
+        // 1. 打开预写日志，重放上次未刷写的播放
+        PlayCounterProperties.WalConfig walConfig = counterProperties.getWal();
+        if (walConfig.getEnabled()) {
+            this.wal = new PlayCounterWal(Path.of(walConfig.getPath()).toAbsolutePath().normalize(),
+                    walConfig.getSyncEachWrite());
+            replay(wal.recoveredSegments());
+        }
+
+        // 2. 启动定时刷写
+        long interval = counterProperties.getFlushIntervalMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("✅ 播放计数写后合并已启用, 刷写间隔: {} ms, 预写日志: {}",
+                interval, wal != null ? walConfig.getPath() : "禁用");
+    }
+
+    /**
+     * 重放上次未刷写的日志段
+     *
+     * <p>每个日志段在一个事务中同步写入数据库，提交后删除，残留的播放数不受队列容量限制；
+     * 写入失败（如数据库暂不可用）时放入内存等待定时刷写，队列放不下的日志段保留到下次启动再重放</p>
+     *
+     * @param segments 残留的日志段（按序号升序）
+     * @throws IOException 读取日志段失败
+     */
+    private void replay(List<Path> segments) throws IOException {
+        int replayed = 0;
+        int deferred = 0;
+        for (Path segment : segments) {
+            List<PlayRecord> records = PlayCounterWal.read(segment);
+            Map<Long, Long> deltas = new HashMap<>();
+            records.forEach(record -> deltas.merge(record.getMusicId(), 1L, Long::sum));
+
+            // 1. 同步写入，提交后删除日志段
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(records, deltas));
+                wal.delete(List.of(segment));
+                replayed += records.size();
+                continue;
+            } catch (Exception e) {
+                log.warn("⚠️ 重放播放计数日志段写入失败: {}, 原因: {}", segment, e.getMessage());
+            }
+
+            // 2. 写入失败：整段放入内存（整段放入或整段保留，避免一个日志段被部分计入后重启时重复计入）
+            if (records.size() <= pendingRecords.capacity() - pendingRecords.size()) {
+                records.forEach(pendingRecords::tryPublish);
+                deltas.forEach((musicId, delta) ->
+                        pendingCounts.computeIfAbsent(musicId, k -> new LongAdder()).add(delta));
+                unflushedSegments.add(segment);
+            } else {
+                deferred++;
+                log.error("❌ 播放计数日志段 {} 的 {} 次播放超过队列剩余容量，保留到下次启动重放", segment, records.size());
+            }
+        }
+        if (replayed > 0 || !unflushedSegments.isEmpty() || deferred > 0) {
+            log.warn("⚠️ 重放播放计数日志: 已写入 {} 次播放, 待刷写日志段 {} 个, 保留日志段 {} 个",
+                    replayed, unflushedSegments.size(), deferred);
+        }
+    }
+
+    /**
+     * 停止前刷写剩余数据
+     */
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(counterProperties.getFlushIntervalMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (counterProperties.getWriteBehindEnabled()) {
+            flush();
+        }
+        if (wal != null) {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.debug("关闭播放计数日志失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 记录一次播放
+     *
+     * @param record 播放记录（需设置播放时间）
+     */
+    public void record(PlayRecord record) {
+        if (!counterProperties.getWriteBehindEnabled()) {
+            writeDirectly(record);
+            return;
+        }
+
+        if (wal == null) {
+            if (!pendingRecords.publish(record, pipelineProperties.getPublishTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                writeDirectly(record);
+                return;
+            }
+            pendingCounts.computeIfAbsent(record.getMusicId(), k -> new LongAdder()).increment();
+            return;
+        }
+
+        // 启用预写日志：先入队，再写日志，最后计数（读锁保证三者落在同一个日志段）
+        // 持有读锁时刷写线程无法取出数据，缓冲区已满时不等待，释放读锁后再同步写入（避免阻塞刷写线程切换日志段）
+        walLock.readLock().lock();
+        try {
+            if (pendingRecords.publish(record, 0, TimeUnit.MILLISECONDS)) {
+                try {
+                    wal.append(record);
+                } catch (IOException e) {
+                    log.warn("⚠️ 写入播放计数日志失败，本次播放仅保存在内存: {}", e.getMessage());
+                }
+                pendingCounts.computeIfAbsent(record.getMusicId(), k -> new LongAdder()).increment();
+                return;
+            }
+        } finally {
+            walLock.readLock().unlock();
+        }
+        writeDirectly(record);
+    }
+
+    /**
+     * 播放记录缓冲区监控快照
+     */
+    public RingBuffer.Stats ringStats() {
+        return pendingRecords.stats();
+    }
+
+    /**
+     * 刷写内存中的播放到数据库
+     */
+    synchronized void flush() {
+        try {
+            // 1. 取出待刷写数据（启用预写日志时先切换日志段，切换失败则不取出，数据留在内存与当前日志段中下次重试）
+            List<PlayRecord> records = new ArrayList<>();
+            Map<Long, Long> deltas;
+            List<Path> segments;
+            if (wal != null) {
+                walLock.writeLock().lock();
+                try {
+                    Path rolled = wal.roll();
+                    if (rolled != null) {
+                        unflushedSegments.add(rolled);
+                    }
+                    pendingRecords.drainTo(records, Integer.MAX_VALUE);
+                    deltas = drainCounts();
+                } finally {
+                    walLock.writeLock().unlock();
+                }
+                segments = List.copyOf(unflushedSegments);
+            } else {
+                pendingRecords.drainTo(records, Integer.MAX_VALUE);
+                deltas = drainCounts();
+                segments = List.of();
+            }
+            if (records.isEmpty() && deltas.isEmpty()) {
+                return;
+            }
+
+            // 2. 在一个事务中批量写入
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(records, deltas));
+            } catch (Exception e) {
+                restore(records, deltas);
+                log.error("❌ 播放计数刷写失败，已放回内存等待重试: 播放记录 {} 条, 歌曲 {} 首, 原因: {}",
+                        records.size(), deltas.size(), e.getMessage());
+                return;
+            }
+
+            // 3. 删除已写入的日志段
+            if (wal != null) {
+                wal.delete(segments);
+                unflushedSegments.removeAll(segments);
+            }
+            log.debug("播放计数刷写完成: 播放记录 {} 条, 歌曲 {} 首", records.size(), deltas.size());
+        } catch (Exception e) {
+            log.error("❌ 播放计数刷写异常", e);
+        }
+    }
+
+    /**
+     * 读取并清零所有累加器
+     *
+     * @return 音乐ID -> 播放次数增量
+     */
+    private Map<Long, Long> drainCounts() {
+        Map<Long, Long> deltas = new HashMap<>();
+
+        for (Map.Entry<Long, LongAdder> retired : retiredCounters) {
+            long delta = retired.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.merge(retired.getKey(), delta, Long::sum);
+            }
+        }
+        retiredCounters.clear();
+
+        for (Map.Entry<Long, LongAdder> entry : pendingCounts.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.merge(entry.getKey(), delta, Long::sum);
+            } else if (pendingCounts.remove(entry.getKey(), entry.getValue())) {
+                // 一个周期内没有播放的歌曲移出，避免累加器只增不减
+                retiredCounters.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        return deltas;
+    }
+
+    private void persist(List<PlayRecord> records, Map<Long, Long> deltas) {
+        int batchSize = counterProperties.getBatchSize();
+        for (int i = 0; i < records.size(); i += batchSize) {
+            playRecordMapper.insertBatch(records.subList(i, Math.min(i + batchSize, records.size())));
+        }
+
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        for (int i = 0; i < entries.size(); i += batchSize) {
+            Map<Long, Long> chunk = new HashMap<>();
+            entries.subList(i, Math.min(i + batchSize, entries.size()))
+                    .forEach(entry -> chunk.put(entry.getKey(), entry.getValue()));
+            musicMapper.incrementPlayCounts(chunk);
+        }
+    }
+
+    /**
+     * 刷写失败时放回内存
+     */
+    private void restore(List<PlayRecord> records, Map<Long, Long> deltas) {
+        int dropped = 0;
+        for (PlayRecord record : records) {
+            if (!pendingRecords.tryPublish(record)) {
+                dropped++;
+            }
+        }
+        deltas.forEach((musicId, delta) -> pendingCounts.computeIfAbsent(musicId, k -> new LongAdder()).add(delta));
+        if (dropped > 0) {
+            log.error("❌ 播放记录队列已满，丢弃 {} 条播放记录（播放次数已保留）", dropped);
+        }
+    }
+
+    /**
+     * 同步写入单次播放（写后合并禁用或队列已满时）
+     */
+    private void writeDirectly(PlayRecord record) {
+        transactionTemplate.executeWithoutResult(status -> {
+            playRecordMapper.insert(record);
+            musicMapper.incrementPlayCounts(Map.of(record.getMusicId(), 1L));
+        });
+    }
+}
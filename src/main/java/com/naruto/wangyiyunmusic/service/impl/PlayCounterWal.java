@@ -0,0 +1,241 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.naruto.wangyiyunmusic.model.entity.PlayRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 播放计数预写日志（WAL）
+ *
+ * <p>每次播放在计入内存之前追加一行到当前日志段，刷写时切换到新日志段，
+ * 旧日志段中的播放写入数据库并提交后再删除：</p>
+ * <ul>
+ *   <li>日志段文件名为 play-{序号}.wal，序号递增</li>
+ *   <li>每行一条播放：音乐ID、用户ID、播放时长、播放来源、播放时间（毫秒时间戳），以制表符分隔</li>
+ *   <li>启动时目录中残留的日志段即为上次未完成刷写的播放，由调用方重放</li>
+ * </ul>
+ *
+ * <p>追加可多线程并发调用；切换日志段需由调用方保证没有并发追加</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+final class PlayCounterWal implements Closeable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^play-(\\d+)\\.wal$");
+
+    /**
+     * 日志目录
+     */
+    private final Path directory;
+
+    /**
+     * 是否每次写入后 fsync
+     */
+    private final boolean syncEachWrite;
+
+    /**
+     * 启动时残留的日志段（按序号升序）
+     */
+    private final List<Path> recoveredSegments;
+
+    /**
+     * 当前日志段序号
+     */
+    private long sequence;
+
+    /**
+     * 当前日志段路径
+     */
+    private Path activePath;
+
+    /**
+     * 当前日志段
+     */
+    private volatile FileChannel active;
+
+    /**
+     * 打开日志目录（残留的日志段保留给调用方重放，新的播放写入新日志段）
+     *
+     * @param directory     日志目录
+     * @param syncEachWrite 是否每次写入后 fsync
+     * @throws IOException 创建目录或日志段失败
+     */
+    PlayCounterWal(Path directory, boolean syncEachWrite) throws IOException {
+        this.directory = directory;
+        this.syncEachWrite = syncEachWrite;
+        Files.createDirectories(directory);
+
+        List<Path> segments = new ArrayList<>();
+        long maxSequence = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(file);
+                    maxSequence = Math.max(maxSequence, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        segments.sort(null);
+        this.recoveredSegments = List.copyOf(segments);
+        this.sequence = maxSequence;
+        openNext();
+    }
+
+    /**
+     * 启动时残留的日志段
+     */
+    List<Path> recoveredSegments() {
+        return recoveredSegments;
+    }
+
+    /**
+     * 追加一条播放
+     *
+     * @param record 播放记录
+     * @throws IOException 写入失败
+     */
+    void append(PlayRecord record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(encode(record).getBytes(StandardCharsets.UTF_8));
+        FileChannel channel = active;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (syncEachWrite) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 切换到新日志段
+     *
+     * <p>先打开新日志段再关闭旧日志段：新日志段创建失败时抛出异常，仍继续写入旧日志段</p>
+     *
+     * @return 已关闭的旧日志段（为空时直接删除并返回null）
+     * @throws IOException 创建日志段失败
+     */
+    Path roll() throws IOException {
+        Path previous = activePath;
+        FileChannel previousChannel = active;
+        boolean empty = previousChannel.size() == 0;
+        openNext();
+
+        try {
+            previousChannel.close();
+        } catch (IOException e) {
+            log.warn("⚠️ 关闭播放计数日志段失败: {}, 原因: {}", previous, e.getMessage());
+        }
+        if (empty) {
+            try {
+                Files.deleteIfExists(previous);
+                return null;
+            } catch (IOException e) {
+                log.debug("删除空日志段失败，随下次刷写删除: {}", previous);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * 删除已写入数据库的日志段
+     *
+     * @param segments 日志段
+     */
+    void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("⚠️ 删除播放计数日志段失败（重启时会被重复计入）: {}, 原因: {}", segment, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取日志段中的播放
+     *
+     * @param segment 日志段
+     * @return 播放记录（末尾写了一半的行被跳过）
+     * @throws IOException 读取失败
+     */
+    static List<PlayRecord> read(Path segment) throws IOException {
+        List<PlayRecord> records = new ArrayList<>();
+        int skipped = 0;
+        for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+            PlayRecord record = decode(line);
+            if (record != null) {
+                records.add(record);
+            } else if (!line.isEmpty()) {
+                skipped++;
+            }
+        }
+        if (skipped > 0) {
+            log.warn("⚠️ 播放计数日志段 {} 中有 {} 行无法解析，已跳过", segment, skipped);
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        active.close();
+    }
+
+    /**
+     * 打开下一个日志段（打开成功后才替换当前日志段）
+     */
+    private void openNext() throws IOException {
+        Path nextPath = directory.resolve(String.format("play-%012d.wal", sequence + 1));
+        FileChannel next = FileChannel.open(nextPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sequence++;
+        activePath = nextPath;
+        active = next;
+    }
+
+    private static String encode(PlayRecord record) {
+        long time = record.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String source = record.getPlaySource() != null ? record.getPlaySource().replaceAll("[\\t\\r\\n]", " ") : "";
+        return record.getMusicId() + "\t"
+                + (record.getUserId() != null ? record.getUserId() : "") + "\t"
+                + (record.getPlayDuration() != null ? record.getPlayDuration() : "") + "\t"
+                + source + "\t"
+                + time + "\n";
+    }
+
+    private static PlayRecord decode(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 5) {
+            return null;
+        }
+        try {
+            PlayRecord record = new PlayRecord();
+            record.setMusicId(Long.parseLong(fields[0]));
+            record.setUserId(fields[1].isEmpty() ? null : Long.parseLong(fields[1]));
+            record.setPlayDuration(fields[2].isEmpty() ? null : Integer.parseInt(fields[2]));
+            record.setPlaySource(fields[3].isEmpty() ? null : fields[3]);
+            record.setCreateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields[4])),
+                    ZoneId.systemDefault()));
+            return record;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
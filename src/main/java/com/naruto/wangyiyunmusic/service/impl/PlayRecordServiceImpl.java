@@ -6,19 +6,20 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.naruto.wangyiyunmusic.mapper.PlayRecordMapper;
 import com.naruto.wangyiyunmusic.model.dto.PlayRecordDTO;
-import com.naruto.wangyiyunmusic.model.entity.Music;
 import com.naruto.wangyiyunmusic.model.entity.PlayRecord;
-import com.naruto.wangyiyunmusic.service.MusicService;
 import com.naruto.wangyiyunmusic.service.PlayRecordService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 /**
  * <p>
  * 播放记录表 服务实现类
  * </p>
  *
+ * <p>播放记录与播放次数交给 {@link PlayCounterService} 合并后批量写入，播放请求不再读取并回写整行音乐数据</p>
+ *
  * @author naruto
  * @since 2026-01-24
  */
@@ -26,28 +27,27 @@ import org.springframework.transaction.annotation.Transactional;
 public class PlayRecordServiceImpl extends ServiceImpl<PlayRecordMapper, PlayRecord> implements PlayRecordService {
 
     @Autowired
-    private MusicService musicService;
+    private MusicExistenceCache musicExistenceCache;
+
+    @Autowired
+    private PlayCounterService playCounterService;
 
     @Override
-    @Transactional
     public void recordPlay(PlayRecordDTO recordDTO) {
-        // 验证音乐是否存在
-        Music music = musicService.getById(recordDTO.getMusicId());
-        if (music == null) {
-            throw new com.naruto.wangyiyunmusic.exception.BusinessException("音乐不存在");
-        }
+        // 1. 验证音乐是否存在
+        Long musicId = recordDTO.getMusicId();
+        musicExistenceCache.requireExists(musicId);
 
-        // 插入播放记录
+        // 2. 构建播放记录（播放时间取请求时间，批量写入时不依赖数据库默认值）
         PlayRecord record = new PlayRecord();
-        record.setMusicId(recordDTO.getMusicId());
+        record.setMusicId(musicId);
         record.setUserId(0L); // 暂时默认0
-        record.setPlayDuration(recordDTO.getPlayDuration());
+        record.setPlayDuration(recordDTO.getPlayDuration() != null ? recordDTO.getPlayDuration() : 0);
         record.setPlaySource(recordDTO.getPlaySource());
-        this.save(record);
+        record.setCreateTime(LocalDateTime.now());
 
-        // 更新音乐播放次数
-        music.setPlayCount(music.getPlayCount() + 1);
-        musicService.updateById(music);
+        // 3. 计入播放（写后合并：累加内存计数并排队，由后台批量写入）
+        playCounterService.record(record);
     }
 
     @Override
@@ -0,0 +1,271 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.naruto.wangyiyunmusic.config.properties.MusicSearchProperties;
+import com.naruto.wangyiyunmusic.exception.BusinessException;
+import com.naruto.wangyiyunmusic.model.entity.Album;
+import com.naruto.wangyiyunmusic.model.entity.Artist;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.model.vo.AlbumListVO;
+import com.naruto.wangyiyunmusic.model.vo.ArtistListVO;
+import com.naruto.wangyiyunmusic.model.vo.MusicListVO;
+import com.naruto.wangyiyunmusic.model.vo.SearchResultVO;
+import com.naruto.wangyiyunmusic.model.vo.SuggestionVO;
+import com.naruto.wangyiyunmusic.service.AlbumService;
+import com.naruto.wangyiyunmusic.service.ArtistNameService;
+import com.naruto.wangyiyunmusic.service.ArtistService;
+import com.naruto.wangyiyunmusic.service.MusicService;
+import com.naruto.wangyiyunmusic.service.SearchHistoryService;
+import com.naruto.wangyiyunmusic.service.SearchService;
+import com.naruto.wangyiyunmusic.service.search.SuggestionTrie;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 曲库综合搜索服务实现类
+ *
+ * <p>全文索引可用时由 {@link CatalogSearchIndexService} 给出按相关度排序的ID，再按主键批量读取展示字段；
+ * 索引禁用或首次构建未完成时降级为数据库 LIKE 查询（按热度排序）</p>
+ *
+ * <p>前缀补全只读 {@link SearchSuggestService} 的内存字典树，不访问数据库</p>
+ *
+ * <p>匿名搜索的搜索历史会汇总为热门搜索词进入补全候选，因此按客户端IP去重限流：
+ * 同一客户端的同一关键词在记录窗口内只记录一次，每个客户端每个窗口最多记录固定个数，无结果的搜索不记录</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class SearchServiceImpl implements SearchService {
+
+    /**
+     * 支持的搜索类型
+     */
+    private static final Set<String> TYPES = Set.of("all", "music", "artist", "album");
+
+    /**
+     * 关键词最大长度
+     */
+    private static final int MAX_KEYWORD_LENGTH = 100;
+
+    @Autowired
+    private MusicSearchProperties searchProperties;
+
+    @Autowired
+    private CatalogSearchIndexService searchIndexService;
+
+    @Autowired
+    private SearchSuggestService suggestService;
+
+    @Autowired
+    private MusicService musicService;
+
+    @Autowired
+    private ArtistService artistService;
+
+    @Autowired
+    private AlbumService albumService;
+
+    @Autowired
+    private ArtistNameService artistNameService;
+
+    @Autowired
+    private SearchHistoryService searchHistoryService;
+
+    /**
+     * 窗口内已记录的 客户端IP + 关键词
+     */
+    private Cache<String, Boolean> recordedKeywords;
+
+    /**
+     * 每个客户端在当前窗口内已记录的关键词数（窗口从首次记录开始计算）
+     */
+    private Cache<String, AtomicInteger> clientRecordCounts;
+
+    @PostConstruct
+    public void init() {
+        MusicSearchProperties.HistoryConfig config = searchProperties.getHistory();
+        recordedKeywords = CacheBuilder.newBuilder()
+                .maximumSize(config.getClientCacheSize())
+                .expireAfterWrite(config.getRecordWindowSeconds(), TimeUnit.SECONDS)
+                .build();
+        clientRecordCounts = CacheBuilder.newBuilder()
+                .maximumSize(config.getClientCacheSize())
+                .expireAfterWrite(config.getRecordWindowSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public SearchResultVO search(String keyword, String type, Integer limit, String clientIp) {
+        // 1. 参数校验
+        if (!StringUtils.hasText(keyword)) {
+            throw new BusinessException("搜索关键词不能为空");
+        }
+        keyword = keyword.trim();
+        if (keyword.length() > MAX_KEYWORD_LENGTH) {
+            throw new BusinessException("搜索关键词不能超过 " + MAX_KEYWORD_LENGTH + " 个字符");
+        }
+        String searchType = StringUtils.hasText(type) ? type : "all";
+        if (!TYPES.contains(searchType)) {
+            throw new BusinessException("不支持的搜索类型: " + type);
+        }
+        int size = limit != null ? limit : searchProperties.getDefaultLimit();
+        size = Math.max(1, Math.min(size, searchProperties.getMaxLimit()));
+
+        // 2. 按类型检索
+        boolean indexed = searchIndexService.isReady();
+        SearchResultVO result = new SearchResultVO();
+        if ("all".equals(searchType) || "music".equals(searchType)) {
+            result.setMusic(indexed ? loadMusic(searchIndexService.searchMusic(keyword, size))
+                    : likeMusic(keyword, size));
+        }
+        if ("all".equals(searchType) || "artist".equals(searchType)) {
+            result.setArtists(indexed ? loadArtists(searchIndexService.searchArtists(keyword, size))
+                    : likeArtists(keyword, size));
+        }
+        if ("all".equals(searchType) || "album".equals(searchType)) {
+            result.setAlbums(indexed ? loadAlbums(searchIndexService.searchAlbums(keyword, size))
+                    : likeAlbums(keyword, size));
+        }
+
+        // 3. 记录搜索历史（按客户端去重限流，失败不影响搜索结果）
+        boolean hit = !result.getMusic().isEmpty() || !result.getArtists().isEmpty() || !result.getAlbums().isEmpty();
+        if (hit && shouldRecord(clientIp, keyword)) {
+            try {
+                searchHistoryService.recordSearch(null, keyword);
+            } catch (Exception e) {
+                log.warn("⚠️ 记录搜索历史失败, keyword: {}, 原因: {}", keyword, e.getMessage());
+            }
+        }
+
+        log.info("综合搜索, keyword: {}, type: {}, 来源: {}, 结果: 音乐 {} 首, 歌手 {} 位, 专辑 {} 张",
+                keyword, searchType, indexed ? "全文索引" : "数据库",
+                result.getMusic().size(), result.getArtists().size(), result.getAlbums().size());
+        return result;
+    }
+
+    @Override
+    public List<SuggestionVO> suggest(String prefix, Integer limit) {
+        if (!StringUtils.hasText(prefix) || prefix.length() > MAX_KEYWORD_LENGTH) {
+            return List.of();
+        }
+        MusicSearchProperties.SuggestConfig config = searchProperties.getSuggest();
+        int size = limit != null ? limit : config.getDefaultLimit();
+        size = Math.max(1, Math.min(size, config.getTopK()));
+
+        return suggestService.suggest(prefix, size).stream()
+                .map(this::convertToSuggestionVO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 判断本次搜索是否记录搜索历史
+     *
+     * <p>同一客户端的同一关键词在窗口内只记录一次；每个客户端每个窗口最多记录 maxRecordsPerClient 个关键词，
+     * 避免单个客户端反复搜索把任意词刷进热门搜索词</p>
+     */
+    private boolean shouldRecord(String clientIp, String keyword) {
+        if (!StringUtils.hasText(clientIp)) {
+            return true;
+        }
+        String key = clientIp + "\n" + keyword.toLowerCase(Locale.ROOT);
+        if (recordedKeywords.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+            return false;
+        }
+        AtomicInteger count = clientRecordCounts.asMap().computeIfAbsent(clientIp, ip -> new AtomicInteger());
+        return count.incrementAndGet() <= searchProperties.getHistory().getMaxRecordsPerClient();
+    }
+
+    private SuggestionVO convertToSuggestionVO(SuggestionTrie.Suggestion suggestion) {
+        SuggestionVO vo = new SuggestionVO();
+        vo.setText(suggestion.text());
+        vo.setType(suggestion.type());
+        vo.setId(suggestion.id());
+        return vo;
+    }
+
+    private List<MusicListVO> loadMusic(List<Long> ids) {
+        List<MusicListVO> voList = inIdOrder(ids, musicService::listByIds, Music::getId).stream()
+                .map(music -> copy(music, new MusicListVO()))
+                .collect(Collectors.toList());
+        artistNameService.fillArtistNames(voList);
+        return voList;
+    }
+
+    private List<ArtistListVO> loadArtists(List<Long> ids) {
+        return inIdOrder(ids, artistService::listByIds, Artist::getId).stream()
+                .map(artist -> copy(artist, new ArtistListVO()))
+                .collect(Collectors.toList());
+    }
+
+    private List<AlbumListVO> loadAlbums(List<Long> ids) {
+        return inIdOrder(ids, albumService::listByIds, Album::getId).stream()
+                .map(album -> copy(album, new AlbumListVO()))
+                .collect(Collectors.toList());
+    }
+
+    private List<MusicListVO> likeMusic(String keyword, int size) {
+        List<MusicListVO> voList = musicService.list(new LambdaQueryWrapper<Music>()
+                        .like(Music::getTitle, keyword)
+                        .orderByDesc(Music::getPlayCount)
+                        .last("LIMIT " + size))
+                .stream().map(music -> copy(music, new MusicListVO()))
+                .collect(Collectors.toList());
+        artistNameService.fillArtistNames(voList);
+        return voList;
+    }
+
+    private List<ArtistListVO> likeArtists(String keyword, int size) {
+        return artistService.list(new LambdaQueryWrapper<Artist>()
+                        .like(Artist::getName, keyword)
+                        .orderByDesc(Artist::getMusicCount)
+                        .last("LIMIT " + size))
+                .stream().map(artist -> copy(artist, new ArtistListVO()))
+                .collect(Collectors.toList());
+    }
+
+    private List<AlbumListVO> likeAlbums(String keyword, int size) {
+        return albumService.list(new LambdaQueryWrapper<Album>()
+                        .like(Album::getName, keyword)
+                        .orderByDesc(Album::getSongCount)
+                        .last("LIMIT " + size))
+                .stream().map(album -> copy(album, new AlbumListVO()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按主键批量查询，并按给定ID顺序（相关度）排列；索引中存在但已删除的记录被跳过
+     */
+    private static <T> List<T> inIdOrder(List<Long> ids, Function<Collection<Long>, List<T>> loader,
+                                         Function<T, Long> idGetter) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> byId = loader.apply(ids).stream()
+                .collect(Collectors.toMap(idGetter, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private static <T> T copy(Object source, T target) {
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+}
@@ -0,0 +1,238 @@
+package com.naruto.wangyiyunmusic.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.naruto.wangyiyunmusic.config.properties.MusicSearchProperties;
+import com.naruto.wangyiyunmusic.mapper.AlbumMapper;
+import com.naruto.wangyiyunmusic.mapper.ArtistMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicArtistMapper;
+import com.naruto.wangyiyunmusic.mapper.MusicMapper;
+import com.naruto.wangyiyunmusic.mapper.SearchHistoryMapper;
+import com.naruto.wangyiyunmusic.model.entity.Album;
+import com.naruto.wangyiyunmusic.model.entity.Artist;
+import com.naruto.wangyiyunmusic.model.entity.Music;
+import com.naruto.wangyiyunmusic.model.entity.MusicArtist;
+import com.naruto.wangyiyunmusic.model.entity.SearchHistory;
+import com.naruto.wangyiyunmusic.service.search.SuggestionTrie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * 搜索框前缀补全服务
+ *
+ * <p>候选来自音乐标题、歌手名称、专辑名称与热门搜索关键词，构建为只读的 {@link SuggestionTrie}，
+ * 补全请求只读内存，不访问数据库：</p>
+ * <ul>
+ *   <li>音乐权重为播放次数，专辑、歌手权重为其下（关联）音乐的播放次数之和</li>
+ *   <li>搜索关键词权重为近 N 天所有用户的汇总搜索次数 × 乘数；搜索历史来自匿名请求，
+ *       进入字典树前过滤：搜索次数不足、含控制字符或链接、命中屏蔽词、在曲库中检索不到结果的关键词不作为候选</li>
+ *   <li>应用启动后及每隔固定时间（根据配置）在定时任务线程中全量重建，构建完成后整体替换</li>
+ * </ul>
+ *
+ * <p>首次构建完成前返回空列表；新增的歌曲、关键词在下一次重建后出现</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Service
+public class SearchSuggestService {
+
+    @Autowired
+    private MusicSearchProperties searchProperties;
+
+    @Autowired
+    private MusicMapper musicMapper;
+
+    @Autowired
+    private ArtistMapper artistMapper;
+
+    @Autowired
+    private AlbumMapper albumMapper;
+
+    @Autowired
+    private MusicArtistMapper musicArtistMapper;
+
+    @Autowired
+    private SearchHistoryMapper searchHistoryMapper;
+
+    @Autowired
+    private CatalogSearchIndexService searchIndexService;
+
+    /**
+     * 当前字典树
+     */
+    private volatile SuggestionTrie trie = SuggestionTrie.EMPTY;
+
+    /**
+     * 查询前缀补全候选
+     *
+     * @param prefix 输入前缀
+     * @param limit  最多返回条数
+     * @return 按权重降序排列的候选
+     */
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, limit);
+    }
+
+    /**
+     * 定时重建字典树
+     */
+    @Scheduled(fixedDelayString = "#{@musicSearchProperties.suggest.rebuildIntervalMinutes * 60 * 1000}",
+            initialDelay = 5_000L)
+    public void rebuild() {
+        MusicSearchProperties.SuggestConfig config = searchProperties.getSuggest();
+        if (!config.getEnabled()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            int batchSize = searchProperties.getBatchSize();
+            SuggestionTrie.Builder builder = new SuggestionTrie.Builder(config.getTopK(), config.getMaxKeyLength());
+
+            // 1. 音乐（同时汇总专辑播放次数）
+            Map<Long, Long> musicPlays = new HashMap<>();
+            Map<Long, Long> albumPlays = new HashMap<>();
+            scan(lastId -> musicMapper.selectList(new LambdaQueryWrapper<Music>()
+                            .select(Music::getId, Music::getTitle, Music::getAlbumId, Music::getPlayCount)
+                            .gt(Music::getId, lastId)
+                            .orderByAsc(Music::getId)
+                            .last("LIMIT " + batchSize)),
+                    Music::getId, batchSize, music -> {
+                        long plays = music.getPlayCount() != null ? music.getPlayCount() : 0;
+                        builder.add(music.getTitle(), "music", music.getId(), plays);
+                        musicPlays.put(music.getId(), plays);
+                        if (music.getAlbumId() != null) {
+                            albumPlays.merge(music.getAlbumId(), plays, Long::sum);
+                        }
+                    });
+
+            // 2. 歌手关联（汇总歌手播放次数）
+            Map<Long, Long> artistPlays = new HashMap<>();
+            scan(lastId -> musicArtistMapper.selectList(new LambdaQueryWrapper<MusicArtist>()
+                            .select(MusicArtist::getId, MusicArtist::getMusicId, MusicArtist::getArtistId)
+                            .gt(MusicArtist::getId, lastId)
+                            .orderByAsc(MusicArtist::getId)
+                            .last("LIMIT " + batchSize)),
+                    MusicArtist::getId, batchSize, ma -> {
+                        Long plays = musicPlays.get(ma.getMusicId());
+                        if (plays != null) {
+                            artistPlays.merge(ma.getArtistId(), plays, Long::sum);
+                        }
+                    });
+
+            // 3. 歌手、专辑
+            scan(lastId -> artistMapper.selectList(new LambdaQueryWrapper<Artist>()
+                            .select(Artist::getId, Artist::getName)
+                            .gt(Artist::getId, lastId)
+                            .orderByAsc(Artist::getId)
+                            .last("LIMIT " + batchSize)),
+                    Artist::getId, batchSize, artist -> builder.add(artist.getName(), "artist", artist.getId(),
+                            artistPlays.getOrDefault(artist.getId(), 0L)));
+            scan(lastId -> albumMapper.selectList(new LambdaQueryWrapper<Album>()
+                            .select(Album::getId, Album::getName)
+                            .gt(Album::getId, lastId)
+                            .orderByAsc(Album::getId)
+                            .last("LIMIT " + batchSize)),
+                    Album::getId, batchSize, album -> builder.add(album.getName(), "album", album.getId(),
+                            albumPlays.getOrDefault(album.getId(), 0L)));
+
+            // 4. 热门搜索关键词
+            List<SearchHistory> keywords = searchHistoryMapper.selectPopularKeywords(
+                    LocalDateTime.now().minusDays(config.getKeywordDays()), config.getKeywordLimit());
+            int rejected = 0;
+            for (SearchHistory history : keywords) {
+                if (!acceptKeyword(history, config)) {
+                    rejected++;
+                    continue;
+                }
+                builder.add(history.getKeyword().trim(), "keyword", null,
+                        (long) history.getSearchCount() * config.getKeywordWeight());
+            }
+            if (rejected > 0) {
+                log.info("搜索补全过滤热门搜索词 {} 个（共 {} 个）", rejected, keywords.size());
+            }
+
+            // 5. 构建并整体替换
+            SuggestionTrie rebuilt = builder.build();
+            this.trie = rebuilt;
+            log.info("✅ 搜索补全字典树构建完成: 候选 {} 条, 节点 {} 个, 耗时: {} ms",
+                    rebuilt.size(), rebuilt.nodeCount(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            log.error("❌ 搜索补全字典树构建失败，继续使用上一次构建结果", e);
+        }
+    }
+
+    /**
+     * 判断热门搜索词能否进入补全候选
+     *
+     * @param history 汇总后的搜索记录（关键词 + 搜索次数）
+     * @param config  补全配置
+     * @return 是否作为候选
+     */
+    private boolean acceptKeyword(SearchHistory history, MusicSearchProperties.SuggestConfig config) {
+        // 1. 搜索次数与长度
+        String keyword = history.getKeyword() != null ? history.getKeyword().trim() : "";
+        int count = history.getSearchCount() != null ? history.getSearchCount() : 0;
+        if (keyword.isEmpty() || keyword.length() > config.getMaxKeyLength() || count < config.getKeywordMinCount()) {
+            return false;
+        }
+
+        // 2. 必须包含文字或数字，不能含控制字符或链接
+        if (keyword.codePoints().noneMatch(Character::isLetterOrDigit)
+                || keyword.codePoints().anyMatch(Character::isISOControl)) {
+            return false;
+        }
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        if (lower.contains("://") || lower.contains("www.")) {
+            return false;
+        }
+
+        // 3. 屏蔽词
+        for (String blocked : config.getBlockedKeywords()) {
+            if (blocked != null && !blocked.isBlank() && lower.contains(blocked.toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+
+        // 4. 必须能在曲库中检索到结果（索引未就绪时跳过该项检查）
+        if (config.getKeywordRequireResult() && searchIndexService.isReady()) {
+            return !searchIndexService.searchMusic(keyword, 1).isEmpty()
+                    || !searchIndexService.searchArtists(keyword, 1).isEmpty()
+                    || !searchIndexService.searchAlbums(keyword, 1).isEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * 按主键分批扫描
+     *
+     * @param loader    按 "主键大于 lastId" 读取一批
+     * @param idGetter  读取主键
+     * @param batchSize 每批行数
+     * @param consumer  逐行处理
+     */
+    private static <T> void scan(LongFunction<List<T>> loader, Function<T, Long> idGetter, int batchSize,
+                                 Consumer<T> consumer) {
+        long lastId = 0;
+        List<T> batch;
+        do {
+            batch = loader.apply(lastId);
+            batch.forEach(consumer);
+            if (!batch.isEmpty()) {
+                lastId = idGetter.apply(batch.get(batch.size() - 1));
+            }
+        } while (batch.size() == batchSize);
+    }
+}
@@ -40,6 +40,9 @@ public class VideoParseServiceImpl implements VideoParseService {
     @Autowired
     private List<VideoPlatformStrategy> strategies;
 
+    @Autowired
+    private AudioHlsService hlsService;
+
     /**
      * 策略映射缓存
      */
@@ -109,6 +112,12 @@ public class VideoParseServiceImpl implements VideoParseService {
         resultVO.setAudioFormat(ytDlpResult.getAudioFormat());
         resultVO.setSourceVideoId(ytDlpResult.getVideoId());
 
+        // 9. 长音频提交后台 HLS 分段（不阻塞解析请求，生成后通过 getHlsUrl 查询；已生成时直接返回）
+        File audioFile = new File(ytDlpResult.getAudioFilePath());
+        resultVO.setHlsUrl(getHlsUrl(audioFile.getName()));
+        resultVO.setHlsPending(resultVO.getHlsUrl() == null
+                && hlsService.submitTempSegment(audioFile.toPath(), ytDlpResult.getDuration()));
+
         log.info("========== 视频解析成功 ==========");
         log.info("标题: {}", resultVO.getTitle());
         log.info("音频URL: {}", resultVO.getAudioUrl());
@@ -117,6 +126,12 @@ public class VideoParseServiceImpl implements VideoParseService {
         return resultVO;
     }
 
+    @Override
+    public String getHlsUrl(String fileName) {
+        String playlist = hlsService.tempPlaylistPath(fileName);
+        return playlist != null ? config.getServerBaseUrl() + config.getTempAudioUrlPrefix() + playlist : null;
+    }
+
     /**
      * 获取平台解析策略
      */
@@ -0,0 +1,328 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单机内存限流状态存储
+ *
+ * <p>每个IP的全部数据保存在一个 {@link IpAccessState} 中，请求频率使用无锁滑动窗口计数，
+ * 一次哈希查找即可完成所有检查；过期数据由定时任务分批增量清理。每个IP约占0.5KB~2KB堆内存，
+ * 估算跟踪IP数上限时按2KB计算</p>
+ * <p>违规次数与动态封禁保存在堆外的 {@link IpReputationTable} 中（固定容量、按TTL过期），
+ * 并按网段（IPv4 /24、IPv6 /64）聚合，同一网段内大量IP轮换违规时整段封禁</p>
+ *
+ * <p>多实例部署时各节点独立计数，限流阈值相当于乘以节点数，此时应使用 {@link RedisRateLimitStore}</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "audio.security.rate-limit", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    /**
+     * 单个IP的前缀长度
+     */
+    private static final int HOST_PREFIX_LENGTH = 128;
+
+    /**
+     * IP解析缓冲区（每线程复用，热路径不分配对象）
+     */
+    private static final ThreadLocal<long[]> ADDRESS_BUFFER = ThreadLocal.withInitial(() -> new long[2]);
+
+    @Autowired
+    private AudioSecurityProperties securityProperties;
+
+    // ========== 数据结构 ==========
+
+    /**
+     * IP/网段信誉表（违规次数、动态封禁）
+     */
+    private IpReputationTable reputationTable;
+
+    /**
+     * IP -> 访问状态
+     */
+    private final ConcurrentHashMap<String, IpAccessState> ipStates = new ConcurrentHashMap<>();
+
+    /**
+     * 增量清理游标（仅由定时任务线程访问）
+     * <p>ConcurrentHashMap 的迭代器是弱一致的，可以跨多次调度继续使用</p>
+     */
+    private Iterator<Map.Entry<String, IpAccessState>> sweepCursor;
+
+    /**
+     * 初始化信誉表
+     */
+    @PostConstruct
+    public void init() {
+        reputationTable = new IpReputationTable(securityProperties.getBlacklist().getReputationCapacity());
+        log.info("IP信誉表初始化完成，容量: {}，堆外内存: {} KB",
+                 reputationTable.capacity(), reputationTable.capacity() * 40L / 1024);
+    }
+
+    // ========== 核心方法 ==========
+
+    /**
+     * 执行限流检查并计数
+     *
+     * @param ip IP地址
+     * @param isRangeRequest 是否为Range请求
+     * @param fileName 文件名
+     * @param now 当前时间（毫秒）
+     * @return 检查结果
+     */
+    @Override
+    public RateLimitVerdict acquire(String ip, boolean isRangeRequest, String fileName, long now) {
+        AudioSecurityProperties.RateLimitConfig config = securityProperties.getRateLimit();
+        IpAccessState state = stateOf(ip, now);
+
+        // 1. 检查黑名单
+        if (isBlacklisted(ip, now)) {
+            return RateLimitVerdict.BLACKLISTED;
+        }
+
+        // 2. 检查并发连接数
+        if (state.getConnections() >= config.getMaxConcurrentConnections()) {
+            log.warn("IP {} 并发连接数超限: {} >= {}", ip, state.getConnections(), config.getMaxConcurrentConnections());
+            incrementViolation(ip, state, now);
+            return RateLimitVerdict.CONCURRENT;
+        }
+
+        // 3. 检查不同文件数限流
+        if (!state.recordFile(now, fileName, config.getUniqueFilesPerMinute())) {
+            log.warn("IP {} 访问文件数超限: > {}，文件: {}", ip, config.getUniqueFilesPerMinute(), fileName);
+            incrementViolation(ip, state, now);
+            return RateLimitVerdict.UNIQUE_FILES;
+        }
+
+        // 4. 检查请求频率限流
+        int limit = isRangeRequest ? config.getRangeRequestsPerMinute() : config.getFullDownloadsPerMinute();
+        if (!state.tryAcquireRequest(now, isRangeRequest, limit)) {
+            log.warn("IP {} {}频率超限", ip, isRangeRequest ? "Range请求" : "完整下载");
+            incrementViolation(ip, state, now);
+            return RateLimitVerdict.RATE;
+        }
+
+        // 5. 记录访问
+        state.touch(now);
+        log.debug("记录访问: IP={}, 文件={}", ip, fileName);
+
+        return RateLimitVerdict.ALLOWED;
+    }
+
+    /**
+     * 增加并发连接数
+     *
+     * @param ip IP地址
+     */
+    @Override
+    public void incrementConnection(String ip) {
+        long now = System.currentTimeMillis();
+        IpAccessState state = stateOf(ip, now);
+        while (!state.incrementConnections()) {
+            // 恰好被清理任务回收，重新获取
+            state = stateOf(ip, now);
+        }
+        log.debug("IP {} 并发连接数: {}", ip, state.getConnections());
+    }
+
+    /**
+     * 减少并发连接数
+     *
+     * @param ip IP地址
+     */
+    @Override
+    public void decrementConnection(String ip) {
+        IpAccessState state = ipStates.get(ip);
+        if (state != null) {
+            int newCount = state.decrementConnections();
+            log.debug("IP {} 并发连接数: {}", ip, newCount);
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 获取IP的访问状态（不存在时创建，跳过已被回收的状态）
+     *
+     * @param ip IP地址
+     * @param now 当前时间
+     * @return 访问状态
+     */
+    private IpAccessState stateOf(String ip, long now) {
+        for (;;) {
+            IpAccessState state = ipStates.computeIfAbsent(ip, k -> new IpAccessState(now));
+            if (!state.isRetired()) {
+                return state;
+            }
+            ipStates.remove(ip, state);
+        }
+    }
+
+    /**
+     * 检查是否在黑名单中
+     *
+     * <p>检查动态黑名单（单个IP及其所在网段），固定黑名单由 AudioRateLimitService 检查</p>
+     *
+     * @param ip IP地址
+     * @param now 当前时间
+     * @return true-在黑名单中, false-不在黑名单中
+     */
+    private boolean isBlacklisted(String ip, long now) {
+        long[] address = resolveAddress(ip);
+        long hi = address[0];
+        long lo = address[1];
+        long banExpireTime = reputationTable.bannedUntil(hi, lo, HOST_PREFIX_LENGTH, now);
+
+        int prefixLength = aggregatePrefixLength(hi, lo);
+        if (banExpireTime == 0 && prefixLength > 0) {
+            banExpireTime = reputationTable.bannedUntil(IpAddressParser.maskHigh(hi, prefixLength),
+                    IpAddressParser.maskLow(lo, prefixLength), prefixLength, now);
+        }
+
+        if (banExpireTime != 0) {
+            log.debug("IP {} 在动态黑名单中，封禁到期时间: {}", ip, banExpireTime);
+            return true; // 仍在封禁期
+        }
+        return false;
+    }
+
+    /**
+     * 增加违规次数
+     *
+     * <p>IP与所在网段分别计数，任一达到阈值时加入动态黑名单</p>
+     *
+     * @param ip IP地址
+     * @param state 访问状态
+     * @param now 当前时间
+     */
+    private void incrementViolation(String ip, IpAccessState state, long now) {
+        state.touch(now);
+
+        long[] address = resolveAddress(ip);
+        long hi = address[0];
+        long lo = address[1];
+        long ttl = securityProperties.getRateLimit().getWindowMinutes() * 60 * 1000L;
+
+        int newCount = reputationTable.recordViolation(hi, lo, HOST_PREFIX_LENGTH, now, ttl);
+        log.warn("IP {} 违规次数: {}", ip, newCount);
+
+        // 检查是否触发黑名单
+        int threshold = securityProperties.getRateLimit().getBlacklistThreshold();
+        if (newCount >= threshold) {
+            addToDynamicBlacklist(ip, hi, lo, HOST_PREFIX_LENGTH, now);
+        }
+
+        // 网段聚合计数
+        int prefixLength = aggregatePrefixLength(hi, lo);
+        if (prefixLength > 0) {
+            long networkHi = IpAddressParser.maskHigh(hi, prefixLength);
+            long networkLo = IpAddressParser.maskLow(lo, prefixLength);
+            int networkCount = reputationTable.recordViolation(networkHi, networkLo, prefixLength, now, ttl);
+            if (networkCount >= securityProperties.getBlacklist().getPrefixBanThreshold()) {
+                addToDynamicBlacklist(ip, networkHi, networkLo, prefixLength, now);
+            }
+        }
+    }
+
+    /**
+     * 添加到动态黑名单
+     *
+     * <p>封禁指定时长，过期后条目自动失效</p>
+     *
+     * @param ip 触发封禁的IP地址
+     * @param hi 地址高64位
+     * @param lo 地址低64位
+     * @param prefixLength 前缀长度（128为单个IP，其余为网段）
+     * @param now 当前时间
+     */
+    private void addToDynamicBlacklist(String ip, long hi, long lo, int prefixLength, long now) {
+        int banMinutes = securityProperties.getBlacklist().getBanDurationMinutes();
+        long banExpireTime = now + banMinutes * 60 * 1000L;
+
+        reputationTable.ban(hi, lo, prefixLength, now, banExpireTime);
+        if (prefixLength == HOST_PREFIX_LENGTH) {
+            log.warn("⚠️ IP {} 已加入动态黑名单，封禁 {} 分钟（到期时间: {}）",
+                     ip, banMinutes, new java.util.Date(banExpireTime));
+        } else {
+            int displayLength = IpAddressParser.isIpv4(hi, lo) ? prefixLength - 96 : prefixLength;
+            log.warn("⚠️ IP {} 所在网段（/{}）已加入动态黑名单，封禁 {} 分钟（到期时间: {}）",
+                     ip, displayLength, banMinutes, new java.util.Date(banExpireTime));
+        }
+    }
+
+    /**
+     * 解析IP地址为128位整数
+     *
+     * @param ip IP地址
+     * @return 线程复用的缓冲区，[0]为高64位，[1]为低64位
+     */
+    private long[] resolveAddress(String ip) {
+        long[] address = ADDRESS_BUFFER.get();
+        IpAddressParser.parseOrHash(ip, address);
+        return address;
+    }
+
+    /**
+     * 网段聚合的前缀长度（128位地址空间）
+     *
+     * @param hi 地址高64位
+     * @param lo 地址低64位
+     * @return 前缀长度，不聚合时返回0
+     */
+    private int aggregatePrefixLength(long hi, long lo) {
+        AudioSecurityProperties.BlacklistConfig config = securityProperties.getBlacklist();
+        if (config.getPrefixBanThreshold() <= 0) {
+            return 0;
+        }
+        return IpAddressParser.networkPrefixLength(hi, lo, config.getIpv4PrefixLength(), config.getIpv6PrefixLength());
+    }
+
+    /**
+     * 增量清理过期数据
+     *
+     * <p>每次只检查一批IP（sweep-batch-size），游标跨调度延续，避免一次性遍历全部IP造成停顿；
+     * 超过窗口时间未访问、无进行中连接且不在封禁期的IP会被回收</p>
+     *
+     * @param now 当前时间（毫秒）
+     */
+    @Override
+    public void sweep(long now) {
+        long expiryTime = securityProperties.getRateLimit().getWindowMinutes() * 60 * 1000L;
+        int batchSize = securityProperties.getBlacklist().getSweepBatchSize();
+
+        Iterator<Map.Entry<String, IpAccessState>> cursor = sweepCursor;
+        if (cursor == null || !cursor.hasNext()) {
+            cursor = ipStates.entrySet().iterator();
+        }
+
+        int scanned = 0;
+        int cleanedCount = 0;
+        while (scanned < batchSize && cursor.hasNext()) {
+            Map.Entry<String, IpAccessState> entry = cursor.next();
+            scanned++;
+            if (entry.getValue().tryRetire(now, expiryTime)) {
+                ipStates.remove(entry.getKey(), entry.getValue());
+                cleanedCount++;
+                log.debug("清理过期IP数据: {}", entry.getKey());
+            }
+        }
+        sweepCursor = cursor;
+
+        if (cleanedCount > 0) {
+            log.info("🧹 过期数据清理完成，本批检查IP数: {}，清理IP数: {}，当前跟踪IP数: {}",
+                     scanned, cleanedCount, ipStates.size());
+        }
+    }
+}
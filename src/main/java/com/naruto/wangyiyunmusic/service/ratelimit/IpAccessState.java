@@ -0,0 +1,163 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 单个IP的访问状态
+ *
+ * <p>合并了原先分散在多个 Map 中的数据（请求频率、文件数、并发连接、最后访问时间），
+ * 一次哈希查找即可完成全部限流检查；计数器均为基本类型字段，通过原子更新器修改</p>
+ * <p>违规次数与动态封禁保存在堆外的 {@link IpReputationTable} 中</p>
+ * <p>内存占用（64位JVM、压缩指针，含 ConcurrentHashMap 节点与IP字符串）：正常播放约0.5KB，
+ * 不同文件数计数全部溢出为 HLL 时约2KB；原先七个 Map 约需1KB，且每访问一个文件再增加约100字节、
+ * 随访问量无上限增长。收益主要是有上限和一次查找，而不是数量级的内存下降</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class IpAccessState {
+
+    /**
+     * 滑动窗口子桶个数（1分钟窗口切分为6个10秒子桶）
+     */
+    private static final int WINDOW_BUCKETS = 6;
+
+    /**
+     * 滑动窗口子桶时长（毫秒）
+     */
+    private static final long WINDOW_BUCKET_MILLIS = 10_000L;
+
+    /**
+     * 已回收标记（并发连接数字段）
+     */
+    private static final int RETIRED = -1;
+
+    private static final AtomicIntegerFieldUpdater<IpAccessState> CONNECTIONS =
+            AtomicIntegerFieldUpdater.newUpdater(IpAccessState.class, "connections");
+
+    /**
+     * Range请求计数（1分钟滑动窗口）
+     */
+    private final SlidingWindowCounter rangeRequests = new SlidingWindowCounter(WINDOW_BUCKETS, WINDOW_BUCKET_MILLIS);
+
+    /**
+     * 完整下载计数（1分钟滑动窗口）
+     */
+    private final SlidingWindowCounter fullDownloads = new SlidingWindowCounter(WINDOW_BUCKETS, WINDOW_BUCKET_MILLIS);
+
+    /**
+     * 不同文件数计数（1分钟滑动窗口）
+     */
+    private final UniqueFileCounter uniqueFiles = new UniqueFileCounter(WINDOW_BUCKETS, WINDOW_BUCKET_MILLIS);
+
+    /**
+     * 当前并发连接数（{@link #RETIRED} 表示已被清理任务回收）
+     */
+    private volatile int connections;
+
+    /**
+     * 最后访问时间戳
+     */
+    private volatile long lastAccess;
+
+    public IpAccessState(long now) {
+        this.lastAccess = now;
+    }
+
+    /**
+     * 请求频率检查并计数
+     *
+     * @param now            当前时间（毫秒）
+     * @param isRangeRequest 是否为Range请求
+     * @param limit          每分钟允许的最大次数
+     * @return true-未超限, false-超限
+     */
+    public boolean tryAcquireRequest(long now, boolean isRangeRequest, int limit) {
+        SlidingWindowCounter counter = isRangeRequest ? rangeRequests : fullDownloads;
+        return counter.tryAcquire(now, limit);
+    }
+
+    /**
+     * 记录访问的文件并检查不同文件数
+     *
+     * <p>每个IP的计数器只有自身请求会竞争，使用对象锁保护即可</p>
+     *
+     * @param now      当前时间（毫秒）
+     * @param fileName 文件名
+     * @param limit    每分钟允许的最大不同文件数
+     * @return true-未超限, false-超限
+     */
+    public boolean recordFile(long now, String fileName, int limit) {
+        synchronized (uniqueFiles) {
+            return uniqueFiles.record(now, fileName, limit);
+        }
+    }
+
+    /**
+     * 增加并发连接数
+     *
+     * @return true-成功, false-状态已被回收（需重新获取）
+     */
+    public boolean incrementConnections() {
+        for (;;) {
+            int current = connections;
+            if (current == RETIRED) {
+                return false;
+            }
+            if (CONNECTIONS.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 减少并发连接数（不低于0）
+     *
+     * @return 减少后的连接数
+     */
+    public int decrementConnections() {
+        for (;;) {
+            int current = connections;
+            if (current <= 0) {
+                return Math.max(current, 0);
+            }
+            if (CONNECTIONS.compareAndSet(this, current, current - 1)) {
+                return current - 1;
+            }
+        }
+    }
+
+    /**
+     * 当前并发连接数
+     */
+    public int getConnections() {
+        return Math.max(connections, 0);
+    }
+
+    /**
+     * 更新最后访问时间
+     */
+    public void touch(long now) {
+        this.lastAccess = now;
+    }
+
+    public boolean isRetired() {
+        return connections == RETIRED;
+    }
+
+    /**
+     * 尝试回收状态
+     *
+     * <p>无进行中的连接且超过空闲时长时才可回收；回收后不再接受新连接</p>
+     *
+     * @param now        当前时间（毫秒）
+     * @param idleMillis 空闲时长（毫秒）
+     * @return true-已回收, false-仍在使用
+     */
+    public boolean tryRetire(long now, long idleMillis) {
+        if (now - lastAccess <= idleMillis) {
+            return false;
+        }
+        return CONNECTIONS.compareAndSet(this, 0, RETIRED);
+    }
+}
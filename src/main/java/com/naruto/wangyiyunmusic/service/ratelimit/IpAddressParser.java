@@ -0,0 +1,281 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+/**
+ * IP地址解析工具
+ *
+ * <p>将 IPv4/IPv6 文本解析为 128 位整数（高64位 + 低64位），IPv4 映射为 {@code ::ffff:a.b.c.d}，
+ * 解析过程不创建任何对象，供限流热路径使用</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class IpAddressParser {
+
+    /**
+     * IPv4 映射地址前缀（::ffff:0:0/96 的低64位部分）
+     */
+    private static final long IPV4_MAPPED_PREFIX = 0x0000_FFFF_0000_0000L;
+
+    /**
+     * 无法解析为IP地址时使用的高64位标记（低64位为字符串哈希）
+     */
+    public static final long OPAQUE_MARKER = -1L;
+
+    private IpAddressParser() {
+    }
+
+    /**
+     * 解析IP地址
+     *
+     * @param ip  IP地址文本（支持 IPv4、IPv6 压缩格式、内嵌IPv4、%zone 后缀）
+     * @param out 输出数组，out[0] 为高64位，out[1] 为低64位
+     * @return true-解析成功, false-格式非法
+     */
+    public static boolean parse(CharSequence ip, long[] out) {
+        if (ip == null) {
+            return false;
+        }
+
+        int end = ip.length();
+        boolean ipv6 = false;
+        for (int i = 0; i < end; i++) {
+            char c = ip.charAt(i);
+            if (c == '%') {
+                end = i;
+                break;
+            }
+            if (c == ':') {
+                ipv6 = true;
+            }
+        }
+        if (end == 0) {
+            return false;
+        }
+
+        if (!ipv6) {
+            long v4 = parseIpv4(ip, 0, end);
+            if (v4 < 0) {
+                return false;
+            }
+            out[0] = 0;
+            out[1] = IPV4_MAPPED_PREFIX | v4;
+            return true;
+        }
+        return parseIpv6(ip, end, out);
+    }
+
+    /**
+     * 解析IP地址，无法解析的字符串（如 unknown）按字符串哈希处理
+     *
+     * @param ip  IP地址文本
+     * @param out 输出数组，out[0] 为高64位（无法解析时为 {@link #OPAQUE_MARKER}），out[1] 为低64位
+     */
+    public static void parseOrHash(String ip, long[] out) {
+        if (!parse(ip, out)) {
+            long h = (ip == null ? 0 : ip.hashCode()) * 0x9E3779B97F4A7C15L;
+            out[0] = OPAQUE_MARKER;
+            out[1] = h ^ (h >>> 32);
+        }
+    }
+
+    /**
+     * 网段聚合的前缀长度（128位地址空间）
+     *
+     * @param hi               地址高64位
+     * @param lo               地址低64位
+     * @param ipv4PrefixLength IPv4 网段前缀长度（0表示不聚合）
+     * @param ipv6PrefixLength IPv6 网段前缀长度（0表示不聚合）
+     * @return 前缀长度，不聚合时返回0
+     */
+    public static int networkPrefixLength(long hi, long lo, int ipv4PrefixLength, int ipv6PrefixLength) {
+        if (hi == OPAQUE_MARKER) {
+            return 0;
+        }
+        if (isIpv4(hi, lo)) {
+            return ipv4PrefixLength > 0 ? 96 + ipv4PrefixLength : 0;
+        }
+        return Math.max(ipv6PrefixLength, 0);
+    }
+
+    /**
+     * 是否为 IPv4 映射地址
+     *
+     * @param hi 高64位
+     * @param lo 低64位
+     * @return true-IPv4
+     */
+    public static boolean isIpv4(long hi, long lo) {
+        return hi == 0 && (lo & 0xFFFF_FFFF_0000_0000L) == IPV4_MAPPED_PREFIX;
+    }
+
+    /**
+     * 按前缀长度计算网段地址的高64位
+     *
+     * @param hi           高64位
+     * @param prefixLength 前缀长度（0-128）
+     * @return 网段地址高64位
+     */
+    public static long maskHigh(long hi, int prefixLength) {
+        if (prefixLength >= 64) {
+            return hi;
+        }
+        return prefixLength <= 0 ? 0 : hi & (-1L << (64 - prefixLength));
+    }
+
+    /**
+     * 按前缀长度计算网段地址的低64位
+     *
+     * @param lo           低64位
+     * @param prefixLength 前缀长度（0-128）
+     * @return 网段地址低64位
+     */
+    public static long maskLow(long lo, int prefixLength) {
+        if (prefixLength <= 64) {
+            return 0;
+        }
+        return prefixLength >= 128 ? lo : lo & (-1L << (128 - prefixLength));
+    }
+
+    /**
+     * 解析点分十进制 IPv4
+     *
+     * @return 32位地址，非法时返回 -1
+     */
+    private static long parseIpv4(CharSequence ip, int start, int end) {
+        long result = 0;
+        int parts = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = start; i <= end; i++) {
+            if (i == end || ip.charAt(i) == '.') {
+                if (digits == 0 || parts == 4) {
+                    return -1;
+                }
+                result = (result << 8) | value;
+                parts++;
+                value = 0;
+                digits = 0;
+                continue;
+            }
+            char c = ip.charAt(i);
+            if (c < '0' || c > '9' || digits == 3) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+            if (value > 255) {
+                return -1;
+            }
+        }
+        return parts == 4 ? result : -1;
+    }
+
+    /**
+     * 解析 IPv6
+     *
+     * <p>"::" 之前的分组累加到 head，之后的分组累加到 tail，最后将 head 左移补齐省略的零分组</p>
+     */
+    private static boolean parseIpv6(CharSequence ip, int end, long[] out) {
+        long headHi = 0;
+        long headLo = 0;
+        long tailHi = 0;
+        long tailLo = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = 0;
+        if (ip.charAt(0) == ':') {
+            if (end < 2 || ip.charAt(1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i = 2;
+        }
+
+        while (i < end) {
+            int start = i;
+            int value = 0;
+            int digits = 0;
+            boolean embeddedIpv4 = false;
+            while (i < end && ip.charAt(i) != ':') {
+                char c = ip.charAt(i);
+                if (c == '.') {
+                    embeddedIpv4 = true;
+                    break;
+                }
+                int digit = Character.digit(c, 16);
+                if (digit < 0 || digits == 4) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+                digits++;
+                i++;
+            }
+
+            if (embeddedIpv4) {
+                // 内嵌 IPv4（如 ::ffff:1.2.3.4），占两个分组，必须位于末尾
+                long v4 = parseIpv4(ip, start, end);
+                if (v4 < 0) {
+                    return false;
+                }
+                for (int g = 0; g < 2; g++) {
+                    int group = (int) (g == 0 ? v4 >>> 16 : v4 & 0xFFFF);
+                    if (compressed) {
+                        tailHi = (tailHi << 16) | (tailLo >>> 48);
+                        tailLo = (tailLo << 16) | group;
+                        tailGroups++;
+                    } else {
+                        headHi = (headHi << 16) | (headLo >>> 48);
+                        headLo = (headLo << 16) | group;
+                        headGroups++;
+                    }
+                }
+                break;
+            }
+
+            if (digits == 0) {
+                return false;
+            }
+            if (compressed) {
+                tailHi = (tailHi << 16) | (tailLo >>> 48);
+                tailLo = (tailLo << 16) | value;
+                tailGroups++;
+            } else {
+                headHi = (headHi << 16) | (headLo >>> 48);
+                headLo = (headLo << 16) | value;
+                headGroups++;
+            }
+
+            if (i < end) {
+                // 当前位于 ':'
+                i++;
+                if (i < end && ip.charAt(i) == ':') {
+                    if (compressed) {
+                        return false;
+                    }
+                    compressed = true;
+                    i++;
+                } else if (i == end) {
+                    return false;
+                }
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups > 7 : groups != 8) {
+            return false;
+        }
+
+        // head 左移到高位，省略的分组补零
+        if (compressed) {
+            for (int g = headGroups; g < 8; g++) {
+                headHi = (headHi << 16) | (headLo >>> 48);
+                headLo = headLo << 16;
+            }
+        }
+        out[0] = headHi | tailHi;
+        out[1] = headLo | tailLo;
+        return true;
+    }
+}
@@ -0,0 +1,247 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * IP信誉表（堆外、固定容量）
+ *
+ * <p>记录IP（或网段）的违规次数与封禁到期时间，数据存放在 DirectByteBuffer 中：</p>
+ * <ul>
+ *   <li>Key：128位地址（IPv4 映射为 IPv6）+ 前缀长度，单个IP的前缀长度为128，网段聚合使用 /24、/64 等</li>
+ *   <li>容量固定：分段开放寻址，每个 Key 只在固定长度的探测窗口内查找，窗口已满时淘汰最早过期的条目</li>
+ *   <li>TTL：条目到期后视为空槽，直接被复用，无需清理任务</li>
+ *   <li>并发：每段一把 {@link StampedLock}，读操作优先乐观读，全程不创建对象</li>
+ * </ul>
+ *
+ * <p>僵尸网络大量伪造IP时，堆内存保持不变，最多挤掉最早过期的违规记录（封禁记录过期时间更晚，优先保留）</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class IpReputationTable {
+
+    /**
+     * 条目布局：keyHi(8) | keyLo(8) | prefixLength(4) | violations(4) | expireAt(8) | banUntil(8)
+     */
+    private static final int ENTRY_SIZE = 40;
+
+    private static final int OFFSET_KEY_HI = 0;
+
+    private static final int OFFSET_KEY_LO = 8;
+
+    private static final int OFFSET_PREFIX = 16;
+
+    private static final int OFFSET_VIOLATIONS = 20;
+
+    private static final int OFFSET_EXPIRE_AT = 24;
+
+    private static final int OFFSET_BAN_UNTIL = 32;
+
+    /**
+     * 分段数（2的幂）
+     */
+    private static final int SEGMENTS = 64;
+
+    /**
+     * 探测窗口长度
+     */
+    private static final int PROBE_LIMIT = 16;
+
+    private final ByteBuffer buffer;
+
+    private final StampedLock[] locks = new StampedLock[SEGMENTS];
+
+    /**
+     * 每段槽位数（2的幂）
+     */
+    private final int segmentSlots;
+
+    /**
+     * 因容量不足被淘汰的有效条目数
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 创建信誉表
+     *
+     * @param capacity 条目数（向上取整为 64 * 2^n，每条目40字节）
+     */
+    public IpReputationTable(int capacity) {
+        int perSegment = Math.max(PROBE_LIMIT, (capacity + SEGMENTS - 1) / SEGMENTS);
+        this.segmentSlots = Integer.highestOneBit(perSegment - 1) << 1;
+        this.buffer = ByteBuffer.allocateDirect(SEGMENTS * segmentSlots * ENTRY_SIZE);
+        for (int i = 0; i < SEGMENTS; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * 总槽位数
+     */
+    public int capacity() {
+        return SEGMENTS * segmentSlots;
+    }
+
+    /**
+     * 因容量不足被淘汰的条目数
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 累加违规次数
+     *
+     * @param hi           地址高64位
+     * @param lo           地址低64位
+     * @param prefixLength 前缀长度
+     * @param now          当前时间（毫秒）
+     * @param ttlMillis    违规记录保留时长（毫秒，从最后一次违规起算）
+     * @return 累加后的违规次数
+     */
+    public int recordViolation(long hi, long lo, int prefixLength, long now, long ttlMillis) {
+        long hash = hash(hi, lo, prefixLength);
+        StampedLock lock = locks[segmentOf(hash)];
+        long stamp = lock.writeLock();
+        try {
+            int offset = claim(hash, hi, lo, prefixLength, now);
+            int violations = buffer.getInt(offset + OFFSET_VIOLATIONS) + 1;
+            buffer.putInt(offset + OFFSET_VIOLATIONS, violations);
+            long banUntil = buffer.getLong(offset + OFFSET_BAN_UNTIL);
+            buffer.putLong(offset + OFFSET_EXPIRE_AT, Math.max(now + ttlMillis, banUntil));
+            return violations;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 封禁到指定时间（违规次数清零，条目在封禁到期后过期）
+     *
+     * @param hi           地址高64位
+     * @param lo           地址低64位
+     * @param prefixLength 前缀长度
+     * @param now          当前时间（毫秒）
+     * @param until        封禁到期时间（毫秒）
+     */
+    public void ban(long hi, long lo, int prefixLength, long now, long until) {
+        long hash = hash(hi, lo, prefixLength);
+        StampedLock lock = locks[segmentOf(hash)];
+        long stamp = lock.writeLock();
+        try {
+            int offset = claim(hash, hi, lo, prefixLength, now);
+            buffer.putInt(offset + OFFSET_VIOLATIONS, 0);
+            buffer.putLong(offset + OFFSET_BAN_UNTIL, until);
+            buffer.putLong(offset + OFFSET_EXPIRE_AT, until);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 查询封禁到期时间
+     *
+     * @param hi           地址高64位
+     * @param lo           地址低64位
+     * @param prefixLength 前缀长度
+     * @param now          当前时间（毫秒）
+     * @return 封禁到期时间，未封禁返回0
+     */
+    public long bannedUntil(long hi, long lo, int prefixLength, long now) {
+        long hash = hash(hi, lo, prefixLength);
+        StampedLock lock = locks[segmentOf(hash)];
+
+        long stamp = lock.tryOptimisticRead();
+        long banUntil = readBanUntil(hash, hi, lo, prefixLength, now);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                banUntil = readBanUntil(hash, hi, lo, prefixLength, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return banUntil > now ? banUntil : 0;
+    }
+
+    /**
+     * 在探测窗口内查找封禁到期时间
+     */
+    private long readBanUntil(long hash, long hi, long lo, int prefixLength, long now) {
+        int base = segmentOf(hash) * segmentSlots;
+        int start = (int) hash & (segmentSlots - 1);
+        for (int p = 0; p < PROBE_LIMIT; p++) {
+            int offset = (base + ((start + p) & (segmentSlots - 1))) * ENTRY_SIZE;
+            if (buffer.getLong(offset + OFFSET_EXPIRE_AT) > now && matches(offset, hi, lo, prefixLength)) {
+                return buffer.getLong(offset + OFFSET_BAN_UNTIL);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 查找或占用条目（调用方持有写锁）
+     *
+     * <p>优先返回已存在的有效条目，其次复用空槽/过期槽，窗口已满时淘汰最早过期的条目</p>
+     *
+     * @return 条目偏移量
+     */
+    private int claim(long hash, long hi, long lo, int prefixLength, long now) {
+        int base = segmentOf(hash) * segmentSlots;
+        int start = (int) hash & (segmentSlots - 1);
+
+        int free = -1;
+        int victim = -1;
+        long victimExpireAt = Long.MAX_VALUE;
+        for (int p = 0; p < PROBE_LIMIT; p++) {
+            int offset = (base + ((start + p) & (segmentSlots - 1))) * ENTRY_SIZE;
+            long expireAt = buffer.getLong(offset + OFFSET_EXPIRE_AT);
+            if (expireAt > now) {
+                if (matches(offset, hi, lo, prefixLength)) {
+                    return offset;
+                }
+                if (expireAt < victimExpireAt) {
+                    victim = offset;
+                    victimExpireAt = expireAt;
+                }
+            } else if (free < 0) {
+                free = offset;
+            }
+        }
+
+        int offset = free;
+        if (offset < 0) {
+            offset = victim;
+            evictions.increment();
+        }
+        buffer.putLong(offset + OFFSET_KEY_HI, hi);
+        buffer.putLong(offset + OFFSET_KEY_LO, lo);
+        buffer.putInt(offset + OFFSET_PREFIX, prefixLength);
+        buffer.putInt(offset + OFFSET_VIOLATIONS, 0);
+        buffer.putLong(offset + OFFSET_BAN_UNTIL, 0);
+        buffer.putLong(offset + OFFSET_EXPIRE_AT, now + 1);
+        return offset;
+    }
+
+    private boolean matches(int offset, long hi, long lo, int prefixLength) {
+        return buffer.getLong(offset + OFFSET_KEY_LO) == lo
+                && buffer.getLong(offset + OFFSET_KEY_HI) == hi
+                && buffer.getInt(offset + OFFSET_PREFIX) == prefixLength;
+    }
+
+    private int segmentOf(long hash) {
+        return (int) (hash >>> 58) & (SEGMENTS - 1);
+    }
+
+    private static long hash(long hi, long lo, int prefixLength) {
+        long h = hi * 0x9E3779B97F4A7C15L ^ lo ^ ((long) prefixLength << 56);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,62 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+/**
+ * 限流状态存储接口
+ *
+ * <p>抽象限流状态（请求频率、不同文件数、违规次数、动态封禁）的存储位置：</p>
+ * <ul>
+ *   <li>memory：单机内存（{@link InMemoryRateLimitStore}），默认</li>
+ *   <li>redis：多实例共享（{@link RedisRateLimitStore}），每次检查一次 Lua 脚本调用</li>
+ * </ul>
+ *
+ * <p>实现类需在一次调用内完成全部检查与计数，保证每个请求最多一次远程往返</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public interface RateLimitStore {
+
+    /**
+     * 执行限流检查并计数
+     *
+     * <p>检查顺序：黑名单 → 并发连接数 → 不同文件数 → 请求频率；未通过时记录违规，达到阈值自动封禁</p>
+     *
+     * @param ip             IP地址
+     * @param isRangeRequest 是否为Range请求
+     * @param fileName       文件名
+     * @param now            当前时间（毫秒）
+     * @return 检查结果
+     */
+    RateLimitVerdict acquire(String ip, boolean isRangeRequest, String fileName, long now);
+
+    /**
+     * 增加并发连接数
+     *
+     * @param ip IP地址
+     */
+    void incrementConnection(String ip);
+
+    /**
+     * 减少并发连接数
+     *
+     * @param ip IP地址
+     */
+    void decrementConnection(String ip);
+
+    /**
+     * 清理过期数据（由定时任务周期调用，每次只处理一批）
+     *
+     * @param now 当前时间（毫秒）
+     */
+    default void sweep(long now) {
+    }
+
+    /**
+     * 存储访问失败次数（启动以来的累计值，本地存储始终为0）
+     *
+     * @return 失败次数
+     */
+    default long failureCount() {
+        return 0;
+    }
+}
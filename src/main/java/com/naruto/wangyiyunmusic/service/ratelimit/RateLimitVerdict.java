@@ -0,0 +1,40 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+/**
+ * 限流检查结果
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public enum RateLimitVerdict {
+
+    /**
+     * 允许访问
+     */
+    ALLOWED,
+
+    /**
+     * IP或所在网段已被封禁
+     */
+    BLACKLISTED,
+
+    /**
+     * 并发连接数超限
+     */
+    CONCURRENT,
+
+    /**
+     * 不同文件数超限
+     */
+    UNIQUE_FILES,
+
+    /**
+     * 请求频率超限
+     */
+    RATE,
+
+    /**
+     * 限流存储不可用且配置为拒绝请求（fail-closed）
+     */
+    UNAVAILABLE
+}
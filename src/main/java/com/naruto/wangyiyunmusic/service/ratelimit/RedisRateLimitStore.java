@@ -0,0 +1,258 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Redis 共享限流状态存储
+ *
+ * <p>多实例部署时所有节点共享请求频率、不同文件数、违规次数与封禁状态：</p>
+ * <ul>
+ *   <li>每次检查执行一次 Lua 脚本（lua/audio_rate_limit.lua），所有读写在脚本内批量完成，只有一次网络往返</li>
+ *   <li>请求频率：10秒子桶计数键，6个子桶组成1分钟滑动窗口</li>
+ *   <li>不同文件数：10秒子桶 HyperLogLog，PFCOUNT 多键求并集</li>
+ *   <li>脚本读写的所有键都通过 KEYS 传入，且同一网段的所有键使用相同的 hash tag，兼容 Redis Cluster</li>
+ * </ul>
+ *
+ * <p>并发连接数与具体节点上的连接绑定，仍由本节点统计</p>
+ *
+ * <p>Redis 不可用时按 redis-failure-policy 处理：open 放行请求（默认，避免限流组件拖垮播放），
+ * closed 拒绝请求；失败次数累计在 {@link #failureCount()}，错误日志按间隔合并输出</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "audio.security.rate-limit", name = "store", havingValue = "redis")
+public class RedisRateLimitStore implements RateLimitStore {
+
+    /**
+     * 子桶时长（毫秒）
+     */
+    private static final long BUCKET_MILLIS = 10_000L;
+
+    /**
+     * 子桶个数（1分钟窗口）
+     */
+    private static final int BUCKET_COUNT = 6;
+
+    /**
+     * Redis 异常日志最小间隔（毫秒）
+     */
+    private static final long FAILURE_LOG_INTERVAL_MILLIS = 10_000L;
+
+    private static final RateLimitVerdict[] VERDICTS = {
+            RateLimitVerdict.ALLOWED,
+            RateLimitVerdict.BLACKLISTED,
+            RateLimitVerdict.CONCURRENT,
+            RateLimitVerdict.UNIQUE_FILES,
+            RateLimitVerdict.RATE
+    };
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private AudioSecurityProperties securityProperties;
+
+    /**
+     * 限流检查脚本
+     */
+    private final DefaultRedisScript<List> script = createScript();
+
+    /**
+     * IP -> 本节点并发连接数
+     */
+    private final ConcurrentHashMap<String, AtomicInteger> connections = new ConcurrentHashMap<>();
+
+    /**
+     * Redis 访问失败次数（累计）
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 上次输出 Redis 异常日志的时间
+     */
+    private final AtomicLong lastFailureLogTime = new AtomicLong();
+
+    /**
+     * 上次输出日志时的失败次数
+     */
+    private volatile long lastLoggedFailures;
+
+    /**
+     * 执行限流检查并计数（一次 Lua 脚本调用）
+     *
+     * @param ip IP地址
+     * @param isRangeRequest 是否为Range请求
+     * @param fileName 文件名
+     * @param now 当前时间（毫秒）
+     * @return 检查结果
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public RateLimitVerdict acquire(String ip, boolean isRangeRequest, String fileName, long now) {
+        AudioSecurityProperties.RateLimitConfig rateLimit = securityProperties.getRateLimit();
+        AudioSecurityProperties.BlacklistConfig blacklist = securityProperties.getBlacklist();
+
+        AtomicInteger connectionCount = connections.get(ip);
+        boolean concurrencyExceeded = connectionCount != null
+                && connectionCount.get() >= rateLimit.getMaxConcurrentConnections();
+
+        List<Long> result;
+        try {
+            result = (List<Long>) redisTemplate.execute(script, buildKeys(ip, isRangeRequest, now),
+                    String.valueOf(now),
+                    isRangeRequest ? "1" : "0",
+                    fileName,
+                    concurrencyExceeded ? "1" : "0",
+                    String.valueOf(rateLimit.getRangeRequestsPerMinute()),
+                    String.valueOf(rateLimit.getFullDownloadsPerMinute()),
+                    String.valueOf(rateLimit.getUniqueFilesPerMinute()),
+                    String.valueOf(rateLimit.getBlacklistThreshold()),
+                    String.valueOf(blacklist.getPrefixBanThreshold()),
+                    String.valueOf(rateLimit.getWindowMinutes() * 60 * 1000L),
+                    String.valueOf(blacklist.getBanDurationMinutes() * 60 * 1000L),
+                    String.valueOf(BUCKET_MILLIS),
+                    String.valueOf(BUCKET_COUNT));
+        } catch (DataAccessException e) {
+            return onFailure(e);
+        }
+
+        if (result == null || result.isEmpty()) {
+            return RateLimitVerdict.ALLOWED;
+        }
+
+        RateLimitVerdict verdict = VERDICTS[result.get(0).intValue()];
+        if (verdict != RateLimitVerdict.ALLOWED && verdict != RateLimitVerdict.BLACKLISTED) {
+            log.warn("IP {} 限流: {}，违规次数: {}", ip, verdict, result.get(1));
+            long banned = result.get(2);
+            if (banned == 1) {
+                log.warn("⚠️ IP {} 已加入动态黑名单，封禁 {} 分钟", ip, blacklist.getBanDurationMinutes());
+            } else if (banned == 2) {
+                log.warn("⚠️ IP {} 所在网段已加入动态黑名单，封禁 {} 分钟", ip, blacklist.getBanDurationMinutes());
+            }
+        }
+        return verdict;
+    }
+
+    /**
+     * 增加本节点并发连接数
+     *
+     * @param ip IP地址
+     */
+    @Override
+    public void incrementConnection(String ip) {
+        int count = connections.computeIfAbsent(ip, k -> new AtomicInteger(0)).incrementAndGet();
+        log.debug("IP {} 并发连接数: {}", ip, count);
+    }
+
+    /**
+     * 减少本节点并发连接数（归零时移除）
+     *
+     * @param ip IP地址
+     */
+    @Override
+    public void decrementConnection(String ip) {
+        connections.computeIfPresent(ip, (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    /**
+     * 构建脚本读写的全部键（顺序见 lua/audio_rate_limit.lua）
+     *
+     * <p>IP键前缀为 {prefix}{网段}:ip:{ip}，网段键前缀为 {prefix}{网段}:net，
+     * hash tag 为所在网段（不聚合时为IP本身）；子桶序号由当前时间计算，当前子桶在前</p>
+     *
+     * @param ip             IP地址
+     * @param isRangeRequest 是否为Range请求
+     * @param now            当前时间（毫秒）
+     * @return 键列表
+     */
+    private List<String> buildKeys(String ip, boolean isRangeRequest, long now) {
+        AudioSecurityProperties.BlacklistConfig blacklist = securityProperties.getBlacklist();
+        String keyPrefix = securityProperties.getRateLimit().getRedisKeyPrefix();
+
+        long[] address = new long[2];
+        IpAddressParser.parseOrHash(ip, address);
+        int prefixLength = blacklist.getPrefixBanThreshold() > 0
+                ? IpAddressParser.networkPrefixLength(address[0], address[1],
+                        blacklist.getIpv4PrefixLength(), blacklist.getIpv6PrefixLength())
+                : 0;
+
+        String tag;
+        if (prefixLength == 0) {
+            tag = keyPrefix + "{" + ip + "}";
+        } else {
+            tag = keyPrefix + "{" + Long.toHexString(IpAddressParser.maskHigh(address[0], prefixLength)) + ":"
+                    + Long.toHexString(IpAddressParser.maskLow(address[1], prefixLength)) + "/" + prefixLength + "}";
+        }
+        String ipKey = tag + ":ip:" + ip;
+
+        List<String> keys = new ArrayList<>(4 + 2 * BUCKET_COUNT);
+        keys.add(ipKey + ":ban");
+        keys.add(ipKey + ":v");
+        long bucket = now / BUCKET_MILLIS;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            keys.add(ipKey + ":f:" + (bucket - i));
+        }
+        String rateSuffix = isRangeRequest ? ":r:" : ":d:";
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            keys.add(ipKey + rateSuffix + (bucket - i));
+        }
+        if (prefixLength > 0) {
+            keys.add(tag + ":net:ban");
+            keys.add(tag + ":net:v");
+        }
+        return keys;
+    }
+
+    @Override
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Redis 访问失败：计数、按策略放行或拒绝，并输出日志（限制频率，避免故障期间刷屏）
+     *
+     * @param e 异常
+     * @return 检查结果
+     */
+    private RateLimitVerdict onFailure(DataAccessException e) {
+        failures.increment();
+        boolean failClosed = "closed".equalsIgnoreCase(securityProperties.getRateLimit().getRedisFailurePolicy());
+
+        long now = System.currentTimeMillis();
+        long last = lastFailureLogTime.get();
+        if (now - last >= FAILURE_LOG_INTERVAL_MILLIS && lastFailureLogTime.compareAndSet(last, now)) {
+            long total = failures.sum();
+            long recent = total - lastLoggedFailures;
+            lastLoggedFailures = total;
+            log.error("❌ Redis 限流检查失败，已{}请求: {}（本周期失败 {} 次，累计 {} 次）",
+                    failClosed ? "拒绝" : "放行", e.getMessage(), recent, total);
+        }
+        return failClosed ? RateLimitVerdict.UNAVAILABLE : RateLimitVerdict.ALLOWED;
+    }
+
+    private static DefaultRedisScript<List> createScript() {
+        DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/audio_rate_limit.lua")));
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+}
@@ -0,0 +1,119 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 无锁滑动窗口计数器
+ *
+ * <p>窗口被切分为若干个等长的子桶，组成环形数组：</p>
+ * <ul>
+ *   <li>每个槽位是一个 long，高32位为子桶编号（时间戳 / 子桶时长），低32位为计数</li>
+ *   <li>写入时通过 CAS 更新当前子桶，槽位中的编号过期则直接覆盖为新子桶，无需额外清理</li>
+ *   <li>统计时只累加编号仍在窗口内的槽位</li>
+ * </ul>
+ *
+ * <p>相比令牌桶，不需要为每个IP维护独立的限流器对象，内存占用只有一个 long 数组</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class SlidingWindowCounter {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    /**
+     * 环形槽位
+     */
+    private final long[] slots;
+
+    /**
+     * 子桶时长（毫秒）
+     */
+    private final long bucketMillis;
+
+    /**
+     * 创建滑动窗口计数器
+     *
+     * @param bucketCount  子桶个数
+     * @param bucketMillis 子桶时长（毫秒），窗口长度 = bucketCount * bucketMillis
+     */
+    public SlidingWindowCounter(int bucketCount, long bucketMillis) {
+        this.slots = new long[bucketCount];
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * 尝试计数一次
+     *
+     * <p>先累加再检查，超限时回退本次计数，并发下不会超过上限</p>
+     *
+     * @param now   当前时间（毫秒）
+     * @param limit 窗口内允许的最大次数
+     * @return true-未超限（已计数）, false-超限（未计数）
+     */
+    public boolean tryAcquire(long now, int limit) {
+        long bucket = now / bucketMillis;
+        int index = (int) (bucket % slots.length);
+
+        add(index, bucket, 1);
+        if (sum(bucket) > limit) {
+            add(index, bucket, -1);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 统计窗口内的计数
+     *
+     * @param now 当前时间（毫秒）
+     * @return 计数
+     */
+    public long count(long now) {
+        return sum(now / bucketMillis);
+    }
+
+    /**
+     * 累加指定子桶的计数
+     */
+    private void add(int index, long bucket, int delta) {
+        for (;;) {
+            long current = (long) SLOTS.getVolatile(slots, index);
+            long next;
+            if ((current >>> 32) == bucket) {
+                long count = (current & COUNT_MASK) + delta;
+                if (count < 0) {
+                    return;
+                }
+                next = (bucket << 32) | count;
+            } else if (delta > 0) {
+                next = (bucket << 32) | delta;
+            } else {
+                // 子桶已轮换，无需回退
+                return;
+            }
+            if (SLOTS.compareAndSet(slots, index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 累加窗口内所有子桶的计数
+     */
+    private long sum(long bucket) {
+        long oldest = bucket - slots.length;
+        long total = 0;
+        for (int i = 0; i < slots.length; i++) {
+            long value = (long) SLOTS.getVolatile(slots, i);
+            long slotBucket = value >>> 32;
+            if (slotBucket > oldest && slotBucket <= bucket) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+}
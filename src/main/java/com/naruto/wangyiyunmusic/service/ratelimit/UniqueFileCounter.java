@@ -0,0 +1,299 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import java.util.Arrays;
+
+/**
+ * 滑动窗口内不同文件数计数器
+ *
+ * <p>窗口切分为若干个轮换的子桶，每个子桶先以小型精确集合记录文件哈希，
+ * 超过容量后溢出为 HyperLogLog 寄存器，内存占用有上限，不随访问的文件数增长：</p>
+ * <ul>
+ *   <li>正常播放（每分钟几首歌）：全部为精确集合，计数精确</li>
+ *   <li>遍历下载（每分钟成百上千个文件）：溢出为 HLL，误差约 13%，远超阈值时足以判定</li>
+ *   <li>窗口内的不同文件数 = 所有未过期子桶的并集基数</li>
+ * </ul>
+ * <p>子桶与精确集合均按需分配：正常播放时只有1~2个子桶、每个4个槽位（约200字节）；
+ * 全部子桶溢出为 HLL 时约1.6KB</p>
+ *
+ * <p>非线程安全，由调用方（{@link IpAccessState}）加锁</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class UniqueFileCounter {
+
+    /**
+     * 子桶精确集合初始容量
+     */
+    private static final int EXACT_INITIAL_CAPACITY = 4;
+
+    /**
+     * 子桶精确集合容量，超过后溢出为 HLL
+     */
+    private static final int EXACT_CAPACITY = 16;
+
+    /**
+     * HLL 寄存器索引位数
+     */
+    private static final int HLL_PRECISION = 6;
+
+    /**
+     * HLL 寄存器个数
+     */
+    private static final int HLL_REGISTERS = 1 << HLL_PRECISION;
+
+    /**
+     * HLL 偏差修正系数（m = 64）
+     */
+    private static final double HLL_ALPHA = 0.709;
+
+    /**
+     * 2^-r 查表
+     */
+    private static final double[] INVERSE_POWERS = new double[65];
+
+    static {
+        for (int i = 0; i < INVERSE_POWERS.length; i++) {
+            INVERSE_POWERS[i] = Math.pow(2, -i);
+        }
+    }
+
+    /**
+     * 子桶（按需创建，未使用过的子桶为 null）
+     */
+    private final Bucket[] buckets;
+
+    /**
+     * 子桶时长（毫秒）
+     */
+    private final long bucketMillis;
+
+    /**
+     * 创建计数器
+     *
+     * @param bucketCount  子桶个数
+     * @param bucketMillis 子桶时长（毫秒），窗口长度 = bucketCount * bucketMillis
+     */
+    public UniqueFileCounter(int bucketCount, long bucketMillis) {
+        this.buckets = new Bucket[bucketCount];
+        this.bucketMillis = bucketMillis;
+    }
+
+    /**
+     * 记录文件访问并检查窗口内的不同文件数
+     *
+     * <p>窗口内已访问过的文件直接放行；新文件计入后不同文件数超过上限则拒绝（拒绝的尝试同样计入，
+     * 持续遍历的客户端不会因为被拒绝而"清空"计数）</p>
+     *
+     * @param now      当前时间（毫秒）
+     * @param fileName 文件名
+     * @param limit    窗口内允许的最大不同文件数
+     * @return true-未超限, false-超限
+     */
+    public boolean record(long now, String fileName, int limit) {
+        long bucketId = now / bucketMillis;
+        long hash = hash(fileName);
+
+        boolean known = containsExact(bucketId, hash);
+        current(bucketId).add(hash);
+        if (known) {
+            return true;
+        }
+        return estimate(bucketId) <= limit;
+    }
+
+    /**
+     * 估算窗口内的不同文件数
+     *
+     * @param now 当前时间（毫秒）
+     * @return 不同文件数
+     */
+    public long count(long now) {
+        return estimate(now / bucketMillis);
+    }
+
+    /**
+     * 获取当前子桶（首次使用时创建，已轮换时重置）
+     */
+    private Bucket current(long bucketId) {
+        int index = (int) (bucketId % buckets.length);
+        Bucket bucket = buckets[index];
+        if (bucket == null) {
+            bucket = new Bucket();
+            buckets[index] = bucket;
+        }
+        if (bucket.id != bucketId) {
+            bucket.reset(bucketId);
+        }
+        return bucket;
+    }
+
+    /**
+     * 文件是否已在窗口内的精确集合中
+     */
+    private boolean containsExact(long bucketId, long hash) {
+        for (Bucket bucket : buckets) {
+            if (isLive(bucket, bucketId) && bucket.registers == null && bucket.contains(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 估算窗口内所有子桶并集的基数
+     */
+    private long estimate(long bucketId) {
+        boolean spilled = false;
+        int total = 0;
+        for (Bucket bucket : buckets) {
+            if (isLive(bucket, bucketId)) {
+                spilled |= bucket.registers != null;
+                total += bucket.size;
+            }
+        }
+
+        // 1. 全部为精确集合：合并去重后精确计数
+        if (!spilled) {
+            if (total == 0) {
+                return 0;
+            }
+            long[] union = new long[total];
+            int n = 0;
+            for (Bucket bucket : buckets) {
+                if (isLive(bucket, bucketId)) {
+                    System.arraycopy(bucket.hashes, 0, union, n, bucket.size);
+                    n += bucket.size;
+                }
+            }
+            Arrays.sort(union);
+            long distinct = 1;
+            for (int i = 1; i < union.length; i++) {
+                if (union[i] != union[i - 1]) {
+                    distinct++;
+                }
+            }
+            return distinct;
+        }
+
+        // 2. 存在溢出：合并为 HLL 寄存器后估算
+        byte[] merged = new byte[HLL_REGISTERS];
+        for (Bucket bucket : buckets) {
+            if (!isLive(bucket, bucketId)) {
+                continue;
+            }
+            if (bucket.registers != null) {
+                for (int i = 0; i < HLL_REGISTERS; i++) {
+                    merged[i] = (byte) Math.max(merged[i], bucket.registers[i]);
+                }
+            } else {
+                for (int i = 0; i < bucket.size; i++) {
+                    offer(merged, bucket.hashes[i]);
+                }
+            }
+        }
+        return estimate(merged);
+    }
+
+    private boolean isLive(Bucket bucket, long bucketId) {
+        return bucket != null && bucket.id > bucketId - buckets.length && bucket.id <= bucketId;
+    }
+
+    /**
+     * HLL 插入
+     */
+    private static void offer(byte[] registers, long hash) {
+        int index = (int) (hash >>> (64 - HLL_PRECISION));
+        int rank = Long.numberOfLeadingZeros((hash << HLL_PRECISION) | (1L << (HLL_PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * HLL 基数估算（小基数时使用线性计数修正）
+     */
+    private static long estimate(byte[] registers) {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += INVERSE_POWERS[register];
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = HLL_ALPHA * HLL_REGISTERS * HLL_REGISTERS / sum;
+        if (estimate <= 2.5 * HLL_REGISTERS && zeros > 0) {
+            estimate = HLL_REGISTERS * Math.log((double) HLL_REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 文件名哈希（64位，避免0值）
+     */
+    private static long hash(String fileName) {
+        long h = fileName.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * 子桶：精确集合，溢出后转为 HLL 寄存器
+     */
+    private static final class Bucket {
+
+        private long id = Long.MIN_VALUE;
+
+        private long[] hashes;
+
+        private int size;
+
+        private byte[] registers;
+
+        private void reset(long bucketId) {
+            this.id = bucketId;
+            this.size = 0;
+            this.registers = null;
+        }
+
+        private boolean contains(long hash) {
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == hash) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void add(long hash) {
+            if (registers != null) {
+                offer(registers, hash);
+                return;
+            }
+            if (contains(hash)) {
+                return;
+            }
+            if (hashes == null) {
+                hashes = new long[EXACT_INITIAL_CAPACITY];
+            }
+            if (size < EXACT_CAPACITY) {
+                if (size == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, Math.min(size * 2, EXACT_CAPACITY));
+                }
+                hashes[size++] = hash;
+                return;
+            }
+
+            // 溢出：转为 HLL
+            registers = new byte[HLL_REGISTERS];
+            for (int i = 0; i < size; i++) {
+                offer(registers, hashes[i]);
+            }
+            offer(registers, hash);
+            size = 0;
+        }
+    }
+}
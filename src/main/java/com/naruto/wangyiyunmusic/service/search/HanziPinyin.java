@@ -0,0 +1,175 @@
+package com.naruto.wangyiyunmusic.service.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * 汉字拼音转换
+ *
+ * <p>读取随应用打包的拼音表（classpath:pinyin/hanzi-pinyin.txt，不带声调，覆盖约 2 万个汉字），不依赖外部拼音库：</p>
+ * <ul>
+ *   <li>全拼：周杰伦 -> zhoujielun</li>
+ *   <li>首字母：周杰伦 -> zjl</li>
+ *   <li>多音字（表末单独列出）输出全部读音的组合，组合数超过上限时只取默认读音</li>
+ * </ul>
+ * <p>表中没有的字符（非汉字、未收录的生僻字）不转换，作为分隔符</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class HanziPinyin {
+
+    private static final String TABLE_LOCATION = "pinyin/hanzi-pinyin.txt";
+
+    /**
+     * 一段连续汉字最多输出的读音组合数
+     */
+    private static final int MAX_COMBINATIONS = 4;
+
+    /**
+     * 码点 -> 读音（第一个为默认读音）
+     */
+    private static final Map<Integer, String[]> READINGS = load();
+
+    private HanziPinyin() {
+    }
+
+    /**
+     * 生成拼音检索文本
+     *
+     * <p>每段连续汉字输出全拼、首字母（两字及以上）和逐字拼音，以空格分隔，
+     * 交给 {@link SearchTokenizer} 分词后与原文一起建立索引</p>
+     *
+     * @param text 原文
+     * @return 拼音检索文本，不含可转换的汉字时返回空串
+     */
+    public static String searchText(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        StringJoiner out = new StringJoiner(" ");
+        List<String[]> run = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            String[] readings = READINGS.get(cp);
+            if (readings != null) {
+                run.add(readings);
+            } else {
+                flushRun(run, out);
+            }
+        }
+        flushRun(run, out);
+        return out.toString();
+    }
+
+    private static void flushRun(List<String[]> run, StringJoiner out) {
+        if (run.isEmpty()) {
+            return;
+        }
+
+        // 1. 全拼与首字母（多音字组合过多时只取默认读音）
+        int combinations = 1;
+        for (String[] readings : run) {
+            combinations = Math.min(combinations * readings.length, MAX_COMBINATIONS + 1);
+        }
+        Set<String> words = new LinkedHashSet<>();
+        if (combinations <= MAX_COMBINATIONS) {
+            combine(run, 0, new StringBuilder(), new StringBuilder(), words);
+        } else {
+            StringBuilder full = new StringBuilder();
+            StringBuilder initials = new StringBuilder();
+            for (String[] readings : run) {
+                full.append(readings[0]);
+                initials.append(readings[0].charAt(0));
+            }
+            addWords(full, initials, run.size(), words);
+        }
+
+        // 2. 逐字拼音（分词查询 "zhou jie lun" 也能命中）
+        if (run.size() > 1) {
+            for (String[] readings : run) {
+                words.addAll(List.of(readings));
+            }
+        }
+        words.forEach(out::add);
+        run.clear();
+    }
+
+    private static void combine(List<String[]> run, int index, StringBuilder full, StringBuilder initials,
+                                Set<String> words) {
+        if (index == run.size()) {
+            addWords(full, initials, run.size(), words);
+            return;
+        }
+        int fullLength = full.length();
+        int initialsLength = initials.length();
+        for (String reading : run.get(index)) {
+            full.append(reading);
+            initials.append(reading.charAt(0));
+            combine(run, index + 1, full, initials, words);
+            full.setLength(fullLength);
+            initials.setLength(initialsLength);
+        }
+    }
+
+    private static void addWords(CharSequence full, CharSequence initials, int length, Set<String> words) {
+        words.add(full.toString());
+        // 单字的首字母只有一个字母，不单独索引
+        if (length > 1) {
+            words.add(initials.toString());
+        }
+    }
+
+    /**
+     * 加载拼音表
+     *
+     * <p>普通行为 "拼音 汉字..."；多音字行为 "汉字 默认读音 其他读音..."，覆盖普通行中的读音</p>
+     */
+    private static Map<Integer, String[]> load() {
+        InputStream input = HanziPinyin.class.getClassLoader().getResourceAsStream(TABLE_LOCATION);
+        if (input == null) {
+            throw new IllegalStateException("拼音表不存在: classpath:" + TABLE_LOCATION);
+        }
+
+        Map<Integer, String[]> readings = new HashMap<>(32768);
+        Map<Integer, String[]> polyphones = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\s+");
+                if (parts.length < 2) {
+                    continue;
+                }
+                int first = parts[0].codePointAt(0);
+                if (Character.charCount(first) == parts[0].length() && Character.isIdeographic(first)) {
+                    String[] values = new String[parts.length - 1];
+                    System.arraycopy(parts, 1, values, 0, values.length);
+                    polyphones.put(first, values);
+                    continue;
+                }
+                String[] syllable = {parts[0]};
+                parts[1].codePoints().forEach(cp -> readings.putIfAbsent(cp, syllable));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("读取拼音表失败: classpath:" + TABLE_LOCATION, e);
+        }
+        readings.putAll(polyphones);
+        return Map.copyOf(readings);
+    }
+}
@@ -0,0 +1,259 @@
+package com.naruto.wangyiyunmusic.service.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 内存倒排索引
+ *
+ * <p>词 -> (文档ID -> 加权词频) 的倒排表，词典按字典序保存，支持前缀展开：</p>
+ * <ul>
+ *   <li>文档由多个带权重的字段组成（如标题权重高于歌词），加权词频 = Σ 字段权重 × 字段内词频</li>
+ *   <li>查询要求所有词都命中（AND），按 BM25 计算相关度，再乘以文档自身的权重（如热度）</li>
+ *   <li>写入（新增/替换/删除文档）串行执行；查询不加锁，可与写入并发，单个文档替换过程中可能短暂不可见</li>
+ * </ul>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class InvertedIndex {
+
+    /**
+     * BM25 词频饱和参数
+     */
+    private static final double K1 = 1.2;
+
+    /**
+     * BM25 文档长度归一化参数
+     */
+    private static final double B = 0.75;
+
+    /**
+     * 前缀最多展开的词数
+     */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /**
+     * 倒排表：词 -> (文档ID -> 加权词频)
+     */
+    private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+
+    /**
+     * 正排表：文档ID -> 文档信息（删除、替换时用于定位倒排项）
+     */
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+    /**
+     * 所有文档加权长度之和
+     */
+    private volatile double totalLength;
+
+    /**
+     * 文档字段
+     *
+     * @param text   字段文本（可为null）
+     * @param weight 字段权重
+     */
+    public record Field(String text, float weight) {
+    }
+
+    /**
+     * 查询结果
+     *
+     * @param id    文档ID
+     * @param score 相关度得分
+     */
+    public record Hit(long id, double score) {
+    }
+
+    /**
+     * 文档信息
+     *
+     * @param terms  文档包含的词
+     * @param length 加权长度
+     * @param boost  文档权重
+     */
+    private record Doc(String[] terms, float length, float boost) {
+    }
+
+    /**
+     * 新增或替换文档
+     *
+     * @param id     文档ID
+     * @param fields 字段
+     * @param boost  文档权重（相关度得分乘数，默认 1）
+     */
+    public synchronized void put(long id, List<Field> fields, float boost) {
+        remove(id);
+
+        Map<String, Float> frequencies = new HashMap<>();
+        float length = 0;
+        for (Field field : fields) {
+            for (String term : SearchTokenizer.tokenize(field.text())) {
+                frequencies.merge(term, field.weight(), Float::sum);
+                length += field.weight();
+            }
+        }
+        if (frequencies.isEmpty()) {
+            return;
+        }
+
+        frequencies.forEach((term, tf) ->
+                postings.computeIfAbsent(term, k -> new ConcurrentHashMap<>()).put(id, tf));
+        docs.put(id, new Doc(frequencies.keySet().toArray(String[]::new), length, boost));
+        totalLength += length;
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param id 文档ID
+     */
+    public synchronized void remove(long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String term : doc.terms()) {
+            postings.computeIfPresent(term, (k, docIds) -> {
+                docIds.remove(id);
+                return docIds.isEmpty() ? null : docIds;
+            });
+        }
+        totalLength -= doc.length();
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        return docs.size();
+    }
+
+    /**
+     * 词典大小
+     */
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * 查询
+     *
+     * @param query 查询分析结果
+     * @param limit 最多返回条数
+     * @return 按得分降序排列的结果
+     */
+    public List<Hit> search(SearchTokenizer.Query query, int limit) {
+        int docCount = docs.size();
+        if (query.isEmpty() || docCount == 0 || limit <= 0) {
+            return List.of();
+        }
+        double avgLength = Math.max(totalLength / docCount, 1);
+
+        // 1. 取出必须命中的词的倒排项，任一词不存在则无结果
+        List<Map<Long, Float>> required = new ArrayList<>(query.terms().size());
+        for (String term : query.terms()) {
+            Map<Long, Float> docIds = postings.get(term);
+            if (docIds == null) {
+                return List.of();
+            }
+            required.add(docIds);
+        }
+
+        // 2. 展开前缀词，每个文档取得分最高的展开词
+        Map<Long, Double> prefixScores = null;
+        if (query.prefix() != null) {
+            prefixScores = expandPrefix(query.prefix(), docCount, avgLength);
+            if (prefixScores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        // 3. 以最短的倒排项为驱动，逐个校验其他词并计算得分
+        Map<Long, ?> driver = prefixScores;
+        for (Map<Long, Float> docIds : required) {
+            if (driver == null || docIds.size() < driver.size()) {
+                driver = docIds;
+            }
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score));
+        for (Long id : driver.keySet()) {
+            Doc doc = docs.get(id);
+            if (doc == null) {
+                continue;
+            }
+            double score = score(id, doc, required, prefixScores, docCount, avgLength);
+            if (score <= 0) {
+                continue;
+            }
+            if (top.size() < limit) {
+                top.offer(new Hit(id, score));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.offer(new Hit(id, score));
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+        return hits;
+    }
+
+    /**
+     * 计算文档得分，有词未命中时返回 0
+     */
+    private double score(Long id, Doc doc, List<Map<Long, Float>> required, Map<Long, Double> prefixScores,
+                         int docCount, double avgLength) {
+        double score = 0;
+        for (Map<Long, Float> docIds : required) {
+            Float tf = docIds.get(id);
+            if (tf == null) {
+                return 0;
+            }
+            score += bm25(tf, docIds.size(), doc.length(), docCount, avgLength);
+        }
+        if (prefixScores != null) {
+            Double prefixScore = prefixScores.get(id);
+            if (prefixScore == null) {
+                return 0;
+            }
+            score += prefixScore;
+        }
+        return score * doc.boost();
+    }
+
+    private Map<Long, Double> expandPrefix(String prefix, int docCount, double avgLength) {
+        Map<Long, Double> scores = new HashMap<>();
+        ConcurrentNavigableMap<String, Map<Long, Float>> range =
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, true);
+
+        int expanded = 0;
+        for (Map<Long, Float> docIds : range.values()) {
+            if (++expanded > MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            int df = docIds.size();
+            docIds.forEach((id, tf) -> {
+                Doc doc = docs.get(id);
+                if (doc != null) {
+                    scores.merge(id, bm25(tf, df, doc.length(), docCount, avgLength), Math::max);
+                }
+            });
+        }
+        return scores;
+    }
+
+    private static double bm25(float tf, int df, float length, int docCount, double avgLength) {
+        double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+        return idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+    }
+}
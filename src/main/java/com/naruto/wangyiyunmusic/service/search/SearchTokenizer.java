@@ -0,0 +1,150 @@
+package com.naruto.wangyiyunmusic.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索分词器
+ *
+ * <p>索引与查询使用同一套规则，不依赖词典：</p>
+ * <ul>
+ *   <li>先做 NFKC 归一化并转小写（全角字母数字转半角，大小写不敏感）</li>
+ *   <li>连续的字母/数字（拉丁、西里尔等）作为一个词</li>
+ *   <li>连续的中日韩文字切分为相邻二字组（"晴天娃娃" -> 晴天、天娃、娃娃），索引时额外保留单字，
+ *       单字查询也能命中</li>
+ *   <li>其余字符（空白、标点、符号）作为分隔符</li>
+ * </ul>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class SearchTokenizer {
+
+    /**
+     * 单个词最大长度（超长词截断，避免异常数据撑大词典）
+     */
+    private static final int MAX_TERM_LENGTH = 32;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 查询分析结果
+     *
+     * @param terms  必须全部命中的词
+     * @param prefix 前缀匹配词（输入末尾未输完的字母/数字词，可为null）
+     */
+    public record Query(List<String> terms, String prefix) {
+
+        public boolean isEmpty() {
+            return terms.isEmpty() && prefix == null;
+        }
+    }
+
+    /**
+     * 索引分词
+     *
+     * @param text 文本
+     * @return 词列表（含重复，用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text != null) {
+            split(normalize(text), tokens, true);
+        }
+        return tokens;
+    }
+
+    /**
+     * 查询分词
+     *
+     * <p>末尾是字母/数字且后面没有分隔符时视为正在输入，按前缀匹配（"jay ch" 可命中 "jay chou"）</p>
+     *
+     * @param keyword 关键词
+     * @return 查询分析结果
+     */
+    public static Query analyze(String keyword) {
+        if (keyword == null) {
+            return new Query(List.of(), null);
+        }
+        String text = normalize(keyword);
+        List<String> terms = new ArrayList<>();
+        split(text, terms, false);
+
+        String prefix = null;
+        if (!terms.isEmpty() && !text.isEmpty()) {
+            int last = text.codePointBefore(text.length());
+            if (Character.isLetterOrDigit(last) && !isCjk(last)) {
+                prefix = terms.remove(terms.size() - 1);
+            }
+        }
+        return new Query(terms.stream().distinct().toList(), prefix);
+    }
+
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 按字符类别切分
+     *
+     * @param text     归一化后的文本
+     * @param out      输出
+     * @param indexing true-索引（中日韩文字额外输出单字）
+     */
+    private static void split(String text, List<String> out, boolean indexing) {
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjkRun = new ArrayList<>();
+
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (isCjk(cp)) {
+                flushWord(word, out);
+                cjkRun.add(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjkRun, out, indexing);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, out);
+                flushCjk(cjkRun, out, indexing);
+            }
+        }
+        flushWord(word, out);
+        flushCjk(cjkRun, out, indexing);
+    }
+
+    private static void flushWord(StringBuilder word, List<String> out) {
+        if (word.length() > 0) {
+            out.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<Integer> run, List<String> out, boolean indexing) {
+        if (run.isEmpty()) {
+            return;
+        }
+        if (run.size() == 1 || indexing) {
+            for (int cp : run) {
+                out.add(new String(Character.toChars(cp)));
+            }
+        }
+        for (int j = 0; j + 1 < run.size(); j++) {
+            out.add(new StringBuilder().appendCodePoint(run.get(j)).appendCodePoint(run.get(j + 1)).toString());
+        }
+        run.clear();
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,336 @@
+package com.naruto.wangyiyunmusic.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 前缀补全字典树（构建后只读）
+ *
+ * <p>每个节点预先保存以该前缀开头的权重最高的 K 条候选，查询只需沿前缀向下走到对应节点，
+ * 耗时与前缀长度成正比，与候选总数无关：</p>
+ * <ul>
+ *   <li>候选文本先做 NFKC 归一化、转小写、合并空白后作为键；多词文本（如 "Jay Chou"）额外以每个词开头作为键，
+ *       输入 "chou" 也能补全</li>
+ *   <li>构建完成后压缩为数组（子节点按字符排序后二分查找），不保留节点对象，
+ *       内存约为 节点数 × (K + 3) 个 int</li>
+ *   <li>键超过最大长度时截断，更长的前缀按截断位置的节点返回后再过滤</li>
+ * </ul>
+ *
+ * <p>实例不可变，重建时整体替换，可被多线程无锁读取</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+public final class SuggestionTrie {
+
+    /**
+     * 空字典树
+     */
+    public static final SuggestionTrie EMPTY = new Builder(1, 1).build();
+
+    /**
+     * 候选项
+     *
+     * @param text   展示文本
+     * @param type   类型（如 music、artist、album、keyword）
+     * @param id     对应实体ID（搜索关键词为null）
+     * @param weight 权重
+     */
+    public record Suggestion(String text, String type, Long id, long weight) {
+    }
+
+    /**
+     * 候选项
+     */
+    private final Suggestion[] entries;
+
+    /**
+     * 候选项归一化后的文本（长前缀过滤用）
+     */
+    private final String[] keys;
+
+    /**
+     * 节点 i 的子节点位于 childChars/childNodes 的 [childStart[i], childStart[i + 1]) 区间，按字符升序
+     */
+    private final int[] childStart;
+
+    private final char[] childChars;
+
+    private final int[] childNodes;
+
+    /**
+     * 节点 i 的候选位于 topEntries 的 [topStart[i], topStart[i + 1]) 区间，按权重降序
+     */
+    private final int[] topStart;
+
+    private final int[] topEntries;
+
+    /**
+     * 键最大长度
+     */
+    private final int maxKeyLength;
+
+    private SuggestionTrie(Suggestion[] entries, String[] keys, int[] childStart, char[] childChars,
+                           int[] childNodes, int[] topStart, int[] topEntries, int maxKeyLength) {
+        this.entries = entries;
+        this.keys = keys;
+        this.childStart = childStart;
+        this.childChars = childChars;
+        this.childNodes = childNodes;
+        this.topStart = topStart;
+        this.topEntries = topEntries;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    /**
+     * 查询前缀补全候选
+     *
+     * @param prefix 输入前缀
+     * @param limit  最多返回条数（不超过构建时的 K）
+     * @return 按权重降序排列的候选
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean truncated = key.length() > maxKeyLength;
+
+        // 1. 沿前缀向下查找节点
+        int node = 0;
+        int length = Math.min(key.length(), maxKeyLength);
+        for (int i = 0; i < length; i++) {
+            node = child(node, key.charAt(i));
+            if (node < 0) {
+                return List.of();
+            }
+        }
+
+        // 2. 读取节点预存的候选
+        List<Suggestion> result = new ArrayList<>(Math.min(limit, topStart[node + 1] - topStart[node]));
+        for (int i = topStart[node]; i < topStart[node + 1] && result.size() < limit; i++) {
+            int entry = topEntries[i];
+            if (!truncated || keys[entry].contains(key)) {
+                result.add(entries[entry]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 候选项数量
+     */
+    public int size() {
+        return entries.length;
+    }
+
+    /**
+     * 节点数量
+     */
+    public int nodeCount() {
+        return topStart.length - 1;
+    }
+
+    private int child(int node, char c) {
+        int low = childStart[node];
+        int high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = childChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return childNodes[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 归一化：NFKC、小写、合并空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        return normalized.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 字典树构建器（非线程安全）
+     */
+    public static final class Builder {
+
+        /**
+         * 每个节点保存的候选数
+         */
+        private final int topK;
+
+        /**
+         * 键最大长度
+         */
+        private final int maxKeyLength;
+
+        private final List<Suggestion> entries = new ArrayList<>();
+
+        private final List<String> keys = new ArrayList<>();
+
+        /**
+         * 类型 + 归一化文本 -> 候选下标（同类型同文本只保留权重最高的一条）
+         */
+        private final Map<String, Integer> dedupe = new HashMap<>();
+
+        /**
+         * 创建构建器
+         *
+         * @param topK         每个节点保存的候选数
+         * @param maxKeyLength 键最大长度
+         */
+        public Builder(int topK, int maxKeyLength) {
+            this.topK = topK;
+            this.maxKeyLength = maxKeyLength;
+        }
+
+        /**
+         * 添加候选项
+         *
+         * @param text   展示文本
+         * @param type   类型
+         * @param id     实体ID（可为null）
+         * @param weight 权重
+         * @return 当前构建器
+         */
+        public Builder add(String text, String type, Long id, long weight) {
+            String key = normalize(text);
+            if (key.isEmpty()) {
+                return this;
+            }
+            Suggestion suggestion = new Suggestion(text.trim(), type, id, weight);
+            Integer existing = dedupe.putIfAbsent(type + '\u0000' + key, entries.size());
+            if (existing == null) {
+                entries.add(suggestion);
+                keys.add(key);
+            } else if (entries.get(existing).weight() < weight) {
+                entries.set(existing, suggestion);
+            }
+            return this;
+        }
+
+        /**
+         * 构建只读字典树
+         *
+         * @return 字典树
+         */
+        public SuggestionTrie build() {
+            // 1. 插入所有键，沿途节点维护权重最高的 K 条候选
+            MutableNode root = new MutableNode();
+            for (int entry = 0; entry < entries.size(); entry++) {
+                String key = keys.get(entry);
+                insert(root, key, entry);
+                for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+                    insert(root, key.substring(i + 1), entry);
+                }
+            }
+
+            // 2. 按层序编号并压缩为数组
+            List<MutableNode> nodes = new ArrayList<>();
+            ArrayDeque<MutableNode> queue = new ArrayDeque<>();
+            root.index = 0;
+            nodes.add(root);
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                for (MutableNode child : queue.poll().children.values()) {
+                    child.index = nodes.size();
+                    nodes.add(child);
+                    queue.add(child);
+                }
+            }
+
+            int nodeCount = nodes.size();
+            int[] childStart = new int[nodeCount + 1];
+            int[] topStart = new int[nodeCount + 1];
+            for (int i = 0; i < nodeCount; i++) {
+                childStart[i + 1] = childStart[i] + nodes.get(i).children.size();
+                topStart[i + 1] = topStart[i] + nodes.get(i).topSize;
+            }
+
+            char[] childChars = new char[childStart[nodeCount]];
+            int[] childNodes = new int[childStart[nodeCount]];
+            int[] topEntries = new int[topStart[nodeCount]];
+            for (int i = 0; i < nodeCount; i++) {
+                MutableNode node = nodes.get(i);
+                int offset = childStart[i];
+                for (Map.Entry<Character, MutableNode> child : node.children.entrySet()) {
+                    childChars[offset] = child.getKey();
+                    childNodes[offset] = child.getValue().index;
+                    offset++;
+                }
+                if (node.topSize > 0) {
+                    System.arraycopy(node.top, 0, topEntries, topStart[i], node.topSize);
+                }
+            }
+
+            return new SuggestionTrie(entries.toArray(Suggestion[]::new), keys.toArray(String[]::new),
+                    childStart, childChars, childNodes, topStart, topEntries, maxKeyLength);
+        }
+
+        private void insert(MutableNode root, String key, int entry) {
+            MutableNode node = root;
+            int length = Math.min(key.length(), maxKeyLength);
+            for (int i = 0; i < length; i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+                offer(node, entry);
+            }
+        }
+
+        /**
+         * 按权重插入节点的候选列表（已存在则跳过，超过 K 条时淘汰权重最低的）
+         */
+        private void offer(MutableNode node, int entry) {
+            if (node.top == null) {
+                node.top = new int[topK];
+            }
+            for (int i = 0; i < node.topSize; i++) {
+                if (node.top[i] == entry) {
+                    return;
+                }
+            }
+
+            long weight = entries.get(entry).weight();
+            int position = node.topSize;
+            while (position > 0 && entries.get(node.top[position - 1]).weight() < weight) {
+                position--;
+            }
+            if (position >= topK) {
+                return;
+            }
+            int moved = Math.min(node.topSize, topK - 1) - position;
+            System.arraycopy(node.top, position, node.top, position + 1, moved);
+            node.top[position] = entry;
+            node.topSize = Math.min(node.topSize + 1, topK);
+        }
+    }
+
+    /**
+     * 构建期节点
+     */
+    private static final class MutableNode {
+
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+
+        private int[] top;
+
+        private int topSize;
+
+        private int index;
+    }
+}
@@ -0,0 +1,126 @@
+-- 音频限流检查（一次调用完成 黑名单 → 并发 → 不同文件数 → 请求频率 → 违规计数/封禁）
+--
+-- 脚本读写的所有键都由调用方通过 KEYS 传入（n 为子桶个数 ARGV[13]），且共用同一个 hash tag，
+-- Redis Cluster 下位于同一槽位：
+-- KEYS[1]               IP封禁键，如 audio:rl:{1.2.3.0/24}:ip:1.2.3.4:ban
+-- KEYS[2]               IP违规计数键，如 audio:rl:{1.2.3.0/24}:ip:1.2.3.4:v
+-- KEYS[3 .. 2+n]        不同文件数子桶（当前子桶在前），如 audio:rl:{1.2.3.0/24}:ip:1.2.3.4:f:{子桶序号}
+-- KEYS[3+n .. 2+2n]     请求频率子桶（当前子桶在前，Range请求为 :r:，完整下载为 :d:）
+-- KEYS[3+2n], [4+2n]    网段封禁键、网段违规计数键（按网段聚合时才传入）
+--
+-- ARGV[1]  当前时间（毫秒，子桶键已由调用方按该时间生成）
+-- ARGV[2]  是否为Range请求（1/0）
+-- ARGV[3]  文件名
+-- ARGV[4]  本节点并发连接数是否已超限（1/0）
+-- ARGV[5]  Range请求上限（次/窗口）
+-- ARGV[6]  完整下载上限（次/窗口）
+-- ARGV[7]  不同文件数上限（个/窗口）
+-- ARGV[8]  IP违规封禁阈值
+-- ARGV[9]  网段违规封禁阈值（0表示不启用）
+-- ARGV[10] 违规记录保留时长（毫秒）
+-- ARGV[11] 封禁时长（毫秒）
+-- ARGV[12] 子桶时长（毫秒）
+-- ARGV[13] 子桶个数
+--
+-- 返回 {结果, 违规次数, 封禁范围}
+--   结果：0-允许 1-黑名单 2-并发 3-文件数 4-频率
+--   封禁范围：0-未封禁 1-IP 2-网段
+
+local isRange = ARGV[2] == '1'
+local fileName = ARGV[3]
+local concurrencyExceeded = ARGV[4] == '1'
+local rangeLimit = tonumber(ARGV[5])
+local fullLimit = tonumber(ARGV[6])
+local filesLimit = tonumber(ARGV[7])
+local violationThreshold = tonumber(ARGV[8])
+local prefixThreshold = tonumber(ARGV[9])
+local violationTtl = tonumber(ARGV[10])
+local banMillis = tonumber(ARGV[11])
+local bucketMillis = tonumber(ARGV[12])
+local bucketCount = tonumber(ARGV[13])
+
+local ipBanKey = KEYS[1]
+local ipViolationKey = KEYS[2]
+local netBanKey = KEYS[3 + 2 * bucketCount]
+local netViolationKey = KEYS[4 + 2 * bucketCount]
+
+local function windowKeys(offset)
+    local keys = {}
+    for i = 1, bucketCount do
+        keys[i] = KEYS[offset + i]
+    end
+    return keys
+end
+
+-- 1. 黑名单
+if redis.call('EXISTS', ipBanKey) == 1 then
+    return {1, 0, 0}
+end
+if netBanKey and redis.call('EXISTS', netBanKey) == 1 then
+    return {1, 0, 0}
+end
+
+local bucketTtl = bucketMillis * (bucketCount + 1)
+
+local verdict = 0
+
+-- 2. 并发连接数（由本节点统计）
+if concurrencyExceeded then
+    verdict = 2
+end
+
+-- 3. 不同文件数（HyperLogLog 子桶，PFCOUNT 多键即并集基数；基数不变说明窗口内已访问过）
+if verdict == 0 then
+    local fileKeys = windowKeys(2)
+    local before = redis.call('PFCOUNT', unpack(fileKeys))
+    redis.call('PFADD', fileKeys[1], fileName)
+    redis.call('PEXPIRE', fileKeys[1], bucketTtl)
+    local after = redis.call('PFCOUNT', unpack(fileKeys))
+    if after > before and after > filesLimit then
+        verdict = 3
+    end
+end
+
+-- 4. 请求频率（计数子桶，超限时回退本次计数）
+if verdict == 0 then
+    local limit = isRange and rangeLimit or fullLimit
+    local rateKeys = windowKeys(2 + bucketCount)
+    redis.call('INCR', rateKeys[1])
+    redis.call('PEXPIRE', rateKeys[1], bucketTtl)
+    local total = 0
+    for _, value in ipairs(redis.call('MGET', unpack(rateKeys))) do
+        if value then
+            total = total + tonumber(value)
+        end
+    end
+    if total > limit then
+        redis.call('DECR', rateKeys[1])
+        verdict = 4
+    end
+end
+
+if verdict == 0 then
+    return {0, 0, 0}
+end
+
+-- 5. 违规计数与封禁
+local banned = 0
+local violations = redis.call('INCR', ipViolationKey)
+redis.call('PEXPIRE', ipViolationKey, violationTtl)
+if violations >= violationThreshold then
+    redis.call('SET', ipBanKey, '1', 'PX', banMillis)
+    redis.call('DEL', ipViolationKey)
+    banned = 1
+end
+
+if netViolationKey and prefixThreshold > 0 then
+    local netViolations = redis.call('INCR', netViolationKey)
+    redis.call('PEXPIRE', netViolationKey, violationTtl)
+    if netViolations >= prefixThreshold then
+        redis.call('SET', netBanKey, '1', 'PX', banMillis)
+        redis.call('DEL', netViolationKey)
+        banned = 2
+    end
+end
+
+return {verdict, violations, banned}
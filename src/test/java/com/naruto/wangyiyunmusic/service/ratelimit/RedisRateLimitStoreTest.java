@@ -0,0 +1,167 @@
+package com.naruto.wangyiyunmusic.service.ratelimit;
+
+import com.naruto.wangyiyunmusic.config.properties.AudioSecurityProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RedisRateLimitStore 集成测试
+ *
+ * <p>使用 Testcontainers 启动真实 Redis，端到端执行 lua/audio_rate_limit.lua；未安装 Docker 时跳过</p>
+ *
+ * @Author: naruto
+ * @CreateTime: 2026-02-09
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisRateLimitStoreTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>(DockerImageName.parse("redis:7-alpine"))
+            .withExposedPorts(6379);
+
+    private AudioSecurityProperties properties;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private RedisRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AudioSecurityProperties();
+        AudioSecurityProperties.RateLimitConfig rateLimit = properties.getRateLimit();
+        rateLimit.setFullDownloadsPerMinute(2);
+        rateLimit.setRangeRequestsPerMinute(3);
+        rateLimit.setUniqueFilesPerMinute(2);
+        rateLimit.setMaxConcurrentConnections(1);
+        rateLimit.setBlacklistThreshold(3);
+        // 每个用例使用独立的键前缀，互不影响
+        rateLimit.setRedisKeyPrefix("test:" + UUID.randomUUID() + ":");
+        properties.getBlacklist().setPrefixBanThreshold(0);
+
+        store = newStore(REDIS.getHost(), REDIS.getMappedPort(6379));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void fullDownloadsAreLimitedPerWindow() {
+        long now = System.currentTimeMillis();
+        assertThat(store.acquire("10.0.0.1", false, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+        assertThat(store.acquire("10.0.0.1", false, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+        assertThat(store.acquire("10.0.0.1", false, "a.mp3", now)).isEqualTo(RateLimitVerdict.RATE);
+
+        // Range 请求与完整下载分别计数，其他IP不受影响
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+        assertThat(store.acquire("10.0.0.2", false, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeQuota() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+        }
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.RATE);
+
+        // 窗口滑过后恢复（超限时回退了计数，只需等待已放行的请求过期）
+        long later = now + 61_000L;
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", later)).isEqualTo(RateLimitVerdict.ALLOWED);
+    }
+
+    @Test
+    void uniqueFilesAreCountedAcrossBuckets() {
+        long now = System.currentTimeMillis();
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+        assertThat(store.acquire("10.0.0.1", true, "b.mp3", now + 10_000L)).isEqualTo(RateLimitVerdict.ALLOWED);
+        // 已访问过的文件不增加计数
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now + 20_000L)).isEqualTo(RateLimitVerdict.ALLOWED);
+        assertThat(store.acquire("10.0.0.1", true, "c.mp3", now + 20_000L)).isEqualTo(RateLimitVerdict.UNIQUE_FILES);
+    }
+
+    @Test
+    void localConcurrencyIsEnforcedInScript() {
+        long now = System.currentTimeMillis();
+        store.incrementConnection("10.0.0.1");
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.CONCURRENT);
+
+        store.decrementConnection("10.0.0.1");
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+    }
+
+    @Test
+    void repeatedViolationsBanTheIp() {
+        long now = System.currentTimeMillis();
+        store.acquire("10.0.0.1", false, "a.mp3", now);
+        store.acquire("10.0.0.1", false, "a.mp3", now);
+        for (int i = 0; i < 3; i++) {
+            assertThat(store.acquire("10.0.0.1", false, "a.mp3", now)).isEqualTo(RateLimitVerdict.RATE);
+        }
+        assertThat(store.acquire("10.0.0.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.BLACKLISTED);
+    }
+
+    @Test
+    void networkBanCoversWholePrefix() {
+        properties.getBlacklist().setPrefixBanThreshold(2);
+        long now = System.currentTimeMillis();
+        for (String ip : new String[]{"10.0.1.1", "10.0.1.2"}) {
+            store.acquire(ip, false, "a.mp3", now);
+            store.acquire(ip, false, "a.mp3", now);
+            assertThat(store.acquire(ip, false, "a.mp3", now)).isEqualTo(RateLimitVerdict.RATE);
+        }
+        assertThat(store.acquire("10.0.1.3", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.BLACKLISTED);
+        assertThat(store.acquire("10.0.2.1", true, "a.mp3", now)).isEqualTo(RateLimitVerdict.ALLOWED);
+    }
+
+    @Test
+    void unavailableRedisFailsOpenByDefault() {
+        connectionFactory.destroy();
+        store = newStore("127.0.0.1", 1);
+
+        assertThat(store.acquire("10.0.0.1", false, "a.mp3", System.currentTimeMillis()))
+                .isEqualTo(RateLimitVerdict.ALLOWED);
+        assertThat(store.failureCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unavailableRedisFailsClosedWhenConfigured() {
+        connectionFactory.destroy();
+        store = newStore("127.0.0.1", 1);
+        properties.getRateLimit().setRedisFailurePolicy("closed");
+
+        assertThat(store.acquire("10.0.0.1", false, "a.mp3", System.currentTimeMillis()))
+                .isEqualTo(RateLimitVerdict.UNAVAILABLE);
+        assertThat(store.failureCount()).isEqualTo(1);
+    }
+
+    private RedisRateLimitStore newStore(String host, int port) {
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofSeconds(2))
+                .build();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port),
+                clientConfiguration);
+        connectionFactory.afterPropertiesSet();
+
+        RedisRateLimitStore redisStore = new RedisRateLimitStore();
+        ReflectionTestUtils.setField(redisStore, "redisTemplate", new StringRedisTemplate(connectionFactory));
+        ReflectionTestUtils.setField(redisStore, "securityProperties", properties);
+        return redisStore;
+    }
+}